@@ -0,0 +1,41 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 클라이언트 쪽 이미지 캐시 (내용 해시 → 원본 바이트).
+ * 이미 받은 이미지는 다시 요청하지 않도록 바이트 예산 안에서 LRU 로 유지한다.
+ * 여러 채팅방 창이 같은 ChatClient 의 캐시를 같이 쓴다.
+ */
+public class BlobCache {
+
+    private final long budgetBytes;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    public BlobCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    public synchronized byte[] get(String hash) {
+        return entries.get(hash);
+    }
+
+    public synchronized void put(String hash, byte[] data) {
+        if (data.length > budgetBytes) return;
+        byte[] old = entries.put(hash, data);
+        if (old != null) {
+            bytes -= old.length;
+        }
+        bytes += data.length;
+
+        // 가장 오래 안 쓴 것부터 예산 안으로 들어올 때까지 제거
+        Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+        while (bytes > budgetBytes && it.hasNext()) {
+            Map.Entry<String, byte[]> e = it.next();
+            if (e.getKey().equals(hash)) continue;
+            bytes -= e.getValue().length;
+            it.remove();
+        }
+    }
+}
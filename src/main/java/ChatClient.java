@@ -1,9 +1,19 @@
+import chat.shared.Codecs;
+import chat.shared.Frames;
 import chat.shared.Message;
+import chat.shared.MessageCodec;
+import chat.shared.SerialCodec;
 
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.net.Socket;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 public class ChatClient {
@@ -13,42 +23,156 @@ public class ChatClient {
         void onMessage(Message m);
     }
 
-    private Socket socket;
-    private ObjectInputStream in;
-    private ObjectOutputStream out;
+    // 연결이 끊기면 이만큼부터 두 배씩 (최대 RECONNECT_MAX_MILLIS) 기다리며 다시 접속
+    private static final long RECONNECT_MILLIS = 200;
+    private static final long RECONNECT_MAX_MILLIS = 5000;
+
+    private volatile Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+    private String host;
+    private int port;
     private String nickname;
+    private volatile MessageCodec codec = SerialCodec.INSTANCE;
+    private Message pendingFirst; // 협상 응답이 아닌 첫 메시지는 리스너에게 넘긴다
+    private volatile boolean closing;
+
+    // 세션 이어받기: 서버가 준 토큰, 들어가 있는 방, 방마다 마지막으로 받은 순번
+    private volatile String resumeToken;
+    private final Set<String> rooms = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> lastSeqs = new ConcurrentHashMap<>();
 
     private Thread listenerThread;
     private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final BlobCache blobCache = new BlobCache(64L * 1024 * 1024);
+    private final ImageUploader imageUploader = new ImageUploader();
 
     public void connect(String host, int port, String nickname) throws Exception {
+        this.host = host;
+        this.port = port;
         this.nickname = nickname;
 
-        socket = new Socket(host, port);
-
-        out = new ObjectOutputStream(socket.getOutputStream());
-        out.flush();
-        in = new ObjectInputStream(socket.getInputStream());
-
-        send(Message.login(nickname));
+        handshake(Message.login(nickname, Codecs.PREFERRED));
 
         listenerThread = new Thread(this::listenLoop, "client-listener");
         listenerThread.start();
     }
 
+    // 접속하고 첫 메시지(LOGIN 또는 RESUME)를 보낸 뒤 코덱 협상 응답까지
+    private void handshake(Message hello) throws Exception {
+        Socket s = new Socket(host, port);
+
+        s.setTcpNoDelay(true);
+
+        synchronized (this) {
+            socket = s;
+            codec = SerialCodec.INSTANCE;
+            // 길이 접두 프레임 방식: MAGIC 을 먼저 보내 서버(스레드/NIO 모드 모두)가 프로토콜을 구분하게 한다
+            out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            out.writeInt(Frames.MAGIC);
+            in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+        }
+
+        // 첫 메시지는 항상 serial 로 보내고, 서버가 고른 코덱을 받은 뒤부터 전환한다
+        send(hello);
+        Message first = readMessage();
+        if (first.getType() == Message.Type.LOGIN && first.getCodecs() != null && !first.getCodecs().isEmpty()) {
+            MessageCodec chosen = Codecs.byName(first.getCodecs().get(0));
+            if (chosen != null) {
+                codec = chosen;
+            }
+        } else {
+            pendingFirst = first;
+        }
+    }
+
     private void listenLoop() {
-        try {
-            while (!socket.isClosed()) {
-                Object obj = in.readObject();
-                if (!(obj instanceof Message m)) continue;
+        while (!closing) {
+            try {
+                if (pendingFirst != null) {
+                    Message first = pendingFirst;
+                    pendingFirst = null;
+                    dispatch(first);
+                }
+                while (!socket.isClosed()) {
+                    dispatch(readMessage());
+                }
+            } catch (Exception e) {
+                System.out.println("[ChatClient] listen 종료: " + e.getMessage());
+            }
+            if (closing || !reconnect()) {
+                return;
+            }
+        }
+    }
 
-                for (Listener l : listeners) {
-                    l.onMessage(m);
+    private void dispatch(Message m) throws Exception {
+        if (m.getType() == Message.Type.RESUME) {
+            onResume(m);
+            return;
+        }
+        if (m.getRoom() != null && m.getSeq() >= 0) {
+            lastSeqs.merge(m.getRoom(), m.getSeq(), Math::max);
+        }
+        for (Listener l : listeners) {
+            l.onMessage(m);
+        }
+    }
+
+    // 토큰을 받았으면 같은 세션으로 (방마다 놓친 것만 받음), 없으면 새로 로그인해 방에 다시 들어간다
+    private boolean reconnect() {
+        long delay = RECONNECT_MILLIS;
+        while (!closing) {
+            try {
+                Thread.sleep(delay);
+                String token = resumeToken;
+                if (token != null) {
+                    List<String> names = new ArrayList<>(rooms);
+                    List<Long> seqs = new ArrayList<>();
+                    for (String name : names) {
+                        seqs.add(lastSeqs.getOrDefault(name, -1L));
+                    }
+                    handshake(Message.resume(nickname, token, Codecs.PREFERRED, names, seqs));
+                } else {
+                    handshake(Message.login(nickname, Codecs.PREFERRED));
+                    rejoin();
                 }
+                System.out.println("[ChatClient] 다시 접속함" + (token != null ? " (이어받기 요청)" : ""));
+                return true;
+            } catch (InterruptedException e) {
+                return false;
+            } catch (Exception e) {
+                System.out.println("[ChatClient] 다시 접속 실패: " + e.getMessage());
+                delay = Math.min(delay * 2, RECONNECT_MAX_MILLIS);
             }
-        } catch (Exception e) {
-            System.out.println("[ChatClient] listen 종료: " + e.getMessage());
         }
+        return false;
+    }
+
+    private void onResume(Message m) throws Exception {
+        if (m.getText() == null) {
+            // 이어받지 못함 (창이 지났거나 서버가 바뀜): 새 세션으로 방에 다시 들어간다
+            System.out.println("[ChatClient] 세션을 이어받지 못해 방에 다시 들어갑니다.");
+            resumeToken = null;
+            rejoin();
+            return;
+        }
+        resumeToken = m.getText();
+        if (m.getRooms() != null) {
+            System.out.println("[ChatClient] 세션 이어받음: " + m.getRooms());
+        }
+    }
+
+    private void rejoin() throws Exception {
+        lastSeqs.clear();
+        for (String room : rooms) {
+            send(Message.joinRoom(room));
+        }
+    }
+
+    private Message readMessage() throws Exception {
+        byte[] payload = Frames.readFrame(in);
+        return codec.decode(payload, 0, payload.length);
     }
 
     public void addListener(Listener l) {
@@ -63,15 +187,32 @@ public class ChatClient {
         return nickname;
     }
 
-    public void send(Message m) throws Exception {
+    // 방 창들이 같이 쓰는 이미지 캐시
+    public BlobCache getBlobCache() {
+        return blobCache;
+    }
+
+    public ImageUploader getImageUploader() {
+        return imageUploader;
+    }
+
+    // 여러 창(채팅/오목)이 동시에 보낼 수 있으므로 프레임 단위로 직렬화
+    public synchronized void send(Message m) throws Exception {
         if (out == null) {
             throw new IllegalStateException("서버와 연결되지 않았습니다.");
         }
-        out.writeObject(m);
+        if (m.getType() == Message.Type.JOIN_ROOM && m.getRoom() != null) {
+            rooms.add(m.getRoom());
+        } else if (m.getType() == Message.Type.LEAVE_ROOM && m.getRoom() != null) {
+            rooms.remove(m.getRoom());
+            lastSeqs.remove(m.getRoom());
+        }
+        Frames.writeFrame(out, codec.encode(m));
         out.flush();
     }
 
     public void disconnect() {
+        closing = true;
         try {
             if (socket != null) socket.close();
         } catch (Exception ignored) {
@@ -1,3 +1,5 @@
+import chat.shared.ChunkAssembler;
+import chat.shared.ImageChunks;
 import chat.shared.Message;
 
 import javax.swing.*;
@@ -5,7 +7,12 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.text.*;
 import java.awt.*;
+import java.awt.event.AdjustmentEvent;
 import java.io.File;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ChatFrame extends JFrame {
 
@@ -14,21 +21,34 @@ public class ChatFrame extends JFrame {
     private final RoomListFrame parentList; // 나가기 시 목록으로 복귀
 
     private final ChatClient.Listener listener;
+    private final ChunkAssembler imageAssembler = new ChunkAssembler(32);
+    private final Set<String> requestedBlobs = ConcurrentHashMap.newKeySet(); // 원본을 요청했고 아직 안 온 해시 (EDT/수신 스레드 공용)
 
     private JTextPane chatPane;
+    private JScrollPane chatScroll;
     private JTextField inputField;
     private JButton sendButton, selectButton;
+    private JProgressBar uploadProgress;
 
     private DefaultListModel<String> userListModel;
     private JList<String> userList;
+    // 참가자 목록 버전 (USER_LIST 로 받음). 변경분은 바로 다음 버전만 적용 (EDT 전용)
+    private long userListVersion = -1;
 
     // 오목 게임 UI
     private JButton omokPlayButton;
     private JButton omokWatchButton;
     private OmokWindow omokWindow;
+    private SearchDialog searchDialog;
     private boolean requestedOmokWindow = false; // 내가 직접 참여/관전 버튼을 눌렀는지
     private boolean active = true; // 창이 닫힌 뒤에는 게임 메시지 무시
 
+    // 지난 기록: 입장 시 최신 한 페이지를 받고, 맨 위로 스크롤하면 cursor 이전 페이지를 요청 (EDT 전용)
+    private static final int HISTORY_PAGE = 50;
+    private long historyCursor = -1;
+    private boolean historyHasMore;
+    private boolean historyLoading = true; // 입장 직후 첫 페이지는 서버가 알아서 보낸다
+
     public ChatFrame(ChatClient client, String roomName, RoomListFrame parentList) {
         this.client = client;
         this.roomName = roomName;
@@ -56,9 +76,14 @@ public class ChatFrame extends JFrame {
         title.setFont(new Font("Dialog", Font.BOLD, 16));
         topBar.add(title, BorderLayout.WEST);
 
+        JButton searchBtn = new JButton("기록 검색");
+        searchBtn.addActionListener(e -> openSearch());
         JButton leaveBtn = new JButton("채팅방 나가기");
         leaveBtn.addActionListener(e -> dispose());
-        topBar.add(leaveBtn, BorderLayout.EAST);
+        JPanel topButtons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        topButtons.add(searchBtn);
+        topButtons.add(leaveBtn);
+        topBar.add(topButtons, BorderLayout.EAST);
         main.add(topBar, BorderLayout.NORTH);
 
         // ===== 중앙: 채팅창 (왼쪽) + 유저 목록(오른쪽) =====
@@ -69,7 +94,8 @@ public class ChatFrame extends JFrame {
         chatPane.setEditable(false);
         chatPane.setBackground(Color.WHITE);
 
-        JScrollPane chatScroll = new JScrollPane(chatPane);
+        chatScroll = new JScrollPane(chatPane);
+        chatScroll.getVerticalScrollBar().addAdjustmentListener(this::onChatScrolled);
         center.add(chatScroll, BorderLayout.CENTER);
 
         // 유저 목록 패널 (오른쪽)
@@ -111,6 +137,12 @@ public class ChatFrame extends JFrame {
         gamePanel.add(omokWatchButton);
         bottom.add(gamePanel, BorderLayout.NORTH);
 
+        // 이미지 업로드 진행률 (업로드 중에만 표시)
+        uploadProgress = new JProgressBar(0, 100);
+        uploadProgress.setStringPainted(true);
+        uploadProgress.setVisible(false);
+        bottom.add(uploadProgress, BorderLayout.SOUTH);
+
         main.add(bottom, BorderLayout.SOUTH);
 
         // 이벤트 연결
@@ -136,11 +168,7 @@ public class ChatFrame extends JFrame {
                 return;
             }
             inputField.setText(chooser.getSelectedFile().getAbsolutePath());
-            try {
-                sendImage();
-            } catch (Exception ex) {
-                appendSystem("[오류] 이미지 전송 실패: " + ex.getMessage());
-            }
+            sendImage();
         });
 
         omokPlayButton.addActionListener(e -> requestOmokJoin(false));
@@ -161,7 +189,8 @@ public class ChatFrame extends JFrame {
         }
     }
 
-    private void sendImage() throws Exception {
+    // 읽기·축소·압축·전송은 업로드 스레드에서 하고, EDT 는 진행률만 갱신
+    private void sendImage() {
         String filename = inputField.getText().strip();
         if (filename.isEmpty()) return;
 
@@ -170,11 +199,37 @@ public class ChatFrame extends JFrame {
             appendSystem(">>파일이 존재하지 않습니다: " + filename);
             return;
         }
+        inputField.setText("");
+        selectButton.setEnabled(false);
+        uploadProgress.setValue(0);
+        uploadProgress.setString(file.getName());
+        uploadProgress.setVisible(true);
+        revalidate();
+
+        client.getImageUploader().upload(client, roomName, file, new ImageUploader.Progress() {
+            @Override
+            public void update(String stage, int percent) {
+                SwingUtilities.invokeLater(() -> {
+                    uploadProgress.setValue(percent);
+                    uploadProgress.setString(file.getName() + " - " + stage + " " + percent + "%");
+                    if (percent >= 100) {
+                        finishUpload();
+                    }
+                });
+            }
 
-        ImageIcon icon = new ImageIcon(filename);
-        client.send(Message.sendImage(roomName, client.getNickname(), icon));
+            @Override
+            public void failed(String reason) {
+                appendSystem("[오류] 이미지 전송 실패: " + reason);
+                SwingUtilities.invokeLater(() -> finishUpload());
+            }
+        });
+    }
 
-        inputField.setText("");
+    private void finishUpload() {
+        uploadProgress.setVisible(false);
+        selectButton.setEnabled(true);
+        revalidate();
     }
 
     // 서버에서 오는 메세지 타입별 처리
@@ -197,6 +252,11 @@ public class ChatFrame extends JFrame {
                     updateUserList(m);
                 }
             }
+            case USER_JOINED, USER_LEFT -> {
+                if (roomName.equals(m.getRoom())) {
+                    SwingUtilities.invokeLater(() -> applyUserDelta(m));
+                }
+            }
 
             case IMAGE -> {
                 if (roomName.equals(m.getRoom())) {
@@ -205,6 +265,36 @@ public class ChatFrame extends JFrame {
                 }
             }
 
+            case IMAGE_REF -> {
+                if (roomName.equals(m.getRoom())) {
+                    appendChat(m.getSender() + "님이 이미지를 보냈습니다.");
+                    appendThumbnail(m.getData(), m.getBlobId());
+                }
+            }
+
+            case HISTORY -> {
+                if (roomName.equals(m.getRoom())) {
+                    SwingUtilities.invokeLater(() -> showHistoryPage(m));
+                }
+            }
+
+            case SEARCH -> {
+                if (roomName.equals(m.getRoom())) {
+                    SwingUtilities.invokeLater(() -> {
+                        if (searchDialog != null) searchDialog.showResults(m);
+                    });
+                }
+            }
+
+            case IMAGE_CHUNK -> {
+                if (roomName.equals(m.getRoom())) {
+                    ChunkAssembler.Completed img = imageAssembler.accept(m);
+                    if (img != null) {
+                        onImageReceived(img);
+                    }
+                }
+            }
+
             default -> {
                 if (m.getType() == Message.Type.GAME_EVENT && roomName.equals(m.getRoom())) {
                     handleGameMessage(m);
@@ -213,6 +303,112 @@ public class ChatFrame extends JFrame {
         }
     }
 
+    private void openSearch() {
+        if (searchDialog == null) {
+            searchDialog = new SearchDialog(this, client, roomName);
+        }
+        searchDialog.setVisible(true);
+    }
+
+    // 지난 기록 한 페이지를 채팅창 맨 위에 끼워 넣는다 (EDT)
+    private void showHistoryPage(Message m) {
+        JScrollBar bar = chatScroll.getVerticalScrollBar();
+        int oldMax = bar.getMaximum();
+        int oldValue = bar.getValue();
+        boolean first = historyCursor < 0;
+
+        int pos = 0;
+        for (Message h : m.getPage()) {
+            pos = insertHistory(pos, h);
+        }
+        historyCursor = m.getCursor();
+        historyHasMore = m.hasMore();
+
+        // 레이아웃이 끝난 뒤 스크롤 위치 조정: 첫 페이지는 맨 아래, 이후는 보던 자리 유지
+        SwingUtilities.invokeLater(() -> {
+            if (first) {
+                chatPane.setCaretPosition(chatPane.getDocument().getLength());
+            } else {
+                bar.setValue(oldValue + bar.getMaximum() - oldMax);
+            }
+            historyLoading = false;
+            // 기록이 짧아 스크롤바가 없으면 스크롤 이벤트가 안 오므로 바로 다음 페이지
+            if (bar.getMaximum() <= bar.getVisibleAmount()) {
+                requestOlderHistory();
+            }
+        });
+    }
+
+    private int insertHistory(int pos, Message h) {
+        switch (h.getType()) {
+            case CHAT:
+                return insertText(pos, h.getSender() + ": " + h.getText(), StyleConstants.ALIGN_LEFT, Color.BLACK, false);
+            case SYSTEM:
+                return insertText(pos, "[System] " + h.getText(), StyleConstants.ALIGN_CENTER, Color.GRAY, true);
+            case IMAGE_REF:
+                pos = insertText(pos, h.getSender() + "님이 이미지를 보냈습니다.", StyleConstants.ALIGN_LEFT, Color.BLACK, false);
+                pos = insertComponent(pos, thumbnailLabel(h.getData(), h.getBlobId()));
+                return insertText(pos, "", StyleConstants.ALIGN_LEFT, Color.BLACK, false);
+            case IMAGE:
+                pos = insertText(pos, h.getSender() + "님이 이미지를 보냈습니다.", StyleConstants.ALIGN_LEFT, Color.BLACK, false);
+                ImageIcon icon = h.getImage();
+                if (icon == null || icon.getIconWidth() <= 0) return pos;
+                pos = insertComponent(pos, new JLabel(scaled(icon)));
+                return insertText(pos, "", StyleConstants.ALIGN_LEFT, Color.BLACK, false);
+            default:
+                return pos;
+        }
+    }
+
+    private void onChatScrolled(AdjustmentEvent e) {
+        JScrollBar bar = chatScroll.getVerticalScrollBar();
+        if (!e.getValueIsAdjusting() && e.getValue() == bar.getMinimum() && bar.getMaximum() > bar.getVisibleAmount()) {
+            requestOlderHistory();
+        }
+    }
+
+    private void requestOlderHistory() {
+        if (historyLoading || !historyHasMore) return;
+        historyLoading = true;
+        try {
+            client.send(Message.historyRequest(roomName, historyCursor, HISTORY_PAGE));
+        } catch (Exception e) {
+            historyLoading = false;
+            appendSystem("[오류] 지난 기록 요청 실패: " + e.getMessage());
+        }
+    }
+
+    // 썸네일 클릭 시 (EDT). 캐시에 있으면 바로 원본 창, 없으면 서버에 한 번만 요청
+    private void openFullImage(String hash) {
+        byte[] cached = client.getBlobCache().get(hash);
+        if (cached != null) {
+            showFullImage(cached);
+            return;
+        }
+        if (!requestedBlobs.add(hash)) return;
+        try {
+            client.send(Message.blobRequest(roomName, hash));
+        } catch (Exception e) {
+            requestedBlobs.remove(hash);
+            appendSystem("[오류] 이미지 요청 실패: " + e.getMessage());
+        }
+    }
+
+    // 요청한 blob 은 해시를 확인하고 캐시에 넣는다. 요청하지 않은 조각(예전 서버의 중계)은 그대로 표시
+    private void onImageReceived(ChunkAssembler.Completed img) {
+        if (!requestedBlobs.remove(img.blobId)) {
+            appendChat(img.sender + "님이 이미지를 보냈습니다.");
+            appendImage(img.bytes);
+            return;
+        }
+        if (!img.blobId.equals(ImageChunks.contentHash(img.bytes))) {
+            appendSystem("[오류] 이미지 내용이 손상되었습니다.");
+            return;
+        }
+        client.getBlobCache().put(img.blobId, img.bytes);
+        SwingUtilities.invokeLater(() -> showFullImage(img.bytes));
+    }
+
     private void handleGameMessage(Message m) {
         if (!active) return; // 이미 닫힌 창이면 무시
         if (m.getGameAction() == Message.GameAction.ERROR) {
@@ -271,9 +467,36 @@ public class ChatFrame extends JFrame {
                     userListModel.addElement(u);
                 }
             }
+            userListVersion = m.getVersion();
         });
     }
 
+    // 들어옴/나감 "상태" 라서 이미 목록에 반영된 것을 다시 받아도 결과는 같다
+    private void applyUserDelta(Message m) {
+        if (userListVersion < 0 || m.getVersion() <= userListVersion) return;
+        if (m.getVersion() != userListVersion + 1) {
+            userListVersion = -1; // 중간 변경분을 놓침 → 전체 목록 다시
+            try {
+                client.send(Message.userListRequest(roomName));
+            } catch (Exception e) {
+                appendSystem("참가자 목록 요청 실패: " + e.getMessage());
+            }
+            return;
+        }
+        userListVersion = m.getVersion();
+        if (m.getUsers() == null) return;
+        for (String u : m.getUsers()) {
+            int i = 0;
+            while (i < userListModel.size() && userListModel.get(i).compareTo(u) < 0) i++;
+            boolean present = i < userListModel.size() && userListModel.get(i).equals(u);
+            if (m.getType() == Message.Type.USER_JOINED && !present) {
+                userListModel.add(i, u);
+            } else if (m.getType() == Message.Type.USER_LEFT && present) {
+                userListModel.remove(i);
+            }
+        }
+    }
+
     // 채팅창에 채팅, 이미지 추가
 
     private void appendChat(String text) {
@@ -284,42 +507,113 @@ public class ChatFrame extends JFrame {
         appendLine("[System] " + text, StyleConstants.ALIGN_CENTER, Color.GRAY, true);
     }
 
+    // 원본 바이트는 여기서 처음 디코딩한다 (수신 스레드에서 디코딩, 삽입은 EDT)
+    private void appendImage(byte[] bytes) {
+        ImageIcon icon = new ImageIcon(bytes);
+        if (icon.getIconWidth() <= 0) {
+            appendSystem("[오류] 이미지를 표시할 수 없습니다.");
+            return;
+        }
+        SwingUtilities.invokeLater(() -> appendImage(icon));
+    }
+
+    // 썸네일을 클릭할 수 있는 라벨로 삽입 (썸네일이 없으면 글자 링크)
+    private void appendThumbnail(byte[] thumbnail, String hash) {
+        JLabel label = thumbnailLabel(thumbnail, hash);
+        SwingUtilities.invokeLater(() -> {
+            int end = insertComponent(chatPane.getDocument().getLength(), label);
+            insertText(end, "", StyleConstants.ALIGN_LEFT, Color.BLACK, false);
+            chatPane.setCaretPosition(chatPane.getDocument().getLength());
+        });
+    }
+
+    private JLabel thumbnailLabel(byte[] thumbnail, String hash) {
+        ImageIcon icon = thumbnail == null ? null : new ImageIcon(thumbnail);
+        if (icon != null && icon.getIconWidth() <= 0) {
+            icon = null;
+        }
+        JLabel label = icon != null ? new JLabel(icon) : new JLabel("[이미지 보기]");
+        label.setToolTipText("클릭하면 원본 이미지를 봅니다.");
+        label.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        label.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                openFullImage(hash);
+            }
+        });
+        return label;
+    }
+
+    // 원본은 별도 창에서 (화면보다 크면 스크롤)
+    private void showFullImage(byte[] bytes) {
+        ImageIcon icon = new ImageIcon(bytes);
+        if (icon.getIconWidth() <= 0) {
+            appendSystem("[오류] 이미지를 표시할 수 없습니다.");
+            return;
+        }
+        JDialog dialog = new JDialog(this, "원본 이미지", false);
+        dialog.add(new JScrollPane(new JLabel(icon)));
+        Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+        dialog.setSize(Math.min(icon.getIconWidth() + 40, screen.width * 4 / 5),
+                Math.min(icon.getIconHeight() + 60, screen.height * 4 / 5));
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
     private void appendImage(ImageIcon icon){
         // 이미지 크기 조절 + t_display에 아이콘 삽입
         chatPane.setCaretPosition(chatPane.getDocument().getLength());
 
+        chatPane.insertIcon(scaled(icon));
+
+        appendChat("");
+        inputField.setText("");
+    }
+
+    private ImageIcon scaled(ImageIcon icon) {
         if(icon.getIconWidth() > 400){
             Image img = icon.getImage();
             Image changeImg = img. getScaledInstance(400,-1,Image.SCALE_SMOOTH);
             icon = new ImageIcon(changeImg);
         }
-
-        chatPane.insertIcon(icon);
-
-        appendChat("");
-        inputField.setText("");
+        return icon;
     }
 
     private void appendLine(String text, int align, Color color, boolean italic) {
         SwingUtilities.invokeLater(() -> {
-            StyledDocument doc = chatPane.getStyledDocument();
+            insertText(chatPane.getDocument().getLength(), text, align, color, italic);
+            chatPane.setCaretPosition(chatPane.getDocument().getLength());
+        });
+    }
 
-            SimpleAttributeSet attrs = new SimpleAttributeSet();
-            StyleConstants.setAlignment(attrs, align);
-            StyleConstants.setForeground(attrs, color);
-            StyleConstants.setBold(attrs, !italic);
-            StyleConstants.setItalic(attrs, italic);
+    // pos 에 한 줄 삽입하고 그 뒤 위치를 돌려준다 (EDT). 지난 기록은 맨 위에, 새 메시지는 맨 끝에
+    private int insertText(int pos, String text, int align, Color color, boolean italic) {
+        StyledDocument doc = chatPane.getStyledDocument();
 
-            try {
-                int start = doc.getLength();
-                doc.insertString(start, text + "\n", attrs);
-                doc.setParagraphAttributes(start, (text + "\n").length(), attrs, false);
-            } catch (BadLocationException e) {
-                e.printStackTrace();
-            }
+        SimpleAttributeSet attrs = new SimpleAttributeSet();
+        StyleConstants.setAlignment(attrs, align);
+        StyleConstants.setForeground(attrs, color);
+        StyleConstants.setBold(attrs, !italic);
+        StyleConstants.setItalic(attrs, italic);
 
-            chatPane.setCaretPosition(doc.getLength());
-        });
+        try {
+            doc.insertString(pos, text + "\n", attrs);
+            doc.setParagraphAttributes(pos, (text + "\n").length(), attrs, false);
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+        return pos + text.length() + 1;
+    }
+
+    private int insertComponent(int pos, Component c) {
+        SimpleAttributeSet attrs = new SimpleAttributeSet();
+        StyleConstants.setComponent(attrs, c);
+        try {
+            chatPane.getStyledDocument().insertString(pos, " ", attrs);
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+        return pos + 1;
     }
 
     @Override
@@ -331,6 +625,10 @@ public class ChatFrame extends JFrame {
             omokWindow.dispose();
             omokWindow = null;
         }
+        if (searchDialog != null) {
+            searchDialog.dispose();
+            searchDialog = null;
+        }
         try {
             client.send(Message.leaveRoom(roomName, client.getNickname()));
         } catch (Exception e) {
@@ -0,0 +1,189 @@
+import chat.shared.ImageChunks;
+import chat.shared.Message;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 이미지 업로드 파이프라인. Swing EDT 가 아닌 백그라운드 스레드 하나에서
+ * 파일 읽기 → 디코딩 → 최대 크기로 축소 → JPEG/PNG 재압축 → 조각 전송 순서로 진행하고 진행률을 알린다.
+ *
+ * 최대 크기와 JPEG 품질은 시스템 속성 chat.upload.maxEdge(기본 1920px), chat.upload.quality(기본 0.85)로 바꿀 수 있다.
+ */
+public class ImageUploader {
+
+    public interface Progress {
+        // percent: 0~100, 끝나면 100
+        void update(String stage, int percent);
+
+        void failed(String reason);
+    }
+
+    // 디코딩·인코딩 결과
+    static final class Prepared {
+        final String mimeType;
+        final byte[] bytes;
+
+        Prepared(String mimeType, byte[] bytes) {
+            this.mimeType = mimeType;
+            this.bytes = bytes;
+        }
+    }
+
+    private final int maxEdge;
+    private final float quality;
+
+    // 업로드는 한 번에 하나씩 (대용량 디코딩이 겹치지 않게)
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "image-upload");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ImageUploader() {
+        this(Integer.getInteger("chat.upload.maxEdge", 1920),
+                Float.parseFloat(System.getProperty("chat.upload.quality", "0.85")));
+    }
+
+    public ImageUploader(int maxEdge, float quality) {
+        this.maxEdge = Math.max(16, maxEdge);
+        this.quality = Math.max(0.1f, Math.min(1f, quality));
+    }
+
+    public Future<?> upload(ChatClient client, String room, File file, Progress progress) {
+        return executor.submit(() -> {
+            try {
+                progress.update("읽는 중", 0);
+                byte[] original = Files.readAllBytes(file.toPath());
+
+                progress.update("압축 중", 10);
+                Prepared prepared = prepare(original, maxEdge, quality);
+                if (prepared.bytes.length > ImageChunks.MAX_IMAGE_BYTES) {
+                    progress.failed("이미지가 너무 큽니다(" + prepared.bytes.length / 1024 + "KB).");
+                    return;
+                }
+
+                List<Message> chunks = ImageChunks.split(room, client.getNickname(), prepared.mimeType, prepared.bytes);
+                for (int i = 0; i < chunks.size(); i++) {
+                    progress.update("전송 중", 40 + 60 * i / chunks.size());
+                    client.send(chunks.get(i));
+                }
+                progress.update("완료", 100);
+            } catch (Exception e) {
+                progress.failed(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 긴 변이 maxEdge 를 넘으면 줄여서 다시 압축한다 (알파가 있으면 PNG, 아니면 JPEG).
+     * 움직이는 GIF 와 이미 작은 JPEG/PNG/GIF 는 원본 그대로 보낸다 (BMP 등은 크기와 무관하게 다시 압축).
+     */
+    static Prepared prepare(byte[] original, int maxEdge, float quality) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new IOException("이미지 파일이 아닙니다.");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, false, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                String mimeType = mimeOf(reader.getFormatName());
+                boolean animated = "image/gif".equals(mimeType) && reader.getNumImages(true) > 1;
+                if (animated || (w <= maxEdge && h <= maxEdge && mimeType != null)) {
+                    return new Prepared(mimeType, original);
+                }
+
+                // 목표 크기 아래로 내려가지 않는 만큼만 건너뛰며 읽어서 디코딩 메모리를 줄인다
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(w, h) / maxEdge);
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                BufferedImage scaled = scale(decoded, maxEdge);
+                boolean alpha = scaled.getColorModel().hasAlpha();
+                byte[] encoded = alpha ? encodePng(scaled) : encodeJpeg(scaled, quality);
+                return new Prepared(alpha ? "image/png" : "image/jpeg", encoded);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // 그대로 보내도 되는(이미 압축된) 형식만. BMP 등은 null → 항상 다시 압축
+    private static String mimeOf(String formatName) {
+        switch (formatName.toLowerCase()) {
+            case "jpeg":
+            case "jpg":
+                return "image/jpeg";
+            case "png":
+                return "image/png";
+            case "gif":
+                return "image/gif";
+            default:
+                return null;
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage src, int maxEdge) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(w, h));
+        int tw = Math.max(1, (int) Math.round(w * ratio));
+        int th = Math.max(1, (int) Math.round(h * ratio));
+        boolean alpha = src.getColorModel().hasAlpha();
+
+        BufferedImage dst = new BufferedImage(tw, th, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = dst.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, tw, th, null);
+        } finally {
+            g.dispose();
+        }
+        return dst;
+    }
+
+    private static byte[] encodePng(BufferedImage img) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(64 * 1024);
+        ImageIO.write(img, "png", bos);
+        return bos.toByteArray();
+    }
+
+    private static byte[] encodeJpeg(BufferedImage img, float quality) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(64 * 1024);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(bos)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bos.toByteArray();
+    }
+}
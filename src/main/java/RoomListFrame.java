@@ -1,4 +1,5 @@
 import chat.shared.Message;
+import chat.shared.RoomInfo;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -10,9 +11,23 @@ public class RoomListFrame extends JFrame {
     private final String host;
     private final int port;
 
-    private DefaultListModel<String> roomListModel;
-    private JList<String> roomList;
+    private static final int PAGE_SIZE = 50;
+    private static final String[] SORT_LABELS = {"이름순", "참여자 많은 순", "최근 대화 순"};
+
+    private DefaultListModel<RoomInfo> roomListModel;
+    private JList<RoomInfo> roomList;
     private JLabel profileLabel;
+    private JTextField filterField;
+    private JComboBox<String> sortBox;
+    private JButton moreBtn;
+
+    // 지금 보고 있는 조회 결과. 이후 변경분(버전이 이어지는 것만)으로 고쳐 쓰고, 건너뛰면 다시 조회 (EDT 전용)
+    private long directoryVersion = -1;
+    private String queryPrefix = "";
+    private Message.RoomSort querySort = Message.RoomSort.NAME;
+    private String nextRoom;
+    private long nextKey;
+    private boolean queryHasMore;
 
     public RoomListFrame(ChatClient client, String host, int port) {
         this.client = client;
@@ -59,12 +74,36 @@ public class RoomListFrame extends JFrame {
         top.add(profileLabel, BorderLayout.WEST);
         top.add(refreshBtn, BorderLayout.EAST);
 
-        main.add(top, BorderLayout.NORTH);
+        // 이름 검색 + 정렬
+        JPanel filter = new JPanel(new BorderLayout(5, 0));
+        filter.setOpaque(false);
+        filterField = new JTextField();
+        filterField.addActionListener(e -> requestRoomList());
+        sortBox = new JComboBox<>(SORT_LABELS);
+        sortBox.addActionListener(e -> requestRoomList());
+        filter.add(new JLabel("방 이름 "), BorderLayout.WEST);
+        filter.add(filterField, BorderLayout.CENTER);
+        filter.add(sortBox, BorderLayout.EAST);
+
+        JPanel north = new JPanel(new BorderLayout(0, 8));
+        north.setOpaque(false);
+        north.add(top, BorderLayout.NORTH);
+        north.add(filter, BorderLayout.SOUTH);
+        main.add(north, BorderLayout.NORTH);
 
         // 중앙 방 목록
         roomListModel = new DefaultListModel<>();
         roomList = new JList<>(roomListModel);
         roomList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        roomList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                RoomInfo info = (RoomInfo) value;
+                String text = info.getName() + "  (" + info.getParticipants() + "명)" + gameLabel(info.getGame());
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
 
         JScrollPane scroll = new JScrollPane(roomList);
         main.add(scroll, BorderLayout.CENTER);
@@ -73,12 +112,17 @@ public class RoomListFrame extends JFrame {
         JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         bottom.setOpaque(false);
 
+        moreBtn = new JButton("더 보기");
+        moreBtn.setEnabled(false);
+        moreBtn.addActionListener(e -> requestMoreRooms());
+
         JButton createBtn = new JButton("방 만들기");
         createBtn.addActionListener(e -> createRoom());
 
         JButton joinBtn = new JButton("입장하기");
         joinBtn.addActionListener(e -> joinSelectedRoom());
 
+        bottom.add(moreBtn);
         bottom.add(createBtn);
         bottom.add(joinBtn);
 
@@ -91,25 +135,99 @@ public class RoomListFrame extends JFrame {
 
     private void handleServerMessage(Message m) {
         // 방 목록 관련 메시지만 처리하고, SYSTEM/ERROR 등은 여기서 무시
-        if (m.getType() == Message.Type.ROOM_LIST) {
-            SwingUtilities.invokeLater(() -> updateRoomList(m));
+        switch (m.getType()) {
+            case ROOM_QUERY -> SwingUtilities.invokeLater(() -> showRooms(m));
+            case ROOM_ADDED, ROOM_REMOVED, ROOM_UPDATED -> SwingUtilities.invokeLater(() -> applyRoomDelta(m));
+            default -> {
+            }
         }
     }
 
-    private void updateRoomList(Message m) {
-        roomListModel.clear();
-        if (m.getRooms() != null) {
-            for (String r : m.getRooms()) {
-                roomListModel.addElement(r);
+    private static String gameLabel(Message.RoomGame game) {
+        return switch (game) {
+            case WAITING -> "  · 오목 상대 기다리는 중";
+            case PLAYING -> "  · 오목 대국 중";
+            case FINISHED -> "  · 오목 종료";
+            default -> "";
+        };
+    }
+
+    private void showRooms(Message m) {
+        // 검색어·정렬을 바꾼 뒤 늦게 온 이전 조회 응답은 버린다
+        if (!queryPrefix.equals(m.getText()) || querySort != m.getRoomSort()) return;
+        boolean firstPage = directoryVersion < 0;
+        if (firstPage) {
+            roomListModel.clear();
+            directoryVersion = m.getVersion();
+        }
+        if (m.getRoomInfos() != null) {
+            for (RoomInfo info : m.getRoomInfos()) {
+                if (firstPage || indexOf(info.getName()) < 0) {
+                    roomListModel.addElement(info);
+                }
             }
         }
+        nextRoom = m.getRoom();
+        nextKey = m.getCursor();
+        queryHasMore = m.hasMore();
+        moreBtn.setEnabled(queryHasMore);
+    }
+
+    // 응답보다 먼저 도착한 변경분은 응답에 이미 반영돼 있다 (서버가 같은 순서로 보냄)
+    private void applyRoomDelta(Message m) {
+        if (directoryVersion < 0 || m.getVersion() <= directoryVersion) {
+            return; // 첫 페이지를 기다리는 중이거나 이미 반영한 변경분
+        }
+        if (m.getVersion() != directoryVersion + 1) {
+            requestRoomList(); // 중간 변경분을 놓침 → 처음부터 다시 조회
+            return;
+        }
+        directoryVersion = m.getVersion();
+        String room = m.getRoom();
+        int i = indexOf(room);
+        switch (m.getType()) {
+            case ROOM_ADDED -> {
+                // 목록 끝까지 받아 둔 경우에만 붙인다 (아니면 다음 페이지에서 나옴)
+                if (i < 0 && !queryHasMore && room.startsWith(queryPrefix)) {
+                    roomListModel.addElement(new RoomInfo(room, m.getParticipants(), m.getGame(), System.currentTimeMillis()));
+                }
+            }
+            case ROOM_REMOVED -> {
+                if (i >= 0) roomListModel.remove(i);
+            }
+            default -> {
+                if (i >= 0) roomListModel.set(i, roomListModel.get(i).with(m.getParticipants(), m.getGame()));
+            }
+        }
+    }
+
+    private int indexOf(String room) {
+        for (int i = 0; i < roomListModel.size(); i++) {
+            if (roomListModel.get(i).getName().equals(room)) return i;
+        }
+        return -1;
     }
 
     // 서버에 요청 보내기
 
+    // 검색어·정렬 기준으로 첫 페이지부터 다시
     public void requestRoomList() {
+        queryPrefix = filterField.getText().trim();
+        querySort = Message.RoomSort.values()[sortBox.getSelectedIndex()];
+        directoryVersion = -1;
+        moreBtn.setEnabled(false);
+        sendQuery(null, 0);
+    }
+
+    private void requestMoreRooms() {
+        if (!queryHasMore || directoryVersion < 0) return;
+        moreBtn.setEnabled(false);
+        sendQuery(nextRoom, nextKey);
+    }
+
+    private void sendQuery(String afterRoom, long afterKey) {
         try {
-            client.send(new Message(Message.Type.ROOM_LIST));
+            client.send(Message.roomQuery(queryPrefix, querySort, afterRoom, afterKey, PAGE_SIZE));
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
                     "방 목록 요청 실패: " + e.getMessage(),
@@ -141,7 +259,8 @@ public class RoomListFrame extends JFrame {
     }
 
     private void joinSelectedRoom() {
-        String selected = roomList.getSelectedValue();
+        RoomInfo info = roomList.getSelectedValue();
+        String selected = info == null ? null : info.getName();
         if (selected == null) {
             JOptionPane.showMessageDialog(this,
                     "입장할 방을 선택해주세요.",
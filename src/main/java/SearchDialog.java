@@ -0,0 +1,88 @@
+import chat.shared.Message;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+
+/**
+ * 채팅방 기록 검색 창. 결과는 관련도 순이고, "더 보기" 로 다음 페이지를 받아 아래에 붙인다.
+ * 응답(SEARCH)은 ChatFrame 이 받아 EDT 에서 showResults 로 넘겨준다.
+ */
+public class SearchDialog extends JDialog {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final ChatClient client;
+    private final String roomName;
+
+    private final JTextField queryField = new JTextField();
+    private final DefaultListModel<String> resultModel = new DefaultListModel<>();
+    private final JButton moreButton = new JButton("더 보기");
+    private final JLabel statusLabel = new JLabel(" ");
+
+    private String query;     // 지금 결과를 보여주고 있는 검색어
+    private long nextOffset;
+
+    public SearchDialog(JFrame owner, ChatClient client, String roomName) {
+        super(owner, "기록 검색 - " + roomName, false);
+        this.client = client;
+        this.roomName = roomName;
+
+        JPanel main = new JPanel(new BorderLayout(5, 5));
+        main.setBorder(new EmptyBorder(8, 8, 8, 8));
+
+        JPanel top = new JPanel(new BorderLayout(5, 0));
+        JButton searchButton = new JButton("검색");
+        top.add(queryField, BorderLayout.CENTER);
+        top.add(searchButton, BorderLayout.EAST);
+        main.add(top, BorderLayout.NORTH);
+
+        main.add(new JScrollPane(new JList<>(resultModel)), BorderLayout.CENTER);
+
+        JPanel bottom = new JPanel(new BorderLayout(5, 0));
+        bottom.add(statusLabel, BorderLayout.CENTER);
+        bottom.add(moreButton, BorderLayout.EAST);
+        main.add(bottom, BorderLayout.SOUTH);
+
+        moreButton.setEnabled(false);
+        searchButton.addActionListener(e -> search());
+        queryField.addActionListener(e -> search());
+        moreButton.addActionListener(e -> requestPage());
+
+        add(main);
+        setSize(420, 480);
+        setLocationRelativeTo(owner);
+    }
+
+    private void search() {
+        String q = queryField.getText().trim();
+        if (q.isEmpty()) return;
+        query = q;
+        nextOffset = 0;
+        resultModel.clear();
+        requestPage();
+    }
+
+    private void requestPage() {
+        moreButton.setEnabled(false);
+        statusLabel.setText("검색 중...");
+        try {
+            client.send(Message.searchRequest(roomName, query, nextOffset, PAGE_SIZE));
+        } catch (Exception e) {
+            statusLabel.setText("검색 요청 실패: " + e.getMessage());
+        }
+    }
+
+    // EDT 에서. 다른 검색어의 늦은 응답은 버린다
+    public void showResults(Message m) {
+        if (query == null || !query.equals(m.getText())) return;
+        if (m.getPage() != null) {
+            for (Message r : m.getPage()) {
+                resultModel.addElement(r.getSender() + ": " + r.getText());
+            }
+        }
+        nextOffset = m.getCursor();
+        moreButton.setEnabled(m.hasMore());
+        statusLabel.setText(resultModel.isEmpty() ? "결과가 없습니다." : resultModel.size() + "건" + (m.hasMore() ? " 이상" : ""));
+    }
+}
@@ -0,0 +1,23 @@
+package chat.server;
+
+/**
+ * 방 하나 = 토픽 하나인 발행/구독 통로. 노드마다 자기 참가자가 있는 방의 토픽만 구독하고,
+ * 방송은 토픽에 발행한 뒤 돌아오는 것을 받아 자기 참가자에게만 나눠 준다.
+ * 구현: 한 JVM 안의 서버끼리(MemoryBackplane), 루프백 소켓으로 붙는 중계 프로세스(BrokerBackplane + BackplaneBroker).
+ */
+interface Backplane {
+
+    interface Subscriber {
+        // 토픽마다 발행 순서대로 한 스레드에서. seq 는 토픽마다 1씩 늘고 구독한 모든 노드가 같은 번호를 받는다
+        void deliver(String topic, long seq, byte[] payload);
+    }
+
+    void subscribe(String topic, Subscriber subscriber);
+
+    void unsubscribe(String topic, Subscriber subscriber);
+
+    // 구독자가 없으면 버려진다. payload 는 넘긴 뒤 수정하지 않는다
+    void publish(String topic, byte[] payload);
+
+    void close();
+}
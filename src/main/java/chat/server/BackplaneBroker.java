@@ -0,0 +1,199 @@
+package chat.server;
+
+import chat.shared.Frames;
+import chat.shared.WireReader;
+import chat.shared.WireWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 발행/구독 중계 프로세스 (한 장비에서 여러 채팅 서버를 붙여 볼 때 쓰는 대역).
+ * 사용법: BackplaneBroker [port]  (기본 6100). 채팅 서버는 --backplane=127.0.0.1:6100 으로 붙는다.
+ *
+ * 프레임 하나 = [레코드 수][레코드...] (묶음 전송). 서버 → 중계: [SUBSCRIBE|UNSUBSCRIBE|PUBLISH][토픽][payload],
+ * 중계 → 서버: [토픽][seq][payload]. 토픽마다 락 안에서 번호를 매기고 구독한 연결의 대기열에 넣으므로
+ * 모든 노드가 같은 순서·같은 번호로 받는다. 연결마다 writer 스레드가 대기열을 묶어서 쓴다.
+ */
+public class BackplaneBroker {
+
+    static final int SUBSCRIBE = 1;
+    static final int UNSUBSCRIBE = 2;
+    static final int PUBLISH = 3;
+    static final int MAX_BATCH = 256;
+
+    private static final int QUEUE_CAPACITY = 65536;
+
+    private static final class Topic {
+        final ReentrantLock lock = new ReentrantLock();
+        final Set<Link> subscribers = ConcurrentHashMap.newKeySet();
+        long seq;
+    }
+
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 6100;
+        new BackplaneBroker().serve(port);
+    }
+
+    void serve(int port) throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            System.out.println("[Broker] 발행/구독 중계 시작: port=" + port);
+            while (true) {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Link link = new Link(socket);
+                new Thread(link::readLoop, "broker-in-" + socket.getPort()).start();
+                new Thread(link::writeLoop, "broker-out-" + socket.getPort()).start();
+            }
+        }
+    }
+
+    private void publish(String name, byte[] payload) throws IOException {
+        Topic t = topics.get(name);
+        if (t == null) return;
+        t.lock.lock();
+        try {
+            if (t.subscribers.isEmpty()) return;
+            long seq = ++t.seq;
+            byte[] record = deliverRecord(name, seq, payload); // 구독한 연결 모두가 같은 배열을 쓴다
+            for (Link l : t.subscribers) {
+                l.enqueue(record);
+            }
+        } finally {
+            t.lock.unlock();
+        }
+    }
+
+    private static byte[] deliverRecord(String topic, long seq, byte[] payload) {
+        WireWriter w = new WireWriter();
+        try {
+            w.writeString(topic);
+            w.writeVarint(seq);
+            w.writeBytes(payload);
+            return w.toByteArray();
+        } finally {
+            w.release();
+        }
+    }
+
+    // 채팅 서버 하나와의 연결
+    private final class Link {
+        private final Socket socket;
+        private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+        private final Set<String> subscribed = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        Link(Socket socket) {
+            this.socket = socket;
+        }
+
+        void enqueue(byte[] record) {
+            if (!queue.offer(record)) {
+                System.out.println("[Broker] " + socket.getRemoteSocketAddress() + " 송신 대기열 초과로 끊습니다.");
+                close();
+            }
+        }
+
+        void readLoop() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                while (!closed) {
+                    byte[] frame = Frames.readFrame(in);
+                    WireReader r = new WireReader(frame, 0, frame.length);
+                    long count = r.readVarint();
+                    for (long i = 0; i < count; i++) {
+                        byte[] record = r.readBytes();
+                        handle(new WireReader(record, 0, record.length));
+                    }
+                }
+            } catch (IOException e) {
+                if (!closed) System.out.println("[Broker] 연결 종료(" + socket.getRemoteSocketAddress() + "): " + e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        private void handle(WireReader r) throws IOException {
+            int op = r.readByte();
+            String name = r.readString();
+            switch (op) {
+                case SUBSCRIBE -> {
+                    topics.computeIfAbsent(name, k -> new Topic()).subscribers.add(this);
+                    subscribed.add(name);
+                }
+                case UNSUBSCRIBE -> {
+                    unsubscribe(name);
+                    subscribed.remove(name);
+                }
+                case PUBLISH -> publish(name, r.readBytes());
+                default -> throw new IOException("알 수 없는 명령: " + op);
+            }
+        }
+
+        // 구독자가 없어진 토픽도 번호는 남겨 둔다 (다시 구독한 노드가 같은 방의 번호를 이어서 받게)
+        private void unsubscribe(String name) {
+            Topic t = topics.get(name);
+            if (t != null) t.subscribers.remove(this);
+        }
+
+        void writeLoop() {
+            List<byte[]> batch = new ArrayList<>(MAX_BATCH);
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                while (!closed) {
+                    batch.clear();
+                    batch.add(queue.take());
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    Frames.writeFrame(out, encodeBatch(batch));
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // 연결 종료
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            for (String name : subscribed) {
+                unsubscribe(name);
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            queue.offer(new byte[0]); // writer 깨우기
+        }
+    }
+
+    // [레코드 수][레코드...]
+    static byte[] encodeBatch(List<byte[]> records) {
+        WireWriter w = new WireWriter();
+        try {
+            w.writeVarint(records.size());
+            for (byte[] record : records) {
+                w.writeBytes(record);
+            }
+            return w.toByteArray();
+        } finally {
+            w.release();
+        }
+    }
+}
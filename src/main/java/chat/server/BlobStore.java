@@ -0,0 +1,159 @@
+package chat.server;
+
+import chat.shared.ImageChunks;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 내용 해시(SHA-256)로 주소가 정해지는 이미지 저장소.
+ * 같은 이미지는 몇 번 올라와도 한 벌만 저장한다.
+ * 디스크 디렉터리에 write-through 로 기록하고, 메모리에는 예산(bytes) 안에서 LRU 로만 유지한다.
+ * 메모리에서 밀려난 blob 은 다음 요청 때 디스크에서 다시 읽는다.
+ */
+class BlobStore {
+
+    static final class Blob {
+        final String hash;
+        final String mimeType;
+        final byte[] bytes;
+
+        Blob(String hash, String mimeType, byte[] bytes) {
+            this.hash = hash;
+            this.mimeType = mimeType;
+            this.bytes = bytes;
+        }
+    }
+
+    private final Path dir;
+    private final long memoryBudget;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Blob> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+
+    BlobStore(Path dir, long memoryBudget) {
+        this.dir = dir;
+        this.memoryBudget = memoryBudget;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            System.out.println("[BlobStore] 디렉터리 생성 실패(" + dir + "): " + e.getMessage());
+        }
+    }
+
+    // 저장 후 해시 반환. 이미 있으면 저장하지 않는다
+    String put(String mimeType, byte[] bytes) throws IOException {
+        String hash = ImageChunks.contentHash(bytes);
+        if (touch(hash)) {
+            return hash;
+        }
+        Path file = dir.resolve(hash);
+        if (!Files.exists(file)) {
+            writeFile(file, mimeType, bytes);
+        }
+        remember(new Blob(hash, mimeType, bytes));
+        return hash;
+    }
+
+    // 메모리 → 디스크 순으로 찾는다. 없으면 null
+    Blob get(String hash) throws IOException {
+        if (!ImageChunks.isContentHash(hash)) {
+            return null;
+        }
+        lock.lock();
+        try {
+            Blob b = memory.get(hash);
+            if (b != null) return b;
+        } finally {
+            lock.unlock();
+        }
+        Path file = dir.resolve(hash);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Blob b = readFile(hash, file);
+        remember(b);
+        return b;
+    }
+
+    boolean contains(String hash) {
+        return touch(hash) || ImageChunks.isContentHash(hash) && Files.exists(dir.resolve(hash));
+    }
+
+    private boolean touch(String hash) {
+        lock.lock();
+        try {
+            return memory.get(hash) != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remember(Blob b) {
+        lock.lock();
+        try {
+            if (memory.containsKey(b.hash)) return;
+            memory.put(b.hash, b);
+            memoryBytes += b.bytes.length;
+            // 예산을 넘으면 가장 오래 안 쓴 것부터 메모리에서만 내린다 (디스크에는 남아 있음)
+            Iterator<Map.Entry<String, Blob>> it = memory.entrySet().iterator();
+            while (memoryBytes > memoryBudget && it.hasNext()) {
+                Blob eldest = it.next().getValue();
+                if (eldest == b) break;
+                it.remove();
+                memoryBytes -= eldest.bytes.length;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long memoryBytes() {
+        lock.lock();
+        try {
+            return memoryBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int memoryCount() {
+        lock.lock();
+        try {
+            return memory.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 파일 형식: [UTF mime][bytes]. 임시 파일에 쓴 뒤 원자적으로 이동
+    private void writeFile(Path file, String mimeType, byte[] bytes) throws IOException {
+        Path tmp = Files.createTempFile(dir, "blob", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+            out.writeUTF(mimeType == null ? "" : mimeType);
+            out.write(bytes);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            if (!Files.exists(file)) throw e;
+        }
+    }
+
+    private Blob readFile(String hash, Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            String mime = in.readUTF();
+            byte[] bytes = in.readAllBytes();
+            return new Blob(hash, mime.isEmpty() ? null : mime, bytes);
+        }
+    }
+}
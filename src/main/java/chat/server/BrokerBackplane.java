@@ -0,0 +1,189 @@
+package chat.server;
+
+import chat.shared.Frames;
+import chat.shared.WireReader;
+import chat.shared.WireWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 중계 프로세스(BackplaneBroker)에 붙는 발행/구독 통로.
+ * 발행·구독 요청은 대기열에 넣고 바로 돌아가며, writer 스레드가 쌓인 것을 MAX_BATCH 개까지 프레임 하나로 묶어 보낸다.
+ * 토픽 구독은 이 노드의 첫 구독자가 생길 때, 해지는 마지막 구독자가 빠질 때만 중계에 알린다.
+ * 연결이 끊기면 1초 간격으로 다시 붙고 지금 구독 중인 토픽을 다시 구독한다 (끊긴 동안의 메시지는 잃는다).
+ */
+class BrokerBackplane implements Backplane {
+
+    private static final int QUEUE_CAPACITY = 65536;
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private final InetSocketAddress broker;
+    private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final ReentrantLock subscriptionLock = new ReentrantLock();
+    private final Map<String, List<Subscriber>> subscribers = new HashMap<>();
+    private volatile Map<String, List<Subscriber>> readView = Map.of(); // 읽기 스레드용 사본
+    private final Thread writer;
+    private volatile boolean closed;
+
+    BrokerBackplane(InetSocketAddress broker) {
+        this.broker = broker;
+        this.writer = new Thread(this::writeLoop, "backplane-out");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void subscribe(String topic, Subscriber subscriber) {
+        subscriptionLock.lock();
+        try {
+            List<Subscriber> list = subscribers.computeIfAbsent(topic, k -> new CopyOnWriteArrayList<>());
+            list.add(subscriber);
+            if (list.size() == 1) {
+                enqueue(record(BackplaneBroker.SUBSCRIBE, topic, null));
+            }
+            readView = Map.copyOf(subscribers);
+        } finally {
+            subscriptionLock.unlock();
+        }
+    }
+
+    @Override
+    public void unsubscribe(String topic, Subscriber subscriber) {
+        subscriptionLock.lock();
+        try {
+            List<Subscriber> list = subscribers.get(topic);
+            if (list == null || !list.remove(subscriber)) return;
+            if (list.isEmpty()) {
+                subscribers.remove(topic);
+                enqueue(record(BackplaneBroker.UNSUBSCRIBE, topic, null));
+            }
+            readView = Map.copyOf(subscribers);
+        } finally {
+            subscriptionLock.unlock();
+        }
+    }
+
+    @Override
+    public void publish(String topic, byte[] payload) {
+        enqueue(record(BackplaneBroker.PUBLISH, topic, payload));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+    }
+
+    private void enqueue(byte[] record) {
+        if (!queue.offer(record)) {
+            System.out.println("[Backplane] 송신 대기열 초과로 메시지를 버립니다.");
+        }
+    }
+
+    private static byte[] record(int op, String topic, byte[] payload) {
+        WireWriter w = new WireWriter();
+        try {
+            w.writeByte(op);
+            w.writeString(topic);
+            if (payload != null) {
+                w.writeBytes(payload);
+            }
+            return w.toByteArray();
+        } finally {
+            w.release();
+        }
+    }
+
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>(BackplaneBroker.MAX_BATCH);
+        while (!closed) {
+            try (Socket socket = new Socket(broker.getHostString(), broker.getPort())) {
+                socket.setTcpNoDelay(true);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                Thread reader = new Thread(() -> readLoop(socket), "backplane-in");
+                reader.setDaemon(true);
+                reader.start();
+                resubscribe(out);
+                System.out.println("[Backplane] 중계에 연결: " + broker);
+                while (!closed) {
+                    batch.clear();
+                    byte[] first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        if (socket.isClosed()) throw new IOException("읽기 쪽에서 연결이 끊김");
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, BackplaneBroker.MAX_BATCH - 1);
+                    Frames.writeFrame(out, BackplaneBroker.encodeBatch(batch));
+                    out.flush();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                if (closed) return;
+                System.out.println("[Backplane] 중계 연결 실패(" + broker + "): " + e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // 새 연결: 대기열에 남은 구독 요청과 겹쳐도 중계 쪽 구독은 집합이라 괜찮다
+    private void resubscribe(DataOutputStream out) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        for (String topic : readView.keySet()) {
+            records.add(record(BackplaneBroker.SUBSCRIBE, topic, null));
+        }
+        if (!records.isEmpty()) {
+            Frames.writeFrame(out, BackplaneBroker.encodeBatch(records));
+            out.flush();
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            while (!closed) {
+                byte[] frame = Frames.readFrame(in);
+                WireReader r = new WireReader(frame, 0, frame.length);
+                long count = r.readVarint();
+                for (long i = 0; i < count; i++) {
+                    byte[] record = r.readBytes();
+                    WireReader rr = new WireReader(record, 0, record.length);
+                    String topic = rr.readString();
+                    long seq = rr.readVarint();
+                    byte[] payload = rr.readBytes();
+                    List<Subscriber> list = readView.get(topic);
+                    if (list == null) continue; // 해지 직후 도착한 것
+                    for (Subscriber s : list) {
+                        s.deliver(topic, seq, payload);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) System.out.println("[Backplane] 중계 연결 끊김: " + e.getMessage());
+            try {
+                socket.close(); // writer 가 쓰기 실패로 알아채고 다시 연결
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
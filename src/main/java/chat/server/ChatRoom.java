@@ -1,63 +1,235 @@
 package chat.server;
 
+import chat.shared.BinaryCodec;
+import chat.shared.Frames;
 import chat.shared.Message;
 
 import javax.swing.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * 채팅방. 입장·퇴장·방송·게임 같은 방 상태 변경은 모두 방 작업 대기열(RoomMailbox)에서 한 번에 하나씩 실행한다.
+ * 그래서 참가자 목록·게임·방 순번을 락 없이 다루고, 모든 참가자가 같은 순서(seq)로 메시지를 받는다.
+ * 기록 조회·검색은 기록 저장소가 스레드 안전해서 요청한 스레드에서 바로 처리한다.
+ */
 public class ChatRoom {
 
     private final String name;
     private final String roomName;
     private final Set<ClientHandler> participants = ConcurrentHashMap.newKeySet();
+    // 방송용 참가자 배열 스냅숏. 입장·퇴장하면 null 로 두고 다음 방송 때 다시 만든다 (대기열 안에서만)
+    private ClientHandler[] recipients;
+    private final Fanout fanout;
+    // 여러 서버가 방송을 토픽으로 주고받을 때 (null 이면 이 서버 참가자에게 바로)
+    private final RoomBackplane backplane;
+    // 대기 서버로 보내는 방 이벤트 기록 (복제를 쓰지 않으면 null)
+    private final ReplicationLog replication;
+    // 세션 이어받기용 최근 방송 (이어받기를 쓰지 않으면 null)
+    private final RecentFrames recent;
 
-    private final List<Message> history = new CopyOnWriteArrayList<>();
+    // 디스크 세그먼트 로그(RoomLog) 또는 off-heap 원형 버퍼(HistoryRing)
+    private final RoomHistory history;
+    // 기록 전문 검색 (없으면 검색 불가)
+    private final RoomIndex index;
 
-    // 방 단위 오목 게임 세션
-    private OmokGame currentGame;
+    // 참가자 목록 변경분 (입장·퇴장을 모아서 전송)
+    private final RoomPresence presence;
 
-    public ChatRoom(String roomName) {
-        this(roomName,roomName);
-    }
+    // 방 작업 대기열과, 그 안에서만 바꾸는 상태
+    private final RoomMailbox mailbox;
+    private long seq;
+    private volatile boolean closed;
+
+    // 부하 통계: 대기열 안에서만 늘리고 HotRooms 가 주기적으로 읽는다
+    private volatile long broadcasts;
+    private volatile long fanoutMicros;
+
+    // 방 단위 오목 게임 세션 (방 목록이 다른 스레드에서 상태를 읽음)
+    private volatile OmokGame currentGame;
+
+    // 대기 서버: 주 서버에서 이 방에 있던 닉네임. 승격 뒤에는 아직 돌아오지 않은 참가자
+    private final Set<String> replicaMembers = ConcurrentHashMap.newKeySet();
 
-    public ChatRoom(String name, String roomName) {
+    // workers: 방 작업 대기열을 실행할 공용 풀 (Runnable::run 이면 부른 스레드에서 바로)
+    ChatRoom(String name, String roomName, RoomHistory history, SearchIndexer indexer,
+             RoomPresence.Settings presence, Executor workers, Fanout fanout, RoomBackplane backplane,
+             ReplicationLog replication, RecentFrames recent) {
         this.name = name;
         this.roomName = roomName;
+        this.history = history;
+        this.index = indexer == null ? null : indexer.open(name, history);
+        this.presence = new RoomPresence(this, presence);
+        this.mailbox = new RoomMailbox(name, workers);
+        this.fanout = fanout;
+        this.backplane = backplane;
+        this.replication = replication;
+        this.recent = recent;
     }
 
     public String getName() {
         return name;
     }
 
-    // 새로 들어온 클라이언트에게 과거 기록 전송
+    // 방 상태를 바꾸는 작업은 모두 여기로
+    public void post(Runnable task) {
+        mailbox.post(task);
+    }
+
+    // 빈 방으로 삭제됨 (대기열 안에서 확인하면 이후 바뀌지 않음)
+    public boolean isClosed() {
+        return closed;
+    }
+
+    int pendingTasks() {
+        return mailbox.pending();
+    }
+
+    // 방 작업 대기열을 실행할 풀 바꾸기 (뜨거운 방 격리·복귀)
+    void moveTo(Executor workers) {
+        mailbox.moveTo(workers);
+    }
+
+    long broadcasts() {
+        return broadcasts;
+    }
+
+    long fanoutMicros() {
+        return fanoutMicros;
+    }
+
+    static final int FIRST_PAGE = 50;
+    static final int MAX_PAGE = 100;
+    static final int MAX_SEARCH_RESULTS = 1000;
+    // 복제 스냅숏에서 기록을 한 번에 꺼내는 건수
+    static final int SNAPSHOT_CHUNK = 4096;
+
+    // 새로 들어온 클라이언트에게 과거 기록 전송 (HISTORY 를 모르는 예전 클라이언트용)
     public void sendHistoryTo(ClientHandler client) {
-        for (Message m : history) {
-            client.send(m);
+        history.replay(client::send);
+    }
+
+    // 기록 한 페이지를 HISTORY 응답 하나로. 더 오래된 페이지는 클라이언트가 cursor 로 요청
+    public void sendHistoryPage(ClientHandler client, long beforeCursor, int pageSize) {
+        List<Message> page = new ArrayList<>();
+        long cursor = history.page(beforeCursor, Math.max(1, Math.min(pageSize, MAX_PAGE)), page::add);
+        client.send(Message.historyPage(name, page, cursor, cursor > history.firstSeq()));
+    }
+
+    // 검색 결과 한 페이지. 색인에서는 기록 번호만 받고 이번 페이지 것만 기록에서 꺼낸다
+    public void sendSearchResults(ClientHandler client, String query, long offset, int pageSize) {
+        if (index == null) {
+            client.send(Message.error("이 방은 검색을 지원하지 않습니다."));
+            return;
+        }
+        int from = (int) Math.max(0, Math.min(offset, MAX_SEARCH_RESULTS));
+        int limit = Math.max(1, Math.min(pageSize, Math.min(MAX_PAGE, MAX_SEARCH_RESULTS - from)));
+        RoomIndex.Hits hits = index.search(query, from, limit);
+        // 기록은 번호 순으로 한 번에 꺼내고, 응답은 검색 순서대로
+        long[] sorted = hits.seqs.clone();
+        Arrays.sort(sorted);
+        Map<Long, Message> found = new HashMap<>();
+        history.get(sorted, (m, seq) -> found.put(seq, m));
+        List<Message> page = new ArrayList<>(hits.seqs.length);
+        for (long seq : hits.seqs) {
+            Message m = found.get(seq);
+            if (m != null) page.add(m);
         }
+        long next = from + hits.seqs.length;
+        client.send(Message.searchResult(name, query, page, next, hits.more && next < MAX_SEARCH_RESULTS));
+    }
+
+    // 방이 삭제될 때 기록 메모리 반납 (대기열 안에서)
+    void close() {
+        if (replication != null) {
+            replication.closed(this);
+        }
+        closed = true;
+        if (backplane != null) {
+            backplane.unsubscribe(this);
+        }
+        if (index != null) {
+            index.close();
+        }
+        history.close();
+    }
+
+    int historyCount() {
+        return history.count();
     }
 
+    // 입장·퇴장은 대기열 안에서 (ClientHandler 가 post 로 넘김)
     public void join(ClientHandler client) {
+        // 복제 이벤트는 상태를 바꾸기 전에 (처음 보내는 방이면 그 직전 상태가 스냅숏으로 먼저 나감)
+        if (replication != null) {
+            replication.joined(this, client.getNickname());
+        }
         participants.add(client);
+        replicaMembers.remove(client.getNickname());
+        recipients = null;
+        // 이 서버의 첫 참가자 → 방 토픽 구독 (입장 안내를 발행하기 전에)
+        if (backplane != null && participants.size() == 1) {
+            backplane.subscribe(this);
+        }
 
-        sendHistoryTo(client);
-
-        broadcast(Message.systemForRoom(
-                name,
-                client.getNickname() + "님이 입장했습니다."
-        ), true);
+        // 최신 한 페이지만. 예전 클라이언트는 기존처럼 한 건씩
+        if (client.isModern()) {
+            sendHistoryPage(client, -1, FIRST_PAGE);
+        } else {
+            sendHistoryTo(client);
+        }
 
-        // 3) 유저 목록 갱신
-        broadcastUserList();
+        // 유저 목록은 변경분으로 모아서 (큰 방이면 입장 안내도 묶음)
+        if (!presence.joined(client)) {
+            broadcast(Message.systemForRoom(
+                    name,
+                    client.getNickname() + "님이 입장했습니다."
+            ), true);
+        }
 
         System.out.println("[Room:" + name + "] join: " + client.getNickname());
     }
 
+    /**
+     * 세션 이어받기 (대기열 안에서): 끊긴 연결(old) 자리에 새 연결(fresh)을 넣고, lastSeq 뒤에 놓친 방송만 다시 보낸다.
+     * 참가자는 그대로라 입장·퇴장 안내는 없다. 놓친 것을 다 가지고 있지 않으면 입장할 때처럼 최신 기록 한 페이지.
+     */
+    void resume(ClientHandler old, ClientHandler fresh, long lastSeq) {
+        if (!participants.remove(old)) {
+            // 끊기기 직전에 보낸 입장 요청이 아직 처리되지 않았던 경우
+            join(fresh);
+            return;
+        }
+        participants.add(fresh);
+        recipients = null;
+        int replayed = recent == null ? -1 : recent.replay(lastSeq, seq, fresh::send);
+        if (replayed < 0) {
+            sendHistoryPage(fresh, -1, FIRST_PAGE);
+            OmokGame game = getCurrentGame();
+            if (game != null) {
+                fresh.send(game.toStateMessage());
+            }
+        }
+        presence.sendSnapshot(fresh);
+        System.out.println("[Room:" + name + "] resume: " + fresh.getNickname()
+                + (replayed < 0 ? " (기록 한 페이지)" : " (놓친 " + replayed + "건)"));
+    }
+
     public void leave(ClientHandler client) {
         if (participants.remove(client)) {
+            recipients = null;
+            if (replication != null) {
+                replication.left(this, client.getNickname());
+            }
             // 게임 중이라면 결과 없이 초기화 상태로 전파
             OmokGame game = getCurrentGame();
             if (game != null) {
@@ -68,24 +240,68 @@ public class ChatRoom {
                 }
             }
 
-            broadcast(Message.systemForRoom(
-                    name,
-                    client.getNickname() + "님이 퇴장했습니다."
-            ), false);
-
-            broadcastUserList();
+            if (!presence.left(client)) {
+                broadcast(Message.systemForRoom(
+                        name,
+                        client.getNickname() + "님이 퇴장했습니다."
+                ), false);
+            }
 
+            if (backplane != null && participants.isEmpty()) {
+                backplane.unsubscribe(this);
+            }
             System.out.println("[Room:" + name + "] leave: " + client.getNickname());
         }
     }
 
     // saveHistory = true일 때만 history에 저장
+    // 참가자 수와 관계없이 코덱별로 한 번만 인코딩해서 같은 프레임을 공유
+    // 대기열 밖(썸네일 완료 등)에서 부르면 대기열로 넘겨서 방 순번이 방송 순서와 같게 한다
+    // backplane 이 있으면 토픽에 발행만 하고, 돌아온 것을 deliver 에서 보낸다 (순번은 토픽 번호)
     public void broadcast(Message msg, boolean saveHistory) {
-        if (saveHistory) {
-            history.add(msg);
+        if (!mailbox.inMailbox()) {
+            post(() -> broadcast(msg, saveHistory));
+            return;
         }
-        for (ClientHandler ch : participants) {
-            ch.send(msg);
+        if (backplane != null) {
+            backplane.publish(this, msg, saveHistory);
+            return;
+        }
+        deliver(msg, ++seq, saveHistory);
+    }
+
+    // 대기열 안에서: 순번을 붙여 기록하고 이 서버 참가자에게 보낸다
+    void deliver(Message msg, long seq, boolean saveHistory) {
+        if (closed) {
+            return;
+        }
+        SharedFrame frame = SharedFrame.of(msg.sequenced(seq));
+        if (saveHistory || replication != null) {
+            // bin1 클라이언트에게 보낼 프레임을 그대로 기록·복제 (추가 인코딩 없음)
+            try {
+                byte[] bytes = frame.frameBytes(BinaryCodec.INSTANCE);
+                if (replication != null) {
+                    replication.delivered(this, seq, saveHistory, bytes);
+                }
+                if (saveHistory) {
+                    record(bytes, msg);
+                }
+            } catch (IOException e) {
+                System.out.println("[Room:" + name + "] 기록 인코딩 실패: " + e.getMessage());
+            }
+        }
+        if (recent != null) {
+            recent.add(seq, frame);
+        }
+        long micros = fanout.deliver(frame, recipients());
+        broadcasts++;
+        fanoutMicros += micros;
+    }
+
+    private void record(byte[] frame, Message msg) {
+        long stored = history.append(frame);
+        if (index != null) {
+            index.offer(stored, msg); // 색인은 백그라운드에서
         }
     }
 
@@ -94,6 +310,11 @@ public class ChatRoom {
         broadcast(msg, saveHistory);
     }
 
+    // 원본 대신 내용 해시와 썸네일만 방송/기록 (원본은 필요한 클라이언트가 BLOB_REQUEST 로 받아감)
+    public void broadcastImageRef(String sender, String hash, String mimeType, byte[] thumbnail) {
+        broadcast(Message.imageRef(name, sender, hash, mimeType, thumbnail), true);
+    }
+
     // 기존 코드 호환용
     public void broadcast(Message msg) {
         broadcast(msg, false);
@@ -103,27 +324,145 @@ public class ChatRoom {
         return participants.isEmpty();
     }
 
-    public void broadcastUserList() {
-        List<String> users = participants.stream()
+    public int participantCount() {
+        return participants.size();
+    }
+
+    // 방 목록용 오목 상태 (게임을 연 적이 없으면 NONE)
+    public Message.RoomGame gameStatus() {
+        OmokGame game = getCurrentGame();
+        return game == null ? Message.RoomGame.NONE : game.status();
+    }
+
+    // 참가자 목록 전체 (처음 입장, 변경분을 놓친 클라이언트의 재요청)
+    public void sendUserList(ClientHandler client) {
+        post(() -> presence.sendSnapshot(client));
+    }
+
+    // 대기열 안에서. ConcurrentHashMap 반복자 대신 배열로 (큰 방은 조각으로 나눠 병렬 전송)
+    ClientHandler[] recipients() {
+        if (recipients == null) {
+            recipients = participants.toArray(new ClientHandler[0]);
+        }
+        return recipients;
+    }
+
+    List<String> nicknames() {
+        return participants.stream()
                 .map(ClientHandler::getNickname)
                 .sorted()
                 .collect(Collectors.toList());
-
-        Message m = Message.userList(name, users);
-        for (ClientHandler ch : participants) {
-            ch.send(m);
-        }
     }
 
     // ===== 오목 게임 관리 =====
-    public synchronized OmokGame getOrCreateGame() {
+    // 대기열 안에서
+    public OmokGame getOrCreateGame() {
         if (currentGame == null || currentGame.isFinished() && !currentGame.hasPlayers()) {
             currentGame = new OmokGame(this);
         }
         return currentGame;
     }
 
-    public synchronized OmokGame getCurrentGame() {
+    public OmokGame getCurrentGame() {
         return currentGame;
     }
+
+    // 대기열 안에서, 게임 요청을 적용하기 전에
+    void gameRequested(Message.GameAction action, String nickname, int x, int y) {
+        if (replication != null) {
+            replication.game(this, action, nickname, x, y);
+        }
+    }
+
+    // ===== 복제: 주 서버 쪽 스냅숏 (대기열 안에서) =====
+
+    long seq() {
+        return seq;
+    }
+
+    // 접속 중인 참가자 + (승격한 대기 서버라면) 아직 돌아오지 않은 참가자
+    List<String> members() {
+        List<String> members = new ArrayList<>(nicknames());
+        members.addAll(replicaMembers);
+        return members;
+    }
+
+    // 남아 있는 기록 전부, 오래된 것부터. 번호를 묶어 한 번에 꺼낸다 (기록마다 get 하면 원형 버퍼는 매번 처음부터 걷는다)
+    void forEachRecord(Consumer<Message> sink) {
+        long end = history.nextSeq();
+        for (long from = history.firstSeq(); from < end; from += SNAPSHOT_CHUNK) {
+            long[] seqs = new long[(int) Math.min(SNAPSHOT_CHUNK, end - from)];
+            for (int i = 0; i < seqs.length; i++) {
+                seqs[i] = from + i;
+            }
+            history.get(seqs, (m, seq) -> sink.accept(m));
+        }
+    }
+
+    // ===== 복제: 대기 서버 쪽 적용 (대기열 안에서) =====
+
+    void restore(long seq, List<String> members, OmokGame game) {
+        this.seq = seq;
+        replicaMembers.clear();
+        replicaMembers.addAll(members);
+        currentGame = game;
+    }
+
+    void restoreRecord(byte[] frame) {
+        if (closed) return;
+        try {
+            record(frame, BinaryCodec.INSTANCE.decode(frame, Frames.HEADER_BYTES, frame.length - Frames.HEADER_BYTES));
+        } catch (IOException e) {
+            System.out.println("[Room:" + name + "] 복제 기록 디코딩 실패: " + e.getMessage());
+        }
+    }
+
+    void replicate(long seq, boolean saveHistory, byte[] frame) {
+        this.seq = Math.max(this.seq, seq);
+        if (saveHistory) {
+            restoreRecord(frame);
+        }
+    }
+
+    void replicaJoined(String nickname) {
+        replicaMembers.add(nickname);
+    }
+
+    void replicaLeft(String nickname) {
+        replicaMembers.remove(nickname);
+        OmokGame game = getCurrentGame();
+        if (game != null) {
+            game.onUserLeft(nickname);
+        }
+    }
+
+    void replicaGame(Message.GameAction action, String nickname, int x, int y) {
+        try {
+            getOrCreateGame().apply(action, nickname, x, y);
+        } catch (RuntimeException ignored) {
+            // 주 서버에서도 거절된 요청
+        }
+    }
+
+    /**
+     * 승격 후 유예 시간이 지나도 돌아오지 않은 참가자를 퇴장 처리 (주 서버에서 나간 것과 같게).
+     * @return 정리한 인원
+     */
+    int dropAbsentMembers() {
+        int dropped = 0;
+        for (String nickname : replicaMembers) {
+            if (!replicaMembers.remove(nickname)) continue;
+            dropped++;
+            OmokGame game = getCurrentGame();
+            if (game != null) {
+                boolean wasPlayer = game.isPlayer(nickname);
+                game.onUserLeft(nickname);
+                if (wasPlayer) {
+                    broadcast(game.toStateMessage(), false);
+                }
+            }
+            broadcast(Message.systemForRoom(name, nickname + "님이 퇴장했습니다."), false);
+        }
+        return dropped;
+    }
 }
@@ -2,25 +2,273 @@ package chat.server;
 
 import chat.shared.Message;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class ChatServer {
 
+    private static final int REQUEST_QUEUE = 1024;
+
+    private final ServerOptions options;
+
+    // 이미지 원본 (내용 해시 기준, 중복 제거)
+    private final BlobStore blobStore;
+    private final ThumbnailService thumbnails;
+
+    // 방 대화 기록: 디스크 로그(기본) 또는 모든 방이 나눠 쓰는 off-heap 메모리
+    private final HistoryLog historyLog;
+    private final HistoryArena historyArena;
+    private final SearchIndexer searchIndexer;
+    // 방 입장·퇴장 변경분을 모아 보내는 타이머 (모든 방 공용, 뜨거운 방 확인도 여기서)
+    private final RoomPresence.Settings presence;
+    // 방 작업 대기열을 실행하는 공용 풀 (방 하나는 한 번에 한 스레드에서만)
+    private final ExecutorService roomWorkers;
+    // 공유 읽기 스레드(이벤트 루프·중계 링크)에서 넘겨받은 기록·검색·이미지 요청. 대기열이 차면 거절
+    private final ThreadPoolExecutor requestWorkers;
+    // 큰 방 방송을 조각으로 나눠 보내는 풀 + 방 크기별 완료 시간 통계
+    private final Fanout fanout;
+    // 부하가 몰린 방을 전용 작업 스레드로 옮겼다가 식으면 되돌림
+    private final HotRooms hotRooms;
+    // 방을 노드별로 나눠 맡을 때 (혼자 실행하면 null)
+    private final Cluster cluster;
+    // 여러 서버가 같은 방을 함께 열고 방송을 토픽으로 주고받을 때 (없으면 null)
+    private final RoomBackplane backplane;
+    // 코어: 게이트웨이가 넘겨준 세션들 / 게이트웨이: 코어로 넘기는 쪽 (둘 다 없으면 null)
+    private final SessionRelay gatewaySessions;
+    private final EdgeGateway edge;
+    // 복제: 주 서버는 방 이벤트 기록을 대기 서버로 보내고, 대기 서버는 받아 적용하다 주 서버가 죽으면 승격 (없으면 null)
+    private final ReplicationLog replication;
+    private final StandbyReplica standby;
+    // 끊긴 세션을 잠시 남겨 두고 같은 토큰으로 이어받기 (--resume-window=0 이거나 클러스터·게이트웨이면 null)
+    private final SessionResume sessions;
+
     // 전체 접속 클라이언트
     private final Set<ClientHandler> clients = ConcurrentHashMap.newKeySet();
 
     // 방 이름 → ChatRoom
     private final Map<String, ChatRoom> rooms = new ConcurrentHashMap<>();
+    // 클라이언트에게 보내는 방 목록 (버전 + 변경분)
+    private final RoomDirectory directory;
+
+    public ChatServer() {
+        this(new ServerOptions());
+    }
+
+    public ChatServer(ServerOptions options) {
+        this.options = options;
+        this.blobStore = new BlobStore(Path.of(options.blobDir), options.blobMemoryBytes);
+        this.thumbnails = new ThumbnailService(blobStore, options.thumbnailThreads, options.thumbnailEdge);
+        if (options.historyOnDisk) {
+            this.historyLog = new HistoryLog(Path.of(options.historyDir), new HistoryLog.Config(
+                    options.historySegmentBytes, options.historyRollMillis,
+                    options.historyRetentionMillis, options.historyRetentionBytes, options.historyReplay));
+            this.historyArena = null;
+        } else {
+            this.historyLog = null;
+            this.historyArena = new HistoryArena(options.historyMemoryBytes, options.historyBytesPerRoom);
+        }
+        this.searchIndexer = new SearchIndexer(options.searchQueue);
+        this.directory = new RoomDirectory(clients, options.directoryIntervalMillis);
+        this.presence = new RoomPresence.Settings(Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "room-presence");
+            t.setDaemon(true);
+            return t;
+        }), options.presenceIntervalMillis, options.presenceSummaryThreshold);
+        this.roomWorkers = Executors.newFixedThreadPool(options.roomThreads, VirtualThreads.platform("room-"));
+        this.requestWorkers = new ThreadPoolExecutor(options.requestThreads, options.requestThreads,
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(REQUEST_QUEUE), VirtualThreads.platform("request-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.fanout = new Fanout(options.fanoutThreshold, options.fanoutSlice, options.fanoutThreads);
+        this.hotRooms = new HotRooms(roomWorkers, rooms::values, presence.timer, options);
+        this.cluster = openCluster(options);
+        this.backplane = openBackplane(options);
+        this.gatewaySessions = openGatewayListener(options);
+        this.edge = openEdge(options);
+        this.replication = options.replicationPort > 0
+                ? new ReplicationLog(this, options.replicationPort, presence.timer, options.failoverTimeoutMillis / 4)
+                : null;
+        this.standby = options.standby != null
+                ? new StandbyReplica(this, options.standby, options.failoverTimeoutMillis)
+                : null;
+        this.sessions = options.resumeWindowSeconds > 0 && cluster == null && edge == null
+                ? new SessionResume(presence.timer, options.resumeWindowSeconds)
+                : null;
+        // 대기 서버는 승격할 때 복제 포트를 연다 (주 서버가 쓰던 포트일 수 있음)
+        if (replication != null && standby == null) {
+            startReplication();
+        }
+    }
+
+    private void startReplication() {
+        try {
+            replication.start();
+        } catch (IOException e) {
+            System.out.println("[Server] 복제 포트를 열 수 없어 대기 서버 없이 실행합니다: " + e.getMessage());
+        }
+    }
+
+    private Cluster openCluster(ServerOptions options) {
+        if (options.nodeId == null) {
+            return null;
+        }
+        if (!options.clusterNodes.containsKey(options.nodeId)) {
+            System.out.println("[Server] --cluster 목록에 이 노드(" + options.nodeId + ")가 없어 혼자 실행합니다.");
+            return null;
+        }
+        ClusterTransport transport = options.clusterLocal
+                ? new LocalClusterTransport()
+                : new TcpClusterTransport(options.clusterNodes);
+        try {
+            return new Cluster(this, options.nodeId, List.copyOf(options.clusterNodes.keySet()), transport);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[Server] 클러스터에 참여하지 못해 혼자 실행합니다: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private RoomBackplane openBackplane(ServerOptions options) {
+        if (options.backplane == null) {
+            return null;
+        }
+        if (options.backplane.equals("memory")) {
+            return new RoomBackplane(this, MemoryBackplane.shared());
+        }
+        InetSocketAddress broker = ServerOptions.address(options.backplane);
+        if (broker == null) {
+            System.out.println("[Server] --backplane 주소를 알 수 없어 혼자 실행합니다: " + options.backplane);
+            return null;
+        }
+        return new RoomBackplane(this, new BrokerBackplane(broker));
+    }
+
+    private SessionRelay openGatewayListener(ServerOptions options) {
+        if (options.gatewayPort <= 0) {
+            return null;
+        }
+        SessionRelay relay = new SessionRelay(this, new GatewayListener(options.gatewayPort), false);
+        try {
+            relay.start("core");
+            return relay;
+        } catch (IOException e) {
+            System.out.println("[Server] 게이트웨이 포트를 열 수 없습니다: " + e.getMessage());
+            relay.close();
+            return null;
+        }
+    }
+
+    private EdgeGateway openEdge(ServerOptions options) {
+        if (options.upstream == null) {
+            return null;
+        }
+        try {
+            String name = options.nodeId != null ? options.nodeId : "edge-" + ProcessHandle.current().pid();
+            return new EdgeGateway(this, options.upstream, options.upstreamLinks, name);
+        } catch (IOException e) {
+            System.out.println("[Server] 게이트웨이를 시작할 수 없습니다: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public ServerOptions options() {
+        return options;
+    }
+
+    Cluster cluster() {
+        return cluster;
+    }
+
+    EdgeGateway edge() {
+        return edge;
+    }
+
+    SessionResume sessions() {
+        return sessions;
+    }
+
+    StandbyReplica standby() {
+        return standby;
+    }
+
+    /**
+     * 대기 서버 승격: 클라이언트 포트를 연 직후에 부른다.
+     * 유예 시간 안에 다시 들어오지 않은 참가자는 퇴장 처리 (오목 게임 자리도 이때 비움).
+     */
+    void promote() {
+        System.out.println("[Replica] 승격: 주 서버를 잃고 " + standby.millisSinceLoss() + "ms 만에 port="
+                + options.port + " 에서 접속을 받습니다 (방 " + rooms.size() + "개, 복제 " + standby.report() + ")");
+        if (replication != null) {
+            startReplication();
+        }
+        presence.timer.schedule(() -> {
+            for (ChatRoom room : rooms.values()) {
+                room.post(() -> {
+                    if (room.dropAbsentMembers() > 0) {
+                        roomChanged(room);
+                        removeEmptyRoom(room.getName());
+                    }
+                });
+            }
+        }, options.failoverGraceSeconds, TimeUnit.SECONDS);
+    }
+
+    Collection<ChatRoom> rooms() {
+        return rooms.values();
+    }
+
+    // 대기 서버: 스냅숏을 받은 방은 빈 기록으로 새로 만든다 (예전 복제본은 그 대기열에서 닫힘, 기록은 스냅숏이 다시 채움)
+    ChatRoom replaceRoom(String roomName) {
+        ChatRoom room = new ChatRoom(roomName, roomName, freshHistory(roomName), searchIndexer, presence, roomWorkers,
+                fanout, backplane, replication, recentFrames());
+        ChatRoom old = rooms.put(roomName, room);
+        if (old != null) {
+            old.post(old::close);
+            directory.changed(room);
+        } else {
+            directory.added(room);
+        }
+        return room;
+    }
+
+    // 대기 서버: 주 서버에 없는 방은 버린다 (다시 접속해 동기화할 때)
+    void retainRooms(Set<String> names) {
+        for (ChatRoom room : rooms.values()) {
+            if (!names.contains(room.getName())) {
+                room.post(() -> removeEmptyRoom(room.getName()));
+            }
+        }
+    }
+
+    BlobStore blobStore() {
+        return blobStore;
+    }
+
+    ThumbnailService thumbnails() {
+        return thumbnails;
+    }
+
+    ThreadPoolExecutor requestWorkers() {
+        return requestWorkers;
+    }
 
     public void addClient(ClientHandler client) {
         clients.add(client);
         System.out.println("[Server] 클라이언트 등록: " + client.getNickname());
-        // 새로 접속한 클라이언트에게 현재 방 목록 보내주기
-        sendRoomListTo(client);
+        // 예전 클라이언트에게는 현재 방 목록을 바로 보내고,
+        // 새 클라이언트는 알고 있는 버전과 함께 ROOM_LIST 를 요청한다 (다시 접속했으면 변경분만 받음)
+        if (!client.isModern()) {
+            sendRoomListTo(client);
+        }
     }
 
     public void removeClient(ClientHandler client) {
@@ -28,8 +276,69 @@ public class ChatServer {
         System.out.println("[Server] 클라이언트 제거: " + client.getNickname());
     }
 
+    // 이어받기를 쓸 때만 방마다 최근 방송을 남긴다
+    private RecentFrames recentFrames() {
+        return sessions != null ? new RecentFrames(options.resumeBuffer) : null;
+    }
+
+    /**
+     * 디스크 기록 방을 처음 열 때는 디렉터리·세그먼트를 읽으므로 맵 잠금 밖에서 로그부터 연다
+     * (같은 방을 동시에 열면 HistoryLog 가 한 로그로 맞춘다). NIO 연결은 opensHistory 를 보고 작업 풀에서 부른다.
+     */
     public ChatRoom getOrCreateRoom(String roomName) {
-        return rooms.computeIfAbsent(roomName, ChatRoom::new);
+        ChatRoom room = rooms.get(roomName);
+        if (room != null) return room;
+        RoomHistory log = openLog(roomName, false);
+        boolean[] created = new boolean[1];
+        room = rooms.computeIfAbsent(roomName, n -> {
+            created[0] = true;
+            return new ChatRoom(n, n, log != null ? log : memoryHistory(n), searchIndexer, presence, roomWorkers,
+                    fanout, backplane, replication, recentFrames());
+        });
+        if (created[0]) {
+            directory.added(room); // 방 목록 변경분 전파
+        }
+        return room;
+    }
+
+    // 입장·퇴장·게임 진행 후. 방 목록의 참여자 수·오목 상태는 모아서 주기적으로 알린다
+    void roomChanged(ChatRoom room) {
+        directory.changed(room);
+    }
+
+    // 대화가 오간 방 (최근 활동순 정렬용)
+    void roomActive(ChatRoom room) {
+        directory.touch(room.getName());
+    }
+
+    // 방을 새로 만들면 디스크에서 기록을 열어야 하는지 (이벤트 루프에서 부르면 안 되는 getOrCreateRoom)
+    boolean opensHistory(String roomName) {
+        return historyLog != null && !rooms.containsKey(roomName);
+    }
+
+    // 대기 서버의 스냅숏: 디스크 기록은 예전 방의 로그를 닫고 비운 뒤 새로 연다 (같은 RoomLog 를 두 방에 주지 않게)
+    private RoomHistory freshHistory(String roomName) {
+        RoomHistory log = openLog(roomName, true);
+        return log != null ? log : memoryHistory(roomName);
+    }
+
+    // 디스크 기록. 메모리 저장소이거나 파일을 열 수 없으면 null
+    private RoomHistory openLog(String roomName, boolean fresh) {
+        if (historyLog == null) return null;
+        try {
+            return fresh ? historyLog.reset(roomName) : historyLog.open(roomName);
+        } catch (IOException e) {
+            System.out.println("[Server] 기록 파일을 열 수 없어 메모리에만 기록합니다(" + roomName + "): " + e.getMessage());
+            return null;
+        }
+    }
+
+    // 디스크 저장소인데 못 연 방은 공용 arena 가 없으므로 방 하나 크기로 따로
+    private RoomHistory memoryHistory(String roomName) {
+        if (historyArena == null) {
+            return new HistoryRing(roomName, new HistoryArena(options.historyBytesPerRoom, options.historyBytesPerRoom));
+        }
+        return new HistoryRing(roomName, historyArena);
     }
 
     //public Collection<String> getRoomNames() {
@@ -41,34 +350,81 @@ public class ChatServer {
         return rooms.get(roomName);
     }
 
+    // 그 방의 작업 대기열 안에서 (비었는지 확인과 삭제 사이에 입장이 끼지 않게)
     public void removeEmptyRoom(String roomName) {
         ChatRoom room = rooms.get(roomName);
-        if (room != null && room.isEmpty()) {
-            rooms.remove(roomName);
+        if (room != null && room.isEmpty() && rooms.remove(roomName, room)) {
+            room.close();
             System.out.println("[Server] 빈 방 삭제: " + roomName);
-            broadcastRoomListToAll(); // 방이 사라졌으니 전체에게 목록 갱신 푸시
+            directory.removed(roomName); // 방이 사라졌으니 변경분 전파
         }
     }
 
+    public void sendRoomListTo(ClientHandler client) {
+        directory.sync(client, -1);
+    }
 
-    public void broadcastRoomListToAll() {
-        List<String> names = List.copyOf(rooms.keySet());
-        Message m = Message.roomList(names);
-        for (ClientHandler ch : clients) {
-            ch.send(m);
-        }
+    // knownVersion 이후 변경분만 (너무 오래됐거나 모르는 버전이면 전체 목록)
+    void syncRoomList(ClientHandler client, long knownVersion) {
+        directory.sync(client, knownVersion);
     }
 
-    public void sendRoomListTo(ClientHandler client) {
-        List<String> names = List.copyOf(rooms.keySet());
-        client.send(Message.roomList(names));
+    void queryRooms(ClientHandler client, Message request) {
+        client.send(directory.query(request.getText(), request.getRoomSort(),
+                request.getRoom(), request.getCursor(), request.getPageSize()));
     }
 
-    //전체 공지
+    //전체 공지 (backplane 이 있으면 모든 서버의 접속자에게)
     public void broadcastSystem(String text) {
-        Message m = Message.system(text);
+        if (backplane != null) {
+            backplane.publishSystem(Message.system(text));
+        } else {
+            deliverSystem(Message.system(text));
+        }
+    }
+
+    // 이 서버 접속자에게만
+    void deliverSystem(Message msg) {
+        SharedFrame frame = SharedFrame.of(msg);
+        for (ClientHandler ch : clients) {
+            ch.send(frame);
+        }
+    }
+
+    // 운영자용: 접속별 송신 대기열 깊이와 드롭 수
+    public void printStats() {
+        System.out.println("[Stats] clients=" + clients.size() + ", rooms=" + rooms.size()
+                + ", blobsInMemory=" + blobStore.memoryCount() + " (" + blobStore.memoryBytes() / 1024 + "KB)"
+                + ", thumbnailJobs=" + thumbnails.active() + " active/" + thumbnails.queued() + " queued"
+                + ", requestJobs=" + requestWorkers.getActiveCount() + " active/" + requestWorkers.getQueue().size() + " queued"
+                + (historyLog != null
+                        ? ", historyLogs=" + historyLog.openRooms() + " (" + historyLog.sizeOnDisk() / 1024 + "KB on disk"
+                        + ", inflated " + historyLog.inflated().report() + ")"
+                        : ", historySlabs=" + historyArena.slabsInUse() + "/" + historyArena.slabCount()
+                        + " x " + historyArena.slabBytes() / 1024 + "KB (off-heap)")
+                + ", directoryVersion=" + directory.version()
+                + ", hotRooms=" + hotRooms.hotRooms()
+                + (cluster != null ? ", node=" + cluster.self() + " (remote sessions " + cluster.proxyCount() + ")" : "")
+                + (gatewaySessions != null ? ", gatewaySessions=" + gatewaySessions.proxyCount() : "")
+                + (edge != null ? ", upstream " + edge.report() : "")
+                + (replication != null ? ", replication " + replication.report() : "")
+                + (standby != null ? ", replica " + standby.report() : "")
+                + (sessions != null ? ", resume " + sessions.report() : "")
+                + ", searchQueue=" + searchIndexer.queued() + " (overflowed " + searchIndexer.overflowed() + ")");
+        if (backplane != null && backplane.report() != null) {
+            System.out.println("  backplane delivery " + backplane.report());
+        }
+        for (String line : fanout.report()) {
+            System.out.println("  fanout " + line);
+        }
         for (ClientHandler ch : clients) {
-            ch.send(m);
+            OutboundQueue<?> q = ch.outbound();
+            if (q == null) continue;
+            System.out.println("  " + ch.getNickname()
+                    + " depth=" + q.depth() + "/" + q.capacity()
+                    + " high=" + q.highWater()
+                    + " sent=" + q.enqueued()
+                    + " dropped=" + q.dropped());
         }
     }
 }
@@ -1,36 +1,108 @@
 package chat.server;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.BindException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.ThreadFactory;
 
 public class ChatServerMain {
 
+    static final long BIND_RETRY_MILLIS = 50;
+
+    // 사용법은 ServerOptions 참고
     public static void main(String[] args) {
-        int port = 6000;
-        if (args.length > 0) {
+        // 서버는 이미지를 디코딩하지 않으므로 화면 없는 환경에서 실행
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        ServerOptions options = ServerOptions.parse(args);
+        ChatServer server = new ChatServer(options);
+        startAdminConsole(server);
+
+        // 대기 서버: 주 서버가 살아 있는 동안은 복제만 받는다
+        StandbyReplica standby = server.standby();
+        if (standby != null) {
             try {
-                port = Integer.parseInt(args[0]);
-            } catch (NumberFormatException e) {
-                System.out.println("포트 파싱 실패, 기본 포트 " + port + " 사용");
+                standby.awaitPrimaryLoss();
+            } catch (InterruptedException e) {
+                return;
             }
         }
 
-        ChatServer server = new ChatServer();
-
-        try (ServerSocket serverSocket = new ServerSocket(port)) {
-            System.out.println("[Server] 채팅 서버 시작: port=" + port);
-
-            while (true) {
-                Socket clientSocket = serverSocket.accept();
-                System.out.println("[Server] 새 클라이언트 접속: " + clientSocket);
+        if (options.nio) {
+            try {
+                NioServer nio = new NioServer(server, options.port, options.loops);
+                nio.bind(standby != null);
+                if (standby != null) {
+                    server.promote();
+                }
+                nio.run();
+            } catch (IOException e) {
+                System.out.println("[Server] 서버 소켓 오류: " + e.getMessage());
+                e.printStackTrace();
+            }
+            return;
+        }
 
-                ClientHandler handler = new ClientHandler(clientSocket, server);
-                handler.start();
+        try (ServerSocket serverSocket = bind(options.port, standby != null)) {
+            System.out.println("[Server] 채팅 서버 시작: port=" + options.port);
+            if (standby != null) {
+                server.promote();
             }
+            serveBlocking(server, serverSocket, options.connectionThreads());
         } catch (IOException e) {
             System.out.println("[Server] 서버 소켓 오류: " + e.getMessage());
             e.printStackTrace();
         }
     }
+
+    // 승격하는 대기 서버는 주 서버가 포트를 놓을 때까지 다시 시도
+    private static ServerSocket bind(int port, boolean retry) throws IOException {
+        while (true) {
+            try {
+                return new ServerSocket(port);
+            } catch (BindException e) {
+                if (!retry) throw e;
+                try {
+                    Thread.sleep(BIND_RETRY_MILLIS);
+                } catch (InterruptedException ie) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // 접속마다 ClientHandler 를 하나씩 띄우는 기존(블로킹) 방식
+    public static void serveBlocking(ChatServer server, ServerSocket serverSocket, ThreadFactory threads) throws IOException {
+        while (true) {
+            Socket clientSocket = serverSocket.accept();
+            System.out.println("[Server] 새 클라이언트 접속: " + clientSocket);
+
+            ClientHandler handler = new ClientHandler(clientSocket, server);
+            threads.newThread(handler).start();
+        }
+    }
+
+    // 운영자용 콘솔: 표준입력으로 명령을 받아 서버 상태를 출력
+    private static void startAdminConsole(ChatServer server) {
+        Thread console = new Thread(() -> {
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(System.in))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    switch (line.trim()) {
+                        case "stats" -> server.printStats();
+                        case "" -> {
+                        }
+                        default -> System.out.println("[Admin] 명령: stats");
+                    }
+                }
+            } catch (IOException ignored) {
+            }
+        }, "admin-console");
+        console.setDaemon(true);
+        console.start();
+    }
 }
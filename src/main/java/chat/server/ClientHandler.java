@@ -1,85 +1,316 @@
 package chat.server;
 
+import chat.shared.ChunkAssembler;
+import chat.shared.Codecs;
+import chat.shared.Frames;
+import chat.shared.ImageChunks;
 import chat.shared.Message;
+import chat.shared.MessageCodec;
 
 import javax.swing.*;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.SequenceInputStream;
 import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-
-public class ClientHandler extends Thread {
-
-    private final Socket socket;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 접속 한 건의 세션 로직.
+ * 블로킹 모드에서는 run() 이 읽기 루프를 돌고, NIO 모드에서는 리액터가 receive()/disconnect() 를 호출한다.
+ */
+public class ClientHandler implements Runnable {
+
+    private static final int MAX_SEARCH_QUERY = 100;
+    // 입장 처리(작업 풀) 중에 모아 둘 수 있는 요청 수
+    private static final int MAX_HELD = 256;
+
+    private final Socket socket;      // 블로킹 모드 전용 (NIO 모드에서는 null)
+    private final byte[] preread;     // 리액터가 이미 읽어 둔 바이트 (예전 클라이언트 위임 시)
     private final ChatServer server;
 
-    private ObjectInputStream in;
-    private ObjectOutputStream out;
+    private volatile Connection connection;
+    // 다른 노드·게이트웨이에 접속한 클라이언트의 대리 (요청을 다시 넘기지 않음)
+    private final boolean remote;
+    // server.addClient 로 등록됨 (LOGIN 을 이 프로세스에서 처리)
+    private boolean registered;
+    // 세션 이어받기 토큰 (발급받지 않았으면 null)
+    private volatile String resumeToken;
 
     private String nickname;
+    // LOGIN 에서 코덱을 협상한 클라이언트 = 새 메시지 타입을 아는 클라이언트
+    private volatile boolean modern;
 
     // 변경: 방 하나가 아니라, 여러 방 동시 참여 지원
     private final Set<ChatRoom> joinedRooms = ConcurrentHashMap.newKeySet();
 
+    private final AtomicBoolean disconnected = new AtomicBoolean(false);
+
+    // 디스크 기록 방을 여는 입장을 작업 풀에서 처리하는 동안 뒤이어 온 메시지 (순서대로). null 이면 바로 처리
+    private final ReentrantLock heldLock = new ReentrantLock();
+    private ArrayDeque<Message> held;
+
+    // 업로드 중인 이미지 조각 (접속당 동시 업로드 수 제한)
+    private final ChunkAssembler uploads = new ChunkAssembler(4);
+
     public ClientHandler(Socket socket, ChatServer server) {
+        this(socket, new byte[0], server);
+    }
+
+    ClientHandler(Socket socket, byte[] preread, ChatServer server) {
         this.socket = socket;
+        this.preread = preread;
+        this.server = server;
+        this.remote = false;
+    }
+
+    // NIO 리액터용: 전송 계층은 외부에서 주입
+    ClientHandler(Connection connection, ChatServer server) {
+        this.socket = null;
+        this.preread = new byte[0];
+        this.connection = connection;
+        this.server = server;
+        this.remote = false;
+    }
+
+    // 클러스터·게이트웨이가 넘겨준 세션의 대리. nickname 이 null 이면 넘어온 LOGIN 부터 처리한다
+    ClientHandler(Connection connection, ChatServer server, String nickname, boolean modern) {
+        this.socket = null;
+        this.preread = new byte[0];
+        this.connection = connection;
         this.server = server;
+        this.remote = true;
+        this.nickname = nickname;
+        this.modern = modern;
+    }
+
+    // LOGIN 때 새 메시지 유형(HISTORY 등)을 받을 수 있다고 밝힌 클라이언트
+    public boolean isModern() {
+        return modern;
     }
 
     public String getNickname() {
         return nickname;
     }
 
+    // 송신 대기열 (아직 핸드셰이크 전이면 null)
+    OutboundQueue<?> outbound() {
+        Connection c = connection;
+        return c == null ? null : c.outbound();
+    }
+
+    // 기존 호출부 호환: 스레드 하나에서 읽기 루프 실행
+    public void start() {
+        new Thread(this, "client-" + socket.getPort()).start();
+    }
+
     @Override
     public void run() {
         try {
-            out = new ObjectOutputStream(socket.getOutputStream());
-            out.flush();
-            in = new ObjectInputStream(socket.getInputStream());
+            InputStream raw = socket.getInputStream();
+            if (preread.length > 0) {
+                raw = new SequenceInputStream(new ByteArrayInputStream(preread), raw);
+            }
+            BufferedInputStream bin = new BufferedInputStream(raw);
+
+            // 첫 2바이트로 예전 직렬화 스트림 / 프레임 방식을 구분
+            bin.mark(2);
+            int b0 = bin.read();
+            int b1 = bin.read();
+            bin.reset();
+            if (b0 < 0 || b1 < 0) {
+                throw new EOFException("핸드셰이크 전에 연결 종료");
+            }
 
-            Object obj = in.readObject();
-            if (!(obj instanceof Message first) ||
-                    first.getType() != Message.Type.LOGIN ||
-                    first.getSender() == null ||
-                    first.getSender().isBlank()) {
+            if (Frames.isLegacyStream(b0, b1)) {
+                StreamConnection stream = new StreamConnection(socket, server.options());
+                stream.startWriter(server.options().connectionThreads());
+                connection = stream;
+                ObjectInputStream in = new ObjectInputStream(bin);
+                in.setObjectInputFilter(Frames.MESSAGE_FILTER);
+                while (!disconnected.get()) {
+                    Object o = in.readObject();
+                    if (o instanceof Message msg) {
+                        receive(msg);
+                    }
+                }
+            } else {
+                DataInputStream in = new DataInputStream(bin);
+                if (in.readInt() != Frames.MAGIC) {
+                    throw new java.io.IOException("알 수 없는 프로토콜");
+                }
+                FramedConnection framed = new FramedConnection(socket, server.options());
+                framed.startWriter(server.options().connectionThreads());
+                connection = framed;
+                while (!disconnected.get()) {
+                    receive(framed.decode(Frames.readFrame(in)));
+                }
+            }
+
+        } catch (Exception e) {
+            System.out.println("[ClientHandler] 종료(" + nickname + "): " + e.getMessage());
+        } finally {
+            disconnect();
+        }
+    }
+
+    // 전송 계층이 디코딩한 메시지 하나를 처리. 첫 메시지는 반드시 LOGIN (또는 끊긴 세션을 이어받는 RESUME)
+    void receive(Message msg) {
+        if (disconnected.get()) {
+            return;
+        }
+        if (nickname == null) {
+            boolean resume = msg.getType() == Message.Type.RESUME;
+            if ((msg.getType() != Message.Type.LOGIN && !resume) ||
+                    msg.getSender() == null ||
+                    msg.getSender().isBlank()) {
 
                 send(Message.error("첫 메시지는 LOGIN 이어야 합니다."));
-                close();
+                disconnect();
                 return;
             }
 
-            this.nickname = first.getSender().trim();
-            server.addClient(this);
-            send(Message.system("환영합니다, " + nickname + "님!"));
+            this.nickname = msg.getSender().trim();
 
-            while (true) {
-                Object o = in.readObject();
-                if (!(o instanceof Message msg)) {
-                    continue;
-                }
-                handleMessage(msg);
+            // 코덱 협상: 응답(ack)은 아직 기존 코덱으로 보내고, 그 다음 프레임부터 전환
+            Connection c = connection;
+            modern = msg.getCodecs() != null;
+            if (modern && c != null && c.supportsCodec()) {
+                MessageCodec codec = Codecs.negotiate(msg.getCodecs());
+                send(Message.loginAck(codec.name()));
+                c.switchCodec(codec);
             }
 
-        } catch (Exception e) {
-            System.out.println("[ClientHandler] 종료(" + nickname + "): " + e.getMessage());
-        } finally {
-            // 변경: 참여 중인 모든 방에서 빠져나오기
-            for (ChatRoom room : joinedRooms) {
-                room.leave(this);
-                server.removeEmptyRoom(room.getName());
+            EdgeGateway edge = server.edge();
+            if (edge != null) {
+                // 게이트웨이: 접속 등록·환영 인사·방 목록은 코어가 맡는다 (코어의 대리가 같은 LOGIN 을 받음)
+                edge.forward(this, msg);
+                return;
+            }
+            SessionResume sessions = remote ? null : server.sessions();
+            if (resume && sessions != null && sessions.resume(this, msg)) {
+                return;
+            }
+            server.addClient(this);
+            registered = true;
+            send(Message.system("환영합니다, " + nickname + "님!"));
+            if (resume) {
+                // 이어받지 못함: 새로 로그인한 것과 같다 (클라이언트가 방에 다시 들어옴)
+                send(Message.resumed(null, null));
+            }
+            if (sessions != null && modern) {
+                sessions.open(this);
             }
-            joinedRooms.clear();
+            return;
+        }
+        if (hold(msg)) {
+            return;
+        }
+        handleMessage(msg);
+    }
 
-            server.removeClient(this);
+    String resumeToken() {
+        return resumeToken;
+    }
+
+    void resumeToken(String token) {
+        this.resumeToken = token;
+    }
+
+    /**
+     * 세션 이어받기: 끊긴(또는 아직 끊긴 줄 모르는) old 의 세션을 넘겨받는다.
+     * 응답(RESUME)을 먼저 보내고, 방마다 자리 바꾸기와 놓친 방송은 그 방 대기열에서 뒤따른다.
+     */
+    void takeOver(ClientHandler old, String token, Map<String, Long> lastSeqs) {
+        old.disconnected.set(true);
+        old.close();
+        server.removeClient(old);
+        server.addClient(this);
+        registered = true;
+
+        List<ChatRoom> rooms = new ArrayList<>(old.joinedRooms);
+        old.joinedRooms.clear();
+        joinedRooms.addAll(rooms);
+        send(Message.resumed(token, rooms.stream().map(ChatRoom::getName).collect(Collectors.toList())));
+        for (ChatRoom room : rooms) {
+            long lastSeq = lastSeqs.getOrDefault(room.getName(), -1L);
+            room.post(() -> room.resume(old, this, lastSeq));
+        }
+    }
+
+    // 연결 종료 처리. 읽기 루프/리액터 어느 쪽에서 불러도 한 번만 수행
+    void disconnect() {
+        if (!disconnected.compareAndSet(false, true)) {
+            return;
+        }
+        // 이어받기 창 동안은 방에 남겨 두고 연결만 닫는다 (창이 지나면 release)
+        SessionResume sessions = server.sessions();
+        if (sessions != null && sessions.park(this)) {
             close();
+            return;
         }
+        release();
+    }
+
+    // 세션 정리: 방에서 나가고 등록 해제
+    void release() {
+        // 변경: 참여 중인 모든 방에서 빠져나오기
+        for (ChatRoom room : joinedRooms) {
+            leaveRoom(room);
+        }
+        joinedRooms.clear();
+
+        if (registered) {
+            server.removeClient(this);
+        }
+        if (!remote) {
+            Cluster cluster = server.cluster();
+            if (cluster != null) {
+                cluster.detach(this);
+            }
+            EdgeGateway edge = server.edge();
+            if (edge != null) {
+                edge.detach(this);
+            }
+        }
+        close();
     }
 
     private void handleMessage(Message msg) {
+        // 게이트웨이: 모든 요청을 코어로
+        EdgeGateway edge = server.edge();
+        if (edge != null) {
+            edge.forward(this, msg);
+            return;
+        }
+        // 클러스터: 다른 노드가 주인인 방의 요청은 그 노드로 (응답과 방송도 그 노드가 돌려보냄)
+        Cluster cluster = server.cluster();
+        if (cluster != null && !remote && cluster.forward(this, msg)) {
+            return;
+        }
         switch (msg.getType()) {
             case ROOM_LIST:
-                server.sendRoomListTo(this);
+                server.syncRoomList(this, msg.getVersion());
+                break;
+
+            case ROOM_QUERY:
+                server.queryRooms(this, msg);
+                break;
+
+            case USER_LIST:
+                handleUserListRequest(msg);
                 break;
 
             case CREATE_ROOM:
@@ -102,6 +333,23 @@ public class ClientHandler extends Thread {
                 handleGameEvent(msg);
                 break;
 
+            case IMAGE_CHUNK:
+                handleImageChunk(msg);
+                break;
+
+            // 디스크를 읽는 요청: 읽기 스레드를 같이 쓰는 연결이면 작업 풀에서
+            case BLOB_REQUEST:
+                offload(() -> handleBlobRequest(msg));
+                break;
+
+            case HISTORY:
+                offload(() -> handleHistory(msg));
+                break;
+
+            case SEARCH:
+                offload(() -> handleSearch(msg));
+                break;
+
             case LEAVE_ROOM:
                 handleLeaveRoom(msg);
 
@@ -121,32 +369,23 @@ public class ClientHandler extends Thread {
             send(Message.gameError(roomName, "존재하지 않는 방입니다."));
             return;
         }
-        OmokGame game = room.getOrCreateGame();
-
-        try {
-            switch (msg.getGameAction()) {
-                case REQUEST_JOIN_PLAYER -> {
-                    game.joinAsPlayer(nickname);
-                    room.broadcast(game.toStateMessage(), false);
-                }
-                case REQUEST_SPECTATOR -> {
-                    game.joinAsSpectator(nickname);
-                    // 관전자 추가 → 전체에 최신 상태 브로드캐스트
-                    room.broadcast(game.toStateMessage(), false);
-                }
-                case MOVE -> {
-                    game.placeStone(nickname, msg.getX(), msg.getY());
-                    room.broadcast(game.toStateMessage(), false);
-                }
-                case RESIGN -> {
-                    game.resign(nickname);
+        // 게임 상태는 방 작업 대기열 안에서만 바꾼다
+        room.post(() -> {
+            OmokGame game = room.getOrCreateGame();
+            try {
+                // 대기 서버도 같은 요청을 같은 순서로 적용 (규칙 위반으로 거절되는 것까지)
+                room.gameRequested(msg.getGameAction(), nickname, msg.getX(), msg.getY());
+                if (game.apply(msg.getGameAction(), nickname, msg.getX(), msg.getY())) {
+                    // 참여·관전·착수·기권 → 전체에 최신 상태 브로드캐스트
                     room.broadcast(game.toStateMessage(), false);
+                } else {
+                    send(Message.gameError(roomName, "지원하지 않는 게임 액션입니다."));
                 }
-                default -> send(Message.gameError(roomName, "지원하지 않는 게임 액션입니다."));
+                server.roomChanged(room);
+            } catch (Exception e) {
+                send(Message.gameError(roomName, e.getMessage()));
             }
-        } catch (Exception e) {
-            send(Message.gameError(roomName, e.getMessage()));
-        }
+        });
     }
 
     private void handleLeaveRoom(Message msg) {
@@ -163,11 +402,19 @@ public class ClientHandler extends Thread {
         }
 
         if (joinedRooms.remove(room)) {
-            room.leave(this); // 참가자 목록에서 제거 + 브로드캐스트
-            server.removeEmptyRoom(room.getName());
+            leaveRoom(room);
         }
     }
 
+    // 참가자 목록에서 제거 + 브로드캐스트, 비었으면 방 삭제 (모두 방 작업 대기열 안에서)
+    private void leaveRoom(ChatRoom room) {
+        room.post(() -> {
+            room.leave(this);
+            server.roomChanged(room);
+            server.removeEmptyRoom(room.getName());
+        });
+    }
+
     private void handleCreateRoom(Message msg) {
         String roomName = msg.getRoom();
         if (roomName == null || roomName.isBlank()) {
@@ -175,11 +422,17 @@ public class ClientHandler extends Thread {
             return;
         }
 
-        ChatRoom room = server.getOrCreateRoom(roomName.trim());
-        System.out.println("[Server] 방 생성/존재 확인: " + room.getName());
+        String name = roomName.trim();
+        if (openOffLoop(name, () -> createRoom(name))) {
+            return;
+        }
+        createRoom(name);
+    }
 
-        // 방 목록 변경 → 전체에게 갱신
-        server.broadcastRoomListToAll();
+    // 새로 생긴 방이면 ChatServer 가 방 목록 변경분을 전파한다
+    private void createRoom(String roomName) {
+        ChatRoom room = server.getOrCreateRoom(roomName);
+        System.out.println("[Server] 방 생성/존재 확인: " + room.getName());
     }
 
     // 변경: JOIN 시 기존 방을 나가지 않고, 여러 방에 동시에 참여 가능하도록
@@ -190,15 +443,36 @@ public class ClientHandler extends Thread {
             return;
         }
 
-        ChatRoom room = server.getOrCreateRoom(roomName.trim());
+        String name = roomName.trim();
+        if (openOffLoop(name, () -> joinRoom(name))) {
+            return;
+        }
+        joinRoom(name);
+    }
+
+    // 참여 표시는 바로 (뒤이어 오는 채팅이 거절되지 않게), 실제 입장은 방 작업 대기열에서
+    private void joinRoom(String roomName) {
+        ChatRoom room = server.getOrCreateRoom(roomName);
 
-        if (joinedRooms.contains(room)) {
+        if (!joinedRooms.add(room)) {
             send(Message.system("이미 '" + room.getName() + "' 방에 입장해 있습니다."));
             return;
         }
 
-        joinedRooms.add(room);
-        room.join(this);
+        room.post(() -> {
+            if (disconnected.get()) {
+                joinedRooms.remove(room);
+                return;
+            }
+            if (room.isClosed()) {
+                // 마지막 사람이 나가 방이 지워진 직후 → 새로 만들어진 방으로 다시
+                joinedRooms.remove(room);
+                joinRoom(roomName);
+                return;
+            }
+            room.join(this);
+            server.roomChanged(room);
+        });
     }
 
     // 변경: currentRoom 대신 msg.getRoom() 기준으로 방 찾기
@@ -228,6 +502,7 @@ public class ClientHandler extends Thread {
                 nickname,
                 text
         ), true);
+        server.roomActive(room);
     }
 
     // 이미지도 동일하게 msg.getRoom() 기준으로 처리
@@ -255,23 +530,231 @@ public class ClientHandler extends Thread {
         }
 
         room.broadcastImage(nickname, img, true);
+        server.roomActive(room);
     }
 
-    public void send(Message msg) {
+    // 업로드 조각을 모아 저장소에 넣고, 방에는 해시만 방송 (바이트는 열어보지 않음)
+    private void handleImageChunk(Message msg) {
+        String roomName = msg.getRoom();
+        if (roomName == null || roomName.isBlank()) {
+            send(Message.error("이미지를 보낼 방 정보가 없습니다."));
+            return;
+        }
+
+        ChatRoom room = server.getRoom(roomName.trim());
+        if (room == null) {
+            send(Message.error("존재하지 않는 방입니다: " + roomName));
+            return;
+        }
+
+        if (!joinedRooms.contains(room)) {
+            send(Message.error("해당 방에 입장한 후에 이미지를 보낼 수 있습니다: " + room.getName()));
+            return;
+        }
+
+        if (!ImageChunks.isValid(msg)) {
+            send(Message.error("잘못된 이미지 조각입니다."));
+            return;
+        }
+
+        ChunkAssembler.Completed upload = uploads.accept(msg);
+        if (upload == null) {
+            return;
+        }
+        // 저장과 썸네일 생성은 작업 풀에서. 완료되면 방에는 썸네일만 방송
+        try {
+            server.thumbnails().submit(upload.mimeType, upload.bytes).whenComplete((stored, err) -> {
+                if (err != null) {
+                    Throwable cause = err.getCause() != null ? err.getCause() : err;
+                    send(Message.error("이미지 저장 실패: " + cause.getMessage()));
+                } else {
+                    room.broadcastImageRef(nickname, stored.hash, stored.mimeType, stored.thumbnail);
+                    server.roomActive(room);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            send(Message.error("서버가 이미지를 처리하느라 바쁩니다. 잠시 후 다시 보내주세요."));
+        }
+    }
+
+    // 참가자 변경분 버전이 건너뛰었을 때 전체 목록 재요청
+    private void handleUserListRequest(Message msg) {
+        ChatRoom room = msg.getRoom() == null ? null : server.getRoom(msg.getRoom().trim());
+        if (room == null || !joinedRooms.contains(room)) {
+            send(Message.error("해당 방에 입장한 후에 참가자 목록을 볼 수 있습니다."));
+            return;
+        }
+        room.sendUserList(this);
+    }
+
+    // 이벤트 루프 한 번에 다른 연결들이 멈추지 않도록. 스레드 방식 연결은 제 스레드에서 그대로
+    private void offload(Runnable request) {
+        Connection c = connection;
+        if (c == null || !c.sharedReader()) {
+            request.run();
+            return;
+        }
+        try {
+            server.requestWorkers().execute(request);
+        } catch (RejectedExecutionException e) {
+            send(Message.error("서버가 요청을 처리하느라 바쁩니다. 잠시 후 다시 시도해 주세요."));
+        }
+    }
+
+    /**
+     * 디스크 기록 방을 처음 여는 요청(입장·생성): 읽기 스레드를 같이 쓰는 연결이면 작업 풀에서 처리한다.
+     * 끝날 때까지 뒤이어 온 메시지는 held 에 모았다가 같은 작업에서 순서대로 이어서 처리한다 (입장 직후 채팅이 거절되지 않게).
+     * @return 작업 풀로 넘겼으면 true
+     */
+    private boolean openOffLoop(String roomName, Runnable request) {
+        Connection c = connection;
+        if (c == null || !c.sharedReader() || !server.opensHistory(roomName)) {
+            return false;
+        }
+        heldLock.lock();
+        try {
+            if (held != null) {
+                return false; // 모아 둔 메시지를 이미 작업 풀에서 처리하는 중
+            }
+            held = new ArrayDeque<>();
+        } finally {
+            heldLock.unlock();
+        }
+        try {
+            server.requestWorkers().execute(() -> {
+                try {
+                    request.run();
+                } finally {
+                    releaseHeld();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            heldLock.lock();
+            try {
+                held = null;
+            } finally {
+                heldLock.unlock();
+            }
+            send(Message.error("서버가 요청을 처리하느라 바쁩니다. 잠시 후 다시 시도해 주세요."));
+        }
+        return true;
+    }
+
+    // 작업 풀에서 처리 중인 요청이 있으면 뒤에 세운다. 너무 많이 쌓이면 연결을 끊는다
+    private boolean hold(Message msg) {
+        heldLock.lock();
+        try {
+            if (held == null) {
+                return false;
+            }
+            if (held.size() < MAX_HELD) {
+                held.add(msg);
+                return true;
+            }
+            held.clear();
+        } finally {
+            heldLock.unlock();
+        }
+        System.out.println("[Server] 입장 처리 중 쌓인 요청이 너무 많아 연결 종료(" + nickname + ")");
+        disconnect();
+        return true;
+    }
+
+    // 모아 둔 메시지를 순서대로 처리하고, 다 비면 다시 읽기 스레드에서 바로 처리한다
+    private void releaseHeld() {
+        while (true) {
+            Message next;
+            heldLock.lock();
+            try {
+                next = held.poll();
+                if (next == null) {
+                    held = null;
+                    return;
+                }
+            } finally {
+                heldLock.unlock();
+            }
+            if (disconnected.get()) {
+                continue;
+            }
+            try {
+                handleMessage(next);
+            } catch (RuntimeException e) {
+                System.out.println("[ClientHandler] 요청 처리 오류(" + nickname + "): " + e);
+            }
+        }
+    }
+
+    // 위로 스크롤할 때 더 오래된 기록 페이지 요청
+    private void handleHistory(Message msg) {
+        ChatRoom room = msg.getRoom() == null ? null : server.getRoom(msg.getRoom().trim());
+        if (room == null || !joinedRooms.contains(room)) {
+            send(Message.error("해당 방에 입장한 후에 기록을 볼 수 있습니다."));
+            return;
+        }
+        room.sendHistoryPage(this, msg.getCursor(), msg.getPageSize());
+    }
+
+    private void handleSearch(Message msg) {
+        ChatRoom room = msg.getRoom() == null ? null : server.getRoom(msg.getRoom().trim());
+        if (room == null || !joinedRooms.contains(room)) {
+            send(Message.error("해당 방에 입장한 후에 검색할 수 있습니다."));
+            return;
+        }
+        String query = msg.getText() == null ? "" : msg.getText().trim();
+        if (query.isEmpty() || query.length() > MAX_SEARCH_QUERY) {
+            send(Message.error("검색어는 1~" + MAX_SEARCH_QUERY + "자로 입력하세요."));
+            return;
+        }
+        room.sendSearchResults(this, query, msg.getCursor(), msg.getPageSize());
+    }
+
+    // 클라이언트가 캐시에 없는 blob 을 요청 → 요청자에게만 조각으로 전송
+    private void handleBlobRequest(Message msg) {
+        ChatRoom room = msg.getRoom() == null ? null : server.getRoom(msg.getRoom().trim());
+        if (room == null || !joinedRooms.contains(room)) {
+            send(Message.error("해당 방에 입장한 후에 이미지를 받을 수 있습니다."));
+            return;
+        }
         try {
-            if (out != null) {
-                out.writeObject(msg);
-                out.flush();
+            BlobStore.Blob blob = server.blobStore().get(msg.getBlobId());
+            if (blob == null) {
+                send(Message.error("이미지를 찾을 수 없습니다."));
+                return;
+            }
+            for (Message chunk : ImageChunks.split(room.getName(), null, blob.hash, blob.mimeType, blob.bytes)) {
+                send(chunk);
             }
         } catch (Exception e) {
-            System.out.println("[ClientHandler] send 실패(" + nickname + "): " + e.getMessage());
+            send(Message.error("이미지 전송 실패: " + e.getMessage()));
+        }
+    }
+
+    public void send(Message msg) {
+        Connection c = connection;
+        if (c != null && (modern || msg.isLegacyCompatible())) {
+            c.send(msg);
+        }
+    }
+
+    // 브로드캐스트용: 이미 인코딩된 프레임을 공유
+    // 예전 클라이언트에게는 모르는 타입(IMAGE_CHUNK 등)을 보내지 않는다
+    void send(SharedFrame frame) {
+        Connection c = connection;
+        if (c != null && (modern || frame.message().isLegacyCompatible())) {
+            c.send(frame);
         }
     }
 
     private void close() {
-        try {
-            socket.close();
-        } catch (Exception ignored) {
+        Connection c = connection;
+        if (c != null) {
+            c.close();
+        } else if (socket != null) {
+            try {
+                socket.close();
+            } catch (Exception ignored) {
+            }
         }
     }
 }
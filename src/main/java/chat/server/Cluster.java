@@ -0,0 +1,65 @@
+package chat.server;
+
+import chat.shared.Message;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 방을 노드별로 나눠 맡는 클러스터. 방 주인은 HashRing 으로 정하고, 모든 노드가 같은 노드 목록을 쓴다.
+ * 클라이언트가 접속한 노드(home)는 다른 노드가 주인인 방의 요청을 세션 번호와 함께 주인에게 넘기고,
+ * 주인 노드는 그 세션의 대리 ClientHandler 로 자기 방처럼 처리한다 (입장·방송·게임·기록 모두 그대로).
+ * 주고받는 방식은 SessionRelay 참고. 방 목록·전체 공지는 노드마다 따로다 (자기가 주인인 방, 자기에게 접속한 클라이언트).
+ */
+class Cluster {
+
+    private final String self;
+    private final HashRing ring;
+    private final SessionRelay relay;
+
+    Cluster(ChatServer server, String self, List<String> nodes, ClusterTransport transport) throws IOException {
+        this.self = self;
+        this.ring = new HashRing(nodes);
+        this.relay = new SessionRelay(server, transport, false);
+        relay.start(self);
+        System.out.println("[Cluster] 노드 " + self + " 시작 (노드 " + nodes.size() + "개: " + nodes + ")");
+    }
+
+    String self() {
+        return self;
+    }
+
+    boolean owns(String room) {
+        return self.equals(ring.owner(room));
+    }
+
+    int proxyCount() {
+        return relay.proxyCount();
+    }
+
+    /**
+     * 다른 노드가 주인인 방의 요청이면 그 노드로 넘기고 true.
+     * 방 목록 조회처럼 방에 묶이지 않은 요청은 이 노드에서 처리한다.
+     */
+    boolean forward(ClientHandler client, Message msg) {
+        if (msg.getType() == Message.Type.ROOM_LIST || msg.getType() == Message.Type.ROOM_QUERY
+                || msg.getRoom() == null || msg.getRoom().isBlank()) {
+            return false;
+        }
+        String owner = ring.owner(msg.getRoom().trim());
+        if (owner.equals(self)) {
+            return false;
+        }
+        relay.forward(owner, client, msg);
+        return true;
+    }
+
+    // 클라이언트 접속 종료: 요청을 넘겼던 노드들에서 대리를 정리하게 한다
+    void detach(ClientHandler client) {
+        relay.detach(client);
+    }
+
+    void close() {
+        relay.close();
+    }
+}
@@ -0,0 +1,26 @@
+package chat.server;
+
+import java.io.IOException;
+
+/**
+ * 노드 사이 링크. Cluster 가 만든 바이트 묶음을 그대로 옮기기만 한다.
+ * 구현: 루프백/TCP 소켓(TcpClusterTransport), 한 JVM 안의 여러 서버(LocalClusterTransport).
+ * 같은 두 노드 사이에서는 보낸 순서대로 도착해야 한다.
+ */
+interface ClusterTransport {
+
+    interface Receiver {
+        // 노드마다 한 스레드에서 순서대로 불린다
+        void receive(String from, byte[] payload);
+
+        // 그 노드와의 연결이 끊김 (아무 스레드에서나. 다시 연결되면 이후 메시지는 다시 온다)
+        void linkDown(String node);
+    }
+
+    void start(String self, Receiver receiver) throws IOException;
+
+    // 대기열에 넣고 바로 돌아간다. payload 는 넘긴 뒤 수정하지 않는다
+    void send(String node, byte[] payload);
+
+    void close();
+}
@@ -0,0 +1,37 @@
+package chat.server;
+
+import chat.shared.Message;
+import chat.shared.MessageCodec;
+
+/**
+ * ClientHandler 가 메시지를 내보내는 전송 계층.
+ * 블로킹 소켓(스레드 방식)과 NIO 리액터가 각각 구현한다.
+ */
+interface Connection {
+
+    // 브로드캐스트: 인코딩 결과를 다른 연결과 공유
+    void send(SharedFrame frame);
+
+    default void send(Message msg) {
+        send(SharedFrame.of(msg));
+    }
+
+    void close();
+
+    // 송신 대기열 (운영자 통계용)
+    OutboundQueue<?> outbound();
+
+    // 프레임 방식 연결만 LOGIN 코덱 협상을 지원한다 (예전 스트림 연결은 false)
+    default boolean supportsCodec() {
+        return false;
+    }
+
+    // 이후 송신/수신 프레임에 쓸 코덱 전환
+    default void switchCodec(MessageCodec codec) {
+    }
+
+    // 여러 연결이 읽기 스레드 하나를 같이 쓰면 true (NIO 이벤트 루프, 노드 링크의 대리 세션). 디스크를 읽는 요청은 작업 풀로 넘긴다
+    default boolean sharedReader() {
+        return false;
+    }
+}
@@ -0,0 +1,167 @@
+package chat.server;
+
+import chat.shared.Frames;
+import chat.shared.Message;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 스레드 방식(platform / virtual) 비교용 부하 도구.
+ * 서버를 같은 JVM 에 띄우고 유휴 접속 idle 개 + 채팅을 보내는 접속 active 개를 연결한 뒤
+ * 플랫폼 스레드 수, 힙 사용량, 채팅 왕복 지연(p50/p99)을 출력한다.
+ *
+ * 사용법: ConnectionBench [platform|virtual] [idle=10000] [active=1000] [seconds=30] [msgPerSec=1]
+ * (접속 수만큼 파일 디스크립터가 두 배로 필요하므로 ulimit -n 을 넉넉히 잡을 것)
+ */
+public class ConnectionBench {
+
+    private static final int ROOM_SIZE = 10;
+
+    public static void main(String[] args) throws Exception {
+        boolean virtual = args.length > 0 && args[0].equals("virtual");
+        int idle = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int active = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        int rate = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        PrintStream report = System.out;
+        // 접속마다 찍히는 서버 로그는 측정에 방해되므로 버린다
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        ServerSocket ss = new ServerSocket(0, 4096);
+        ServerOptions options = new ServerOptions().virtual(virtual);
+        ChatServer server = new ChatServer(options);
+        ThreadFactory threads = options.connectionThreads();
+        Thread acceptor = new Thread(() -> {
+            try {
+                ChatServerMain.serveBlocking(server, ss, threads);
+            } catch (IOException ignored) {
+            }
+        }, "bench-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        int port = ss.getLocalPort();
+        report.println("mode=" + (virtual ? "virtual" : "platform") + " idle=" + idle + " active=" + active);
+
+        long t0 = System.nanoTime();
+        List<Socket> idleSockets = new ArrayList<>(idle);
+        for (int i = 0; i < idle; i++) {
+            Socket s = new Socket("localhost", port);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            out.writeInt(Frames.MAGIC);
+            Frames.writeFrame(out, Frames.serialize(Message.login("idle" + i)));
+            out.flush();
+            idleSockets.add(s);
+        }
+        report.printf("idle 접속 완료: %.1f s%n", (System.nanoTime() - t0) / 1e9);
+        printServerState(report, "idle");
+
+        List<ActiveClient> clients = new ArrayList<>(active);
+        for (int i = 0; i < active; i++) {
+            ActiveClient c = new ActiveClient(port, "active" + i, "bench-" + (i / ROOM_SIZE));
+            clients.add(c);
+        }
+        Thread.sleep(1000);
+
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        long intervalNanos = 1_000_000_000L / Math.max(1, rate);
+        while (System.nanoTime() < end) {
+            long tick = System.nanoTime();
+            for (ActiveClient c : clients) {
+                c.sendProbe();
+            }
+            long sleep = intervalNanos - (System.nanoTime() - tick);
+            if (sleep > 0) {
+                Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+            }
+        }
+        Thread.sleep(1000);
+
+        List<Long> rtts = new ArrayList<>();
+        for (ActiveClient c : clients) {
+            synchronized (c.rtts) {
+                rtts.addAll(c.rtts);
+            }
+        }
+        Collections.sort(rtts);
+        printServerState(report, "active");
+        if (!rtts.isEmpty()) {
+            report.printf("RTT samples=%d p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                    rtts.size(),
+                    rtts.get(rtts.size() / 2) / 1e6,
+                    rtts.get((int) (rtts.size() * 0.99)) / 1e6,
+                    rtts.get(rtts.size() - 1) / 1e6);
+        }
+        System.exit(0);
+    }
+
+    private static void printServerState(PrintStream report, String phase) {
+        System.gc();
+        Runtime rt = Runtime.getRuntime();
+        long usedMb = (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
+        int platformThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+        report.println("[" + phase + "] platformThreads=" + platformThreads + " heapUsed=" + usedMb + "MB");
+    }
+
+    // 방에 들어가 자기 채팅 에코가 돌아오는 시간을 잰다
+    private static final class ActiveClient {
+        private final String nickname;
+        private final String room;
+        private final DataOutputStream out;
+        private final List<Long> rtts = new ArrayList<>();
+
+        ActiveClient(int port, String nickname, String room) throws IOException {
+            this.nickname = nickname;
+            this.room = room;
+            Socket s = new Socket("localhost", port);
+            out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            out.writeInt(Frames.MAGIC);
+            send(Message.login(nickname));
+            send(Message.joinRoom(room));
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            Thread reader = new Thread(() -> readLoop(in), "bench-" + nickname);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        void sendProbe() throws IOException {
+            send(Message.chat(room, nickname, Long.toString(System.nanoTime())));
+        }
+
+        private synchronized void send(Message m) throws IOException {
+            Frames.writeFrame(out, Frames.serialize(m));
+            out.flush();
+        }
+
+        private void readLoop(DataInputStream in) {
+            try {
+                while (true) {
+                    byte[] payload = Frames.readFrame(in);
+                    Message m = Frames.deserialize(payload, 0, payload.length);
+                    if (m.getType() == Message.Type.CHAT && nickname.equals(m.getSender())) {
+                        long rtt = System.nanoTime() - Long.parseLong(m.getText());
+                        synchronized (rtts) {
+                            rtts.add(rtt);
+                        }
+                    }
+                }
+            } catch (IOException | NumberFormatException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package chat.server;
+
+import chat.shared.Frames;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 양방향 소켓 링크 하나 (게이트웨이 ↔ 코어). 읽기 스레드가 [길이][payload] 프레임을 순서대로 handler 에 넘기고,
+ * send() 는 대기열에 넣고 돌아가며 writer 스레드가 쌓인 것을 묶어 쓴 뒤 한 번만 flush 한다.
+ */
+final class DuplexLink {
+
+    interface Handler {
+        void frame(DuplexLink link, byte[] payload);
+
+        // 한 번만 불린다
+        void closed(DuplexLink link, String reason);
+    }
+
+    private static final int QUEUE_CAPACITY = 65536;
+    private static final int WRITE_BATCH = 64;
+    private static final byte[] WAKE = new byte[0];
+
+    private final Socket socket;
+    private final String name;
+    private final Handler handler;
+    private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    DuplexLink(Socket socket, String name, Handler handler) {
+        this.socket = socket;
+        this.name = name;
+        this.handler = handler;
+    }
+
+    String name() {
+        return name;
+    }
+
+    // 핸드셰이크를 읽고 쓴 스트림을 그대로 이어서 쓴다
+    void start(DataInputStream in, DataOutputStream out) {
+        daemon(() -> readLoop(in), name + "-in").start();
+        daemon(() -> writeLoop(out), name + "-out").start();
+    }
+
+    void send(byte[] payload) {
+        if (closed.get()) return;
+        if (!queue.offer(payload)) {
+            close("송신 대기열 초과(" + queue.size() + ")");
+        }
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    // 링크가 닫힐 때까지 기다림
+    void await() throws InterruptedException {
+        done.await();
+    }
+
+    void close(String reason) {
+        if (!closed.compareAndSet(false, true)) return;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+        queue.clear();
+        queue.offer(WAKE);
+        handler.closed(this, reason);
+        done.countDown();
+    }
+
+    private void readLoop(DataInputStream in) {
+        try {
+            while (!closed.get()) {
+                handler.frame(this, Frames.readFrame(in));
+            }
+        } catch (IOException e) {
+            close(e.getMessage());
+        }
+    }
+
+    private void writeLoop(DataOutputStream out) {
+        List<byte[]> batch = new ArrayList<>(WRITE_BATCH);
+        try {
+            while (!closed.get()) {
+                batch.clear();
+                batch.add(queue.take());
+                queue.drainTo(batch, WRITE_BATCH - 1);
+                for (byte[] payload : batch) {
+                    if (payload != WAKE) Frames.writeFrame(out, payload);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            close(e.getMessage());
+        } catch (InterruptedException e) {
+            close("중단됨");
+        }
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+}
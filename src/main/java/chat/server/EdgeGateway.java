@@ -0,0 +1,140 @@
+package chat.server;
+
+import chat.shared.Message;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 게이트웨이 모드 (--upstream=코어 host:port). 클라이언트 소켓과 LOGIN 코덱 협상은 여기서 맡고,
+ * LOGIN 을 포함한 모든 요청은 세션 번호를 붙여 코어로 넘긴다. 코어는 세션마다 스레드 없는 대리 ClientHandler 만 두고,
+ * 방송은 게이트웨이 링크마다 한 번 보낸다 (SessionRelay 의 DELIVER 묶기). 받은 프레임은 여기서 다시 인코딩하지 않고 나눠 준다.
+ * 코어와는 링크 links 개를 맺고 세션 번호로 나눠 쓴다 (세션 하나는 항상 같은 링크 → 순서 유지).
+ * 링크가 끊기면 그 링크의 클라이언트 접속을 끊고 (다시 접속하면 새 세션), 1초 간격으로 다시 맺는다.
+ */
+class EdgeGateway implements ClusterTransport {
+
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private final InetSocketAddress core;
+    private final AtomicReferenceArray<DuplexLink> links;
+    private final SessionRelay relay;
+    private String self;
+    private Receiver receiver;
+    private volatile boolean closed;
+
+    EdgeGateway(ChatServer server, InetSocketAddress core, int links, String name) throws IOException {
+        this.core = core;
+        this.links = new AtomicReferenceArray<>(Math.max(1, links));
+        this.relay = new SessionRelay(server, this, true);
+        relay.start(name);
+        System.out.println("[Gateway] 게이트웨이 모드: 코어 " + core + ", 링크 " + this.links.length() + "개");
+    }
+
+    // 클라이언트 요청 하나를 그 세션의 링크로
+    void forward(ClientHandler client, Message msg) {
+        int index = (int) (relay.session(client) % links.length());
+        if (links.get(index) == null) {
+            client.send(Message.error("서버에 연결되어 있지 않습니다. 잠시 후 다시 접속해 주세요."));
+            client.disconnect();
+            return;
+        }
+        relay.forward(node(index), client, msg);
+    }
+
+    void detach(ClientHandler client) {
+        relay.detach(client);
+    }
+
+    // 운영자용: "links=2/2"
+    String report() {
+        int up = 0;
+        for (int i = 0; i < links.length(); i++) {
+            DuplexLink l = links.get(i);
+            if (l != null && !l.isClosed()) up++;
+        }
+        return "links=" + up + "/" + links.length();
+    }
+
+    private static String node(int index) {
+        return "core-" + index;
+    }
+
+    // ===== ClusterTransport: 코어로 가는 링크들 =====
+
+    @Override
+    public void start(String self, Receiver receiver) {
+        this.self = self;
+        this.receiver = receiver;
+        for (int i = 0; i < links.length(); i++) {
+            int index = i;
+            Thread t = new Thread(() -> maintain(index), "upstream-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    // 링크 하나를 맺고, 끊기면 다시 맺는다
+    private void maintain(int index) {
+        String node = node(index);
+        while (!closed) {
+            try {
+                Socket socket = new Socket(core.getHostString(), core.getPort());
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                out.writeUTF(self + "/" + index);
+                out.flush();
+                DuplexLink link = new DuplexLink(socket, node, new DuplexLink.Handler() {
+                    @Override
+                    public void frame(DuplexLink l, byte[] payload) {
+                        receiver.receive(node, payload);
+                    }
+
+                    @Override
+                    public void closed(DuplexLink l, String reason) {
+                        links.compareAndSet(index, l, null);
+                        System.out.println("[Gateway] 코어 링크 " + node + " 끊김: " + reason);
+                        receiver.linkDown(node);
+                    }
+                });
+                links.set(index, link);
+                link.start(in, out);
+                System.out.println("[Gateway] 코어 링크 " + node + " 연결");
+                link.await();
+            } catch (IOException e) {
+                System.out.println("[Gateway] 코어 연결 실패(" + core + "): " + e.getMessage());
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                Thread.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void send(String node, byte[] payload) {
+        DuplexLink link = links.get(Integer.parseInt(node.substring("core-".length())));
+        if (link != null) {
+            link.send(payload);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (int i = 0; i < links.length(); i++) {
+            DuplexLink l = links.get(i);
+            if (l != null) l.close("게이트웨이 종료");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package chat.server;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Selector 하나를 소유하는 이벤트 루프 스레드.
+ * 다른 스레드에서 들어온 작업(등록, 쓰기 요청, 종료)은 큐에 넣고 wakeup 으로 깨운다.
+ */
+class EventLoop extends Thread {
+
+    private final ChatServer server;
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    EventLoop(ChatServer server, int index) throws IOException {
+        super("nio-loop-" + index);
+        setDaemon(true);
+        this.server = server;
+        this.selector = Selector.open();
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    boolean inLoop() {
+        return Thread.currentThread() == this;
+    }
+
+    // 루프 스레드에서 부른 경우에도 다음 select 가 막히지 않도록 항상 깨운다
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    void register(SocketChannel ch) {
+        execute(() -> {
+            try {
+                NioConnection conn = new NioConnection(ch, this, server);
+                conn.attach(ch.register(selector, SelectionKey.OP_READ, conn));
+            } catch (IOException e) {
+                System.out.println("[EventLoop] 등록 실패: " + e.getMessage());
+                try {
+                    ch.close();
+                } catch (IOException ignored) {
+                }
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                System.out.println("[EventLoop] select 오류: " + e.getMessage());
+                continue;
+            }
+
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    System.out.println("[EventLoop] 작업 오류: " + e);
+                }
+            }
+
+            Set<SelectionKey> selected = selector.selectedKeys();
+            try {
+                for (SelectionKey key : selected) {
+                    handle(key);
+                }
+            } finally {
+                selected.clear();
+            }
+        }
+    }
+
+    // 한 연결의 오류는 그 연결만 닫는다 (남은 키는 계속 처리).
+    // 클라이언트가 보낸 프레임 때문에 생긴 Error(스택·힙 부족)도 루프 스레드를 죽이지 않게 Throwable 로 잡는다
+    private void handle(SelectionKey key) {
+        NioConnection conn = (NioConnection) key.attachment();
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isReadable()) {
+                conn.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                conn.flush();
+            }
+        } catch (Throwable e) {
+            System.out.println("[EventLoop] 연결 처리 오류, 연결 종료: " + e);
+            try {
+                conn.close();
+            } catch (Throwable ignored) {
+            }
+        }
+    }
+}
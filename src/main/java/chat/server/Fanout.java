@@ -0,0 +1,82 @@
+package chat.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * 방송 한 건을 참가자 배열 스냅숏에 나눠 보내기.
+ * threshold 명 이상인 방은 slice 명씩 잘라 ForkJoinPool 에서 나눠 대기열에 넣고, 부른 방 작업 스레드는
+ * 첫 조각을 직접 보낸 뒤 나머지 조각이 끝날 때까지 기다린다 (다음 방송이 앞 방송을 앞지르지 않도록).
+ * 방 크기 구간(1~9, 10~99, ... 10000명 이상)별로 마지막 사본을 넣기까지 걸린 시간의 p50/p99 를 모은다.
+ */
+class Fanout {
+
+    private static final String[] SIZE_LABELS = {"1~9명", "10~99명", "100~999명", "1천~1만명", "1만명 이상"};
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final int slice;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[SIZE_LABELS.length];
+
+    Fanout(int threshold, int slice, int threads) {
+        this.pool = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("fanout-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+        this.threshold = Math.max(2, threshold);
+        this.slice = Math.max(1, slice);
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    // 걸린 시간(us)을 돌려준다 (방별 부하 통계용)
+    long deliver(SharedFrame frame, ClientHandler[] targets) {
+        long started = System.nanoTime();
+        if (targets.length < threshold) {
+            send(frame, targets, 0, targets.length);
+        } else {
+            List<ForkJoinTask<?>> rest = new ArrayList<>(targets.length / slice);
+            for (int from = slice; from < targets.length; from += slice) {
+                int lo = from;
+                int hi = Math.min(targets.length, from + slice);
+                rest.add(pool.submit(() -> send(frame, targets, lo, hi)));
+            }
+            send(frame, targets, 0, slice);
+            for (ForkJoinTask<?> t : rest) {
+                t.join();
+            }
+        }
+        long micros = (System.nanoTime() - started) / 1000;
+        record(targets.length, micros);
+        return micros;
+    }
+
+    private static void send(SharedFrame frame, ClientHandler[] targets, int from, int to) {
+        for (int i = from; i < to; i++) {
+            targets[i].send(frame);
+        }
+    }
+
+    private void record(int recipients, long micros) {
+        if (recipients == 0) return;
+        histograms[Math.min(SIZE_LABELS.length - 1, (int) Math.log10(recipients))].record(micros);
+    }
+
+    // 운영자용: "100~999명 n=.. p50=..us p99=..us" (구간 상한 기준 근삿값)
+    List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for (int size = 0; size < SIZE_LABELS.length; size++) {
+            String summary = histograms[size].summary();
+            if (summary != null) {
+                lines.add(SIZE_LABELS[size] + " " + summary);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,59 @@
+package chat.server;
+
+import chat.shared.Message;
+import chat.shared.MessageCodec;
+import chat.shared.SerialCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * 블로킹 소켓 위에서 길이 접두 프레임을 쓰는 연결.
+ * 인코딩은 보내는 쪽 스레드에서 해 두므로 코덱 전환 시점과 프레임 순서가 어긋나지 않는다.
+ * 대기열에는 SharedFrame 이 캐시한 [길이][payload] 배열을 그대로 넣는다.
+ */
+class FramedConnection extends QueuedConnection<byte[]> {
+
+    private final DataOutputStream out;
+    private volatile MessageCodec codec = SerialCodec.INSTANCE;
+
+    FramedConnection(Socket socket, ServerOptions options) throws IOException {
+        super(socket, options);
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    @Override
+    public void send(SharedFrame frame) {
+        try {
+            enqueue(frame.frameBytes(codec), frame.droppable());
+        } catch (Exception e) {
+            System.out.println("[FramedConnection] 인코딩 실패(" + socket.getRemoteSocketAddress() + "): " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected void write(byte[] frame) throws IOException {
+        out.write(frame);
+    }
+
+    @Override
+    protected void flushOut() throws IOException {
+        out.flush();
+    }
+
+    Message decode(byte[] payload) throws IOException {
+        return codec.decode(payload, 0, payload.length);
+    }
+
+    @Override
+    public boolean supportsCodec() {
+        return true;
+    }
+
+    @Override
+    public void switchCodec(MessageCodec codec) {
+        this.codec = codec;
+    }
+}
@@ -0,0 +1,108 @@
+package chat.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 코어 쪽: 게이트웨이들이 맺는 링크를 받는다. 링크 하나가 노드 하나처럼 보이고 (이름 = 게이트웨이가 밝힌 이름@포트),
+ * 그 링크로 들어온 요청의 응답·방송은 같은 링크로 돌려보낸다.
+ */
+class GatewayListener implements ClusterTransport {
+
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5000;
+
+    private final int port;
+    private final Map<String, DuplexLink> links = new ConcurrentHashMap<>();
+    private Receiver receiver;
+    private ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    GatewayListener(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public void start(String self, Receiver receiver) throws IOException {
+        this.receiver = receiver;
+        this.serverSocket = new ServerSocket(port);
+        Thread t = new Thread(this::acceptLoop, "gateway-accept");
+        t.setDaemon(true);
+        t.start();
+        System.out.println("[Gateway] 게이트웨이 링크 대기: port=" + port);
+    }
+
+    int linkCount() {
+        return links.size();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread t = new Thread(() -> handshake(socket), "gateway-handshake");
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                if (!closed) System.out.println("[Gateway] accept 오류: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handshake(Socket socket) {
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            String name = in.readUTF() + "@" + socket.getPort();
+            socket.setSoTimeout(0);
+            DuplexLink link = new DuplexLink(socket, name, new DuplexLink.Handler() {
+                @Override
+                public void frame(DuplexLink l, byte[] payload) {
+                    receiver.receive(l.name(), payload);
+                }
+
+                @Override
+                public void closed(DuplexLink l, String reason) {
+                    links.remove(l.name(), l);
+                    System.out.println("[Gateway] " + l.name() + " 링크 종료: " + reason);
+                    receiver.linkDown(l.name());
+                }
+            });
+            links.put(name, link);
+            link.start(in, out);
+            System.out.println("[Gateway] " + name + " 링크 연결");
+        } catch (IOException e) {
+            System.out.println("[Gateway] 핸드셰이크 실패(" + socket.getRemoteSocketAddress() + "): " + e.getMessage());
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public void send(String node, byte[] payload) {
+        DuplexLink link = links.get(node);
+        if (link != null) link.send(payload);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        for (DuplexLink link : links.values()) {
+            link.close("서버 종료");
+        }
+    }
+}
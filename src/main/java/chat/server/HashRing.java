@@ -0,0 +1,49 @@
+package chat.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 방 이름 → 주인 노드 (consistent hashing).
+ * 노드마다 가상 노드 VNODES 개를 링에 올려 두고, 방 이름 해시 다음에 오는 가상 노드의 주인이 방 주인이다.
+ * 노드가 하나 늘거나 줄어도 그 노드 몫의 방만 옮겨진다. 만든 뒤에는 바뀌지 않으므로 락 없이 읽는다.
+ */
+final class HashRing {
+
+    static final int VNODES = 128;
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    HashRing(Collection<String> nodes) {
+        for (String node : nodes) {
+            for (int i = 0; i < VNODES; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+        if (ring.isEmpty()) {
+            throw new IllegalArgumentException("노드가 없습니다.");
+        }
+    }
+
+    String owner(String room) {
+        Map.Entry<Long, String> e = ring.ceilingEntry(hash(room));
+        return (e != null ? e : ring.firstEntry()).getValue();
+    }
+
+    // FNV-1a 64 + murmur3 마무리 섞기 (짧은 이름도 링에 고르게)
+    static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
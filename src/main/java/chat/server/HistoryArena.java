@@ -0,0 +1,90 @@
+package chat.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 서버 전체 대화 기록용 off-heap 메모리.
+ * 시작할 때 direct ByteBuffer 하나를 잡아 방마다 같은 크기(slab)로 나눠 준다.
+ * 남는 slab 이 없으면 가장 오래 기록이 없던 방의 slab 을 회수해서 새 방에 준다
+ * (기록 메모리 총량은 옵션으로 정한 값을 넘지 않는다).
+ */
+class HistoryArena {
+
+    private final int slabBytes;
+    private final int slabCount;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private final Set<HistoryRing> holders = new HashSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    HistoryArena(long totalBytes, int slabBytes) {
+        this.slabBytes = slabBytes;
+        this.slabCount = (int) Math.max(1, Math.min(totalBytes / slabBytes, Integer.MAX_VALUE / slabBytes));
+        ByteBuffer memory = ByteBuffer.allocateDirect(slabCount * slabBytes);
+        for (int i = 0; i < slabCount; i++) {
+            memory.limit((i + 1) * slabBytes).position(i * slabBytes);
+            free.add(memory.slice());
+        }
+    }
+
+    int slabBytes() {
+        return slabBytes;
+    }
+
+    int slabCount() {
+        return slabCount;
+    }
+
+    int slabsInUse() {
+        lock.lock();
+        try {
+            return slabCount - free.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // requester 의 락을 쥔 채로 불린다. 회수 대상은 tryLock 으로만 잠가서 교착을 피한다
+    ByteBuffer acquire(HistoryRing requester) {
+        lock.lock();
+        try {
+            ByteBuffer slab = free.poll();
+            if (slab == null) {
+                List<HistoryRing> victims = new ArrayList<>(holders);
+                victims.remove(requester);
+                victims.sort(Comparator.comparingLong(HistoryRing::lastWrite));
+                for (HistoryRing victim : victims) {
+                    slab = victim.revoke(); // 지금 쓰는 중인 방은 null → 다음 후보
+                    if (slab != null) {
+                        holders.remove(victim);
+                        System.out.println("[History] 기록 메모리 부족: '" + victim.owner() + "' 방의 기록을 비우고 재사용");
+                        break;
+                    }
+                }
+                if (slab == null) {
+                    return null;
+                }
+            }
+            holders.add(requester);
+            return slab;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(HistoryRing owner, ByteBuffer slab) {
+        lock.lock();
+        try {
+            holders.remove(owner);
+            free.add(slab);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
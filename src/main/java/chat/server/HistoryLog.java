@@ -0,0 +1,142 @@
+package chat.server;
+
+import chat.shared.ImageChunks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 디스크 기록 저장소. 방마다 [기록 디렉터리]/[방 이름 hex]/ 아래에 RoomLog 세그먼트를 둔다.
+ * 정리 스레드 하나가 주기적으로 열린 방 로그를 돌며 압축·병합·보존 정책을 적용한다.
+ */
+class HistoryLog {
+
+    static final class Config {
+        final int segmentBytes;
+        final long rollMillis;
+        final long retentionMillis;
+        final long retentionBytes;
+        final int replayCount;
+
+        Config(int segmentBytes, long rollMillis, long retentionMillis, long retentionBytes, int replayCount) {
+            this.segmentBytes = segmentBytes;
+            this.rollMillis = rollMillis;
+            this.retentionMillis = retentionMillis;
+            this.retentionBytes = retentionBytes;
+            this.replayCount = replayCount;
+        }
+    }
+
+    private static final long MAINTENANCE_SECONDS = 30;
+    private static final long INFLATED_CACHE_BYTES = 16L * 1024 * 1024;
+
+    private final Path dir;
+    private final Config config;
+    private final Map<String, RoomLog> open = new ConcurrentHashMap<>();
+    // 압축 세그먼트를 푼 결과 (모든 방 공용, 세그먼트 네 개 이상은 들어가게)
+    private final InflatedSegments inflated;
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "history-maintenance");
+        t.setDaemon(true);
+        return t;
+    });
+
+    HistoryLog(Path dir, Config config) {
+        this.dir = dir;
+        this.config = config;
+        this.inflated = new InflatedSegments(Math.max(INFLATED_CACHE_BYTES, 4L * config.segmentBytes));
+        maintenance.scheduleWithFixedDelay(this::maintainAll, MAINTENANCE_SECONDS, MAINTENANCE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    RoomLog open(String room) throws IOException {
+        RoomLog log = open.get(room);
+        if (log != null) return log;
+        log = RoomLog.open(room, dir.resolve(directoryName(room)), config, this);
+        RoomLog prev = open.putIfAbsent(room, log);
+        if (prev != null) {
+            log.close();
+            return prev;
+        }
+        System.out.println("[History] 기록 열기: " + room + " (" + log.count() + "건)");
+        return log;
+    }
+
+    /**
+     * 대기 서버가 방 스냅숏을 받을 때: 열려 있던 로그를 닫고 파일을 지운 뒤 빈 로그를 연다 (스냅숏의 기록이 다시 채운다).
+     * 예전 방은 닫힌 로그를 들고 사라지므로 두 방이 로그 하나를 나눠 쓰지 않고, 다시 시작한 대기 서버도 기록을 겹쳐 쌓지 않는다.
+     * 그 방의 압축·병합과 겹치지 않도록 정리 스레드에서 실행한다.
+     */
+    RoomLog reset(String room) throws IOException {
+        try {
+            return maintenance.submit(() -> {
+                RoomLog log = open.get(room);
+                if (log != null) {
+                    log.close();
+                }
+                Path roomDir = dir.resolve(directoryName(room));
+                if (Files.isDirectory(roomDir)) {
+                    try (DirectoryStream<Path> files = Files.newDirectoryStream(roomDir)) {
+                        for (Path f : files) {
+                            Files.deleteIfExists(f);
+                        }
+                    }
+                }
+                return open(room);
+            }).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("기록 초기화 중 중단됨: " + room);
+        }
+    }
+
+    InflatedSegments inflated() {
+        return inflated;
+    }
+
+    // RoomLog.close() 에서. 파일은 그대로 두므로 같은 이름의 방이 다시 생기면 이어서 쓴다
+    void forget(RoomLog log) {
+        open.remove(log.room(), log);
+    }
+
+    void maintainAll() {
+        for (RoomLog log : open.values()) {
+            log.maintain();
+        }
+    }
+
+    int openRooms() {
+        return open.size();
+    }
+
+    long sizeOnDisk() {
+        long total = 0;
+        for (RoomLog log : open.values()) {
+            total += log.sizeOnDisk();
+        }
+        return total;
+    }
+
+    // 방 이름에는 아무 문자나 올 수 있으므로 UTF-8 hex 로 디렉터리 이름을 만든다 (너무 길면 SHA-256)
+    static String directoryName(String room) {
+        byte[] utf8 = room.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > 100) {
+            return ImageChunks.contentHash(utf8);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : utf8) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,303 @@
+package chat.server;
+
+import chat.shared.BinaryCodec;
+import chat.shared.Frames;
+import chat.shared.Message;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 방 하나의 대화 기록. HistoryArena 에서 받은 off-heap slab 에 bin1 프레임([길이][payload])을
+ * 원형으로 이어 쓴다. 추가는 O(1) 복사 한 번이고 메시지마다 힙 객체를 남기지 않으며,
+ * 자리가 모자라면 가장 오래된 기록부터 덮어쓴다.
+ * 기록을 읽을 때(입장 시)만 Message 로 디코딩한다.
+ */
+class HistoryRing implements RoomHistory {
+
+    private final String owner;
+    private final HistoryArena arena;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private ByteBuffer slab; // 아직 못 받았거나 회수당했으면 null
+    private int head;        // 다음에 쓸 위치
+    private int tail;        // 가장 오래된 기록 위치
+    private int used;
+    private int count;
+    private long nextSeq;    // 방 안에서 기록마다 붙는 번호 (메모리를 회수당해도 계속 증가)
+    private boolean closed;
+    private volatile long lastWrite = System.nanoTime();
+
+    HistoryRing(String owner, HistoryArena arena) {
+        this.owner = owner;
+        this.arena = arena;
+    }
+
+    String owner() {
+        return owner;
+    }
+
+    long lastWrite() {
+        return lastWrite;
+    }
+
+    // frame 은 SharedFrame 이 만든 bin1 프레임 (공유 배열이므로 복사만 한다)
+    @Override
+    public long append(byte[] frame) {
+        if (frame.length > arena.slabBytes()) {
+            return -1; // 방 기록 전체보다 큰 메시지는 기록하지 않음
+        }
+        lock.lock();
+        try {
+            if (closed) return -1;
+            if (slab == null) {
+                slab = arena.acquire(this);
+                if (slab == null) return -1;
+                head = tail = used = count = 0;
+            }
+            int capacity = slab.capacity();
+            while (used + frame.length > capacity) {
+                int len = Frames.HEADER_BYTES + readInt(tail);
+                tail = (tail + len) % capacity;
+                used -= len;
+                count--;
+            }
+            write(head, frame);
+            head = (head + frame.length) % capacity;
+            used += frame.length;
+            count++;
+            lastWrite = System.nanoTime();
+            return nextSeq++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 오래된 것부터. 락 안에서는 바이트 복사만 하고 디코딩은 밖에서
+    List<Message> messages() {
+        byte[] copy;
+        lock.lock();
+        try {
+            if (slab == null || used == 0) {
+                return List.of();
+            }
+            copy = new byte[used];
+            read(tail, copy, used);
+        } finally {
+            lock.unlock();
+        }
+        return decode(copy);
+    }
+
+    private List<Message> decode(byte[] copy) {
+        List<Message> out = new ArrayList<>();
+        int pos = 0;
+        while (pos < copy.length) {
+            int len = (copy[pos] & 0xFF) << 24 | (copy[pos + 1] & 0xFF) << 16
+                    | (copy[pos + 2] & 0xFF) << 8 | (copy[pos + 3] & 0xFF);
+            pos += Frames.HEADER_BYTES;
+            try {
+                out.add(BinaryCodec.INSTANCE.decode(copy, pos, len));
+            } catch (IOException e) {
+                System.out.println("[History] 기록 디코딩 실패(" + owner + "): " + e.getMessage());
+            }
+            pos += len;
+        }
+        return out;
+    }
+
+    // 버퍼에 남아 있는 기록 전부
+    @Override
+    public void replay(Consumer<Message> sink) {
+        messages().forEach(sink);
+    }
+
+    @Override
+    public long page(long beforeSeq, int max, Consumer<Message> sink) {
+        byte[] copy;
+        long first;
+        long last;
+        lock.lock();
+        try {
+            first = nextSeq - count;
+            last = nextSeq;
+            if (slab == null || used == 0) {
+                return first;
+            }
+            copy = new byte[used];
+            read(tail, copy, used);
+        } finally {
+            lock.unlock();
+        }
+        List<Message> all = decode(copy);
+        first = last - all.size(); // 디코딩 실패한 기록은 앞쪽에서 빠진 것으로 친다
+        long end = beforeSeq < 0 ? last : Math.min(beforeSeq, last);
+        long from = Math.max(first, end - max);
+        for (long seq = from; seq < end; seq++) {
+            sink.accept(all.get((int) (seq - first)));
+        }
+        return Math.min(from, end);
+    }
+
+    @Override
+    public long firstSeq() {
+        lock.lock();
+        try {
+            return nextSeq - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long nextSeq() {
+        lock.lock();
+        try {
+            return nextSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 길이만 따라가며 건너뛰고 해당 기록 하나만 복사해 디코딩
+    @Override
+    public Message get(long seq) {
+        byte[] payload;
+        lock.lock();
+        try {
+            long first = nextSeq - count;
+            if (slab == null || seq < first || seq >= nextSeq) return null;
+            int pos = tail;
+            for (long s = first; s < seq; s++) {
+                pos = (pos + Frames.HEADER_BYTES + readInt(pos)) % slab.capacity();
+            }
+            payload = new byte[readInt(pos)];
+            read((pos + Frames.HEADER_BYTES) % slab.capacity(), payload, payload.length);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            return BinaryCodec.INSTANCE.decode(payload, 0, payload.length);
+        } catch (IOException e) {
+            System.out.println("[History] 기록 디코딩 실패(" + owner + "): " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void get(long[] seqs, ObjLongConsumer<Message> sink) {
+        // 락 안에서는 tail 부터 한 번만 앞으로 걸으며 payload 만 복사한다
+        long[] found = new long[seqs.length];
+        byte[][] payloads = new byte[seqs.length][];
+        int n = 0;
+        lock.lock();
+        try {
+            if (slab == null) return;
+            long first = nextSeq - count;
+            int pos = tail;
+            long at = first;
+            for (long seq : seqs) {
+                if (seq < at || seq >= nextSeq) continue;
+                for (; at < seq; at++) {
+                    pos = (pos + Frames.HEADER_BYTES + readInt(pos)) % slab.capacity();
+                }
+                byte[] payload = new byte[readInt(pos)];
+                read((pos + Frames.HEADER_BYTES) % slab.capacity(), payload, payload.length);
+                found[n] = seq;
+                payloads[n++] = payload;
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (int i = 0; i < n; i++) {
+            try {
+                sink.accept(BinaryCodec.INSTANCE.decode(payloads[i], 0, payloads[i].length), found[i]);
+            } catch (IOException e) {
+                System.out.println("[History] 기록 디코딩 실패(" + owner + "): " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public int count() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int usedBytes() {
+        lock.lock();
+        try {
+            return used;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // arena 가 메모리를 회수할 때. 쓰는 중이면 건드리지 않고 null
+    ByteBuffer revoke() {
+        if (!lock.tryLock()) {
+            return null;
+        }
+        try {
+            ByteBuffer s = slab;
+            slab = null;
+            head = tail = used = count = 0;
+            return s;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 방이 없어질 때 slab 반납
+    @Override
+    public void close() {
+        ByteBuffer s;
+        lock.lock();
+        try {
+            closed = true;
+            s = slab;
+            slab = null;
+            used = count = 0;
+        } finally {
+            lock.unlock();
+        }
+        if (s != null) {
+            arena.release(this, s);
+        }
+    }
+
+    // ===== 원형 버퍼 접근 (끝을 넘으면 앞으로 이어짐) =====
+
+    private int readInt(int pos) {
+        int v = 0;
+        for (int i = 0; i < 4; i++) {
+            v = v << 8 | (slab.get((pos + i) % slab.capacity()) & 0xFF);
+        }
+        return v;
+    }
+
+    private void write(int pos, byte[] src) {
+        int first = Math.min(src.length, slab.capacity() - pos);
+        slab.put(pos, src, 0, first);
+        if (first < src.length) {
+            slab.put(0, src, first, src.length - first);
+        }
+    }
+
+    private void read(int pos, byte[] dst, int len) {
+        int first = Math.min(len, slab.capacity() - pos);
+        slab.get(pos, dst, 0, first);
+        if (first < len) {
+            slab.get(0, dst, first, len - first);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package chat.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 뜨거운 방 격리. 1초마다 방별 초당 메시지 수와 방송 시간(fan-out 비용)을 보고,
+ * 둘 중 하나라도 기준을 넘는 방은 전용 작업 스레드 풀로 옮겨 조용한 방들과 공용 풀을 나눠 쓰지 않게 한다.
+ * 기준의 절반 아래로 cooldown 초 동안 머문 방은 공용 풀로 돌려보낸다.
+ * 전용 풀에 있는 방끼리도 대기열이 DRAIN_BATCH·DRAIN_BUDGET 만큼씩 번갈아 실행되고,
+ * 동시에 격리하는 방 수는 maxHot 개까지라 (비용이 큰 방부터) 전용 풀이 공용 풀을 대신하지 않는다.
+ */
+class HotRooms {
+
+    private static final long TICK_MILLIS = 1000;
+
+    // 방별 지난 값과 격리 상태 (타이머 스레드에서만)
+    private static final class Sample {
+        long broadcasts;
+        long fanoutMicros;
+        boolean hot;
+        int coolTicks;
+    }
+
+    private final Executor shared;
+    private final ExecutorService hotWorkers;
+    private final Supplier<Collection<ChatRoom>> rooms;
+    private final int promoteRate;          // 초당 메시지 수
+    private final long promoteCostMicros;   // 초당 방송 시간
+    private final int cooldownTicks;
+    private final int maxHot;
+    private Map<ChatRoom, Sample> samples = new IdentityHashMap<>();
+    private volatile List<String> hotNames = List.of();
+
+    HotRooms(Executor shared, Supplier<Collection<ChatRoom>> rooms, ScheduledExecutorService timer, ServerOptions options) {
+        this.shared = shared;
+        this.rooms = rooms;
+        this.hotWorkers = Executors.newFixedThreadPool(options.hotThreads, VirtualThreads.platform("hot-room-"));
+        this.promoteRate = options.hotRate;
+        this.promoteCostMicros = options.hotCostMillis * 1000L;
+        this.cooldownTicks = options.hotCooldownSeconds;
+        this.maxHot = options.hotMax;
+        timer.scheduleWithFixedDelay(this::check, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void check() {
+        try {
+            Map<ChatRoom, Sample> next = new IdentityHashMap<>();
+            List<ChatRoom> candidates = new ArrayList<>();
+            Map<ChatRoom, long[]> load = new IdentityHashMap<>(); // 방 → {초당 메시지, 초당 방송 us}
+            for (ChatRoom room : rooms.get()) {
+                Sample s = samples.get(room);
+                long broadcasts = room.broadcasts();
+                long micros = room.fanoutMicros();
+                if (s == null) {
+                    s = new Sample();
+                } else {
+                    long[] l = {broadcasts - s.broadcasts, micros - s.fanoutMicros};
+                    load.put(room, l);
+                    if (l[0] >= promoteRate || l[1] >= promoteCostMicros) {
+                        candidates.add(room);
+                    }
+                }
+                s.broadcasts = broadcasts;
+                s.fanoutMicros = micros;
+                next.put(room, s);
+            }
+            samples = next;
+
+            int hot = 0;
+            for (Map.Entry<ChatRoom, Sample> e : next.entrySet()) {
+                Sample s = e.getValue();
+                if (!s.hot) continue;
+                long[] l = load.get(e.getKey());
+                if (l != null && (l[0] >= promoteRate / 2 || l[1] >= promoteCostMicros / 2)) {
+                    s.coolTicks = 0;
+                } else if (++s.coolTicks >= cooldownTicks) {
+                    s.hot = false;
+                    e.getKey().moveTo(shared);
+                    System.out.println("[Room:" + e.getKey().getName() + "] 부하가 줄어 공용 작업 스레드로 돌아갑니다.");
+                    continue;
+                }
+                hot++;
+            }
+
+            // 비용이 큰 방부터, 전용 풀 자리가 남는 만큼
+            candidates.sort((a, b) -> Long.compare(load.get(b)[1], load.get(a)[1]));
+            for (ChatRoom room : candidates) {
+                Sample s = next.get(room);
+                if (s.hot || room.isClosed()) continue;
+                if (hot >= maxHot) break;
+                s.hot = true;
+                s.coolTicks = 0;
+                hot++;
+                room.moveTo(hotWorkers);
+                long[] l = load.get(room);
+                System.out.println("[Room:" + room.getName() + "] 뜨거운 방: 초당 " + l[0] + "건, 방송 "
+                        + l[1] / 1000 + "ms/s → 전용 작업 스레드로 옮깁니다.");
+            }
+
+            List<String> names = new ArrayList<>();
+            for (Map.Entry<ChatRoom, Sample> e : next.entrySet()) {
+                if (e.getValue().hot) names.add(e.getKey().getName());
+            }
+            hotNames = names;
+        } catch (RuntimeException e) {
+            System.out.println("[Server] 뜨거운 방 확인 중 오류: " + e);
+        }
+    }
+
+    // 운영자용: 지금 전용 풀에 있는 방
+    List<String> hotRooms() {
+        return hotNames;
+    }
+}
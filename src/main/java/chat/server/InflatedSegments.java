@@ -0,0 +1,96 @@
+package chat.server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 압축 세그먼트를 푼 결과. 모든 방이 같이 쓰고, 최근에 읽은 것부터 budget 바이트까지만 둔다.
+ * 오래된 기록을 넘겨 볼 때 페이지·검색 결과마다 같은 세그먼트를 다시 풀지 않도록.
+ * 병합된 세그먼트는 앞부분이 그대로이므로, 기록이 더 많이 들어 있는 결과는 적은 기록을 찾는 데 그대로 쓴다.
+ */
+class InflatedSegments {
+
+    static final class Entry {
+        final int count;
+        final byte[] raw;
+
+        Entry(int count, byte[] raw) {
+            this.count = count;
+            this.raw = raw;
+        }
+    }
+
+    private final long budget;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<RoomLog.Segment, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    InflatedSegments(long budget) {
+        this.budget = budget;
+    }
+
+    // 기록이 count 건 이상 들어 있는 결과. 없으면 null
+    Entry get(RoomLog.Segment segment, int count) {
+        lock.lock();
+        try {
+            Entry e = entries.get(segment);
+            if (e != null && e.count >= count) {
+                hits++;
+                return e;
+            }
+            misses++;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(RoomLog.Segment segment, Entry entry) {
+        if (entry.raw.length > budget / 2) return; // 하나가 대부분을 차지하면 두지 않는다
+        lock.lock();
+        try {
+            Entry old = entries.get(segment);
+            if (old != null && old.count >= entry.count) return;
+            if (old != null) {
+                bytes -= old.raw.length;
+            }
+            entries.put(segment, entry);
+            bytes += entry.raw.length;
+            Iterator<Map.Entry<RoomLog.Segment, Entry>> it = entries.entrySet().iterator();
+            while (bytes > budget && it.hasNext()) {
+                Map.Entry<RoomLog.Segment, Entry> eldest = it.next();
+                bytes -= eldest.getValue().raw.length;
+                it.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 세그먼트가 지워졌거나 방 기록이 닫힘
+    void evict(RoomLog.Segment segment) {
+        lock.lock();
+        try {
+            Entry old = entries.remove(segment);
+            if (old != null) {
+                bytes -= old.raw.length;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 운영자용: "3 (5120KB), hit 120/miss 4"
+    String report() {
+        lock.lock();
+        try {
+            return entries.size() + " (" + bytes / 1024 + "KB), hit " + hits + "/miss " + misses;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package chat.server;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 락 없는 지연 시간 히스토그램 (us). 구간은 2^(i/4) us 라 구간마다 약 19% 차이, 최대 약 2^24us = 16초.
+ * 백분위는 구간 상한 기준 근삿값.
+ */
+final class LatencyHistogram {
+
+    private static final int BUCKETS = 97;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long micros) {
+        int bucket = Math.min(BUCKETS - 1, (int) (4 * Math.log(Math.max(0, micros) + 1) / Math.log(2)));
+        counts.incrementAndGet(bucket);
+    }
+
+    long count() {
+        long n = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            n += counts.get(b);
+        }
+        return n;
+    }
+
+    long percentile(double p) {
+        long rank = (long) Math.ceil(count() * p);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) {
+                return Math.round(Math.pow(2, (b + 1) / 4.0)) - 1;
+            }
+        }
+        return -1;
+    }
+
+    // "n=.. p50=..us p99=..us" (기록이 없으면 null)
+    String summary() {
+        long n = count();
+        if (n == 0) return null;
+        return "n=" + n + " p50=" + percentile(0.50) + "us p99=" + percentile(0.99) + "us";
+    }
+
+    // 프로세스 사이 지연을 잴 때: nanoTime 대신 벽시계 (한 장비 안에서는 같은 시계)
+    static long epochMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+}
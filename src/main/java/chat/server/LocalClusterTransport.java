@@ -0,0 +1,62 @@
+package chat.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 한 JVM 안에 ChatServer 여러 개를 띄워 클러스터를 흉내 낼 때 쓰는 링크.
+ * 노드마다 받는 스레드가 하나라 보낸 순서대로 도착하고, 바이트는 복사하지 않고 넘긴다.
+ */
+class LocalClusterTransport implements ClusterTransport {
+
+    private static final Map<String, LocalClusterTransport> NODES = new ConcurrentHashMap<>();
+
+    private String self;
+    private Receiver receiver;
+    private ExecutorService inbound;
+
+    @Override
+    public void start(String self, Receiver receiver) {
+        this.self = self;
+        this.receiver = receiver;
+        this.inbound = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "cluster-local-" + self);
+            t.setDaemon(true);
+            return t;
+        });
+        if (NODES.putIfAbsent(self, this) != null) {
+            throw new IllegalStateException("이미 있는 노드: " + self);
+        }
+    }
+
+    @Override
+    public void send(String node, byte[] payload) {
+        LocalClusterTransport peer = NODES.get(node);
+        if (peer == null) {
+            System.out.println("[Cluster] 노드 " + node + " 가 없어 메시지를 버립니다.");
+            return;
+        }
+        peer.deliver(() -> peer.receiver.receive(self, payload));
+    }
+
+    private void deliver(Runnable task) {
+        try {
+            inbound.execute(task);
+        } catch (RejectedExecutionException ignored) {
+            // 닫힌 노드
+        }
+    }
+
+    @Override
+    public void close() {
+        if (NODES.remove(self, this)) {
+            for (LocalClusterTransport peer : NODES.values()) {
+                peer.deliver(() -> peer.receiver.linkDown(self));
+            }
+        }
+        inbound.shutdown();
+    }
+}
@@ -0,0 +1,73 @@
+package chat.server;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 한 JVM 안의 서버들이 나눠 쓰는 발행/구독 통로. 토픽 락 안에서 번호를 매기고 구독자에게 바로 넘긴다
+ * (구독자는 방 작업 대기열에 넣기만 하므로 락을 오래 잡지 않는다).
+ */
+class MemoryBackplane implements Backplane {
+
+    private static final MemoryBackplane SHARED = new MemoryBackplane();
+
+    private static final class Topic {
+        final ReentrantLock lock = new ReentrantLock();
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        long seq;
+    }
+
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+
+    // --backplane=memory 인 서버들은 모두 이 인스턴스를 쓴다
+    static MemoryBackplane shared() {
+        return SHARED;
+    }
+
+    @Override
+    public void subscribe(String topic, Subscriber subscriber) {
+        Topic t = topics.computeIfAbsent(topic, k -> new Topic());
+        t.lock.lock();
+        try {
+            t.subscribers.add(subscriber);
+        } finally {
+            t.lock.unlock();
+        }
+    }
+
+    // 구독자가 없어진 토픽도 번호는 남겨 둔다 (다시 구독한 노드가 같은 방의 번호를 이어서 받게)
+    @Override
+    public void unsubscribe(String topic, Subscriber subscriber) {
+        Topic t = topics.get(topic);
+        if (t == null) return;
+        t.lock.lock();
+        try {
+            t.subscribers.remove(subscriber);
+        } finally {
+            t.lock.unlock();
+        }
+    }
+
+    @Override
+    public void publish(String topic, byte[] payload) {
+        Topic t = topics.get(topic);
+        if (t == null) return;
+        t.lock.lock();
+        try {
+            if (t.subscribers.isEmpty()) return;
+            long seq = ++t.seq;
+            for (Subscriber s : t.subscribers) {
+                s.deliver(topic, seq, payload);
+            }
+        } finally {
+            t.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,275 @@
+package chat.server;
+
+import chat.shared.Frames;
+import chat.shared.Message;
+import chat.shared.MessageCodec;
+import chat.shared.SerialCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 리액터 위의 접속 한 건.
+ * 읽기/쓰기는 소유 EventLoop 스레드에서만 일어나고, send() 는 어느 스레드에서든 호출할 수 있다.
+ * 쌓인 프레임은 gathering write 로 한 번의 write 호출에 묶어서 내보낸다.
+ * 대기열은 OutboundQueue 로 제한되며, 넘치면 서버 정책에 따라 버리거나 연결을 끊는다.
+ */
+class NioConnection implements Connection {
+
+    private static final int INITIAL_READ_BUFFER = 64 * 1024;
+    // 로그인 전에 받는 프레임(LOGIN, RESUME) 한도. 헤더만 보내고 버티는 연결이 큰 버퍼를 잡지 못하게
+    private static final int MAX_FRAME_BEFORE_LOGIN = INITIAL_READ_BUFFER;
+    private static final int MAX_GATHER = 64;
+
+    private final SocketChannel channel;
+    private final EventLoop loop;
+    private final ChatServer server;
+    private final ClientHandler handler;
+
+    private SelectionKey key;
+    private ByteBuffer readBuf = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+    private boolean handshakeDone;
+    private volatile MessageCodec codec = SerialCodec.INSTANCE;
+
+    // 다른 스레드가 넣는 큐 → 루프 스레드가 inflight 로 옮겨 쓴다
+    private final OutboundQueue<ByteBuffer> pending;
+    private final ArrayDeque<ByteBuffer> inflight = new ArrayDeque<>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    // 다른 스레드의 send 가 루프에 flush 를 이미 예약해 두었는지 (방송 한 번에 작업·wakeup 한 번씩만)
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    NioConnection(SocketChannel channel, EventLoop loop, ChatServer server) {
+        this.channel = channel;
+        this.loop = loop;
+        this.server = server;
+        this.pending = new OutboundQueue<>(server.options().outboundCapacity, server.options().overflowPolicy);
+        this.handler = new ClientHandler(this, server);
+    }
+
+    void attach(SelectionKey key) {
+        this.key = key;
+    }
+
+    @Override
+    public void send(SharedFrame shared) {
+        if (closed) return;
+        ByteBuffer frame;
+        try {
+            // 공유 배열을 감싸기만 한다 (position 은 연결마다 독립)
+            frame = ByteBuffer.wrap(shared.frameBytes(codec));
+        } catch (IOException e) {
+            System.out.println("[NioConnection] 인코딩 실패(" + handler.getNickname() + "): " + e.getMessage());
+            return;
+        }
+        if (!pending.offer(frame, shared.droppable())) {
+            System.out.println("[Server] 송신 대기열 초과로 연결 종료(" + handler.getNickname()
+                    + ", depth=" + pending.depth() + ", policy=" + pending.policy() + ")");
+            close();
+            return;
+        }
+
+        if (loop.inLoop()) {
+            flush();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            loop.execute(this::scheduledFlush);
+        }
+    }
+
+    // 예약 표시를 먼저 내리고 비운다: 그 뒤에 들어온 프레임은 새 예약이 맡는다
+    private void scheduledFlush() {
+        flushScheduled.set(false);
+        flush();
+    }
+
+    @Override
+    public OutboundQueue<?> outbound() {
+        return pending;
+    }
+
+    @Override
+    public boolean supportsCodec() {
+        return true;
+    }
+
+    @Override
+    public void switchCodec(MessageCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public boolean sharedReader() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (loop.inLoop()) {
+            closeNow();
+        } else {
+            loop.execute(this::closeNow);
+        }
+    }
+
+    // ===== 이하 루프 스레드 전용 =====
+
+    void onReadable() {
+        try {
+            int n = channel.read(readBuf);
+            if (n < 0) {
+                closeNow();
+                return;
+            }
+            readBuf.flip();
+            if (!handshakeDone && !readHandshake()) {
+                readBuf.compact();
+                return;
+            }
+            readFrames();
+            if (readBuf.capacity() > INITIAL_READ_BUFFER && !pendingLargeFrame()) {
+                // 큰 프레임을 다 읽었으면 남은 바이트만 옮겨 처음 크기로 돌아간다
+                readBuf = ByteBuffer.allocate(INITIAL_READ_BUFFER).put(readBuf);
+            } else {
+                readBuf.compact();
+            }
+        } catch (IOException e) {
+            System.out.println("[NioConnection] 읽기 오류(" + handler.getNickname() + "): " + e.getMessage());
+            closeNow();
+        }
+    }
+
+    // MAGIC 확인. 예전 직렬화 스트림이면 블로킹 ClientHandler 스레드로 넘긴다
+    private boolean readHandshake() throws IOException {
+        if (readBuf.remaining() >= 2
+                && Frames.isLegacyStream(readBuf.get(readBuf.position()), readBuf.get(readBuf.position() + 1))) {
+            handOffLegacy();
+            return false;
+        }
+        if (readBuf.remaining() < Frames.HEADER_BYTES) {
+            return false;
+        }
+        if (readBuf.getInt() != Frames.MAGIC) {
+            throw new IOException("알 수 없는 프로토콜");
+        }
+        handshakeDone = true;
+        return true;
+    }
+
+    private void readFrames() throws IOException {
+        while (!closed && readBuf.remaining() >= Frames.HEADER_BYTES) {
+            int len = readBuf.getInt(readBuf.position());
+            Frames.checkLength(len);
+            if (handler.getNickname() == null && len > MAX_FRAME_BEFORE_LOGIN) {
+                throw new IOException("로그인 전 프레임이 너무 큽니다: " + len);
+            }
+            if (readBuf.remaining() < Frames.HEADER_BYTES + len) {
+                grow(Frames.HEADER_BYTES + len);
+                return;
+            }
+            readBuf.position(readBuf.position() + Frames.HEADER_BYTES);
+            Message msg = codec.decode(readBuf.array(), readBuf.arrayOffset() + readBuf.position(), len);
+            readBuf.position(readBuf.position() + len);
+            handler.receive(msg);
+        }
+    }
+
+    // 큰 프레임(이미지 등)은 받은 만큼만 키운다: 덜 받은 프레임이 버퍼를 꽉 채웠을 때만 두 배로 (frameBytes 까지).
+    // 길이 헤더만 보고 미리 다 잡지 않는다. readBuf 는 flip 된 상태
+    private void grow(int frameBytes) {
+        if (readBuf.remaining() < readBuf.capacity() || frameBytes <= readBuf.capacity()) return;
+        ByteBuffer bigger = ByteBuffer.allocate((int) Math.min(frameBytes, 2L * readBuf.capacity()));
+        bigger.put(readBuf);
+        bigger.flip();
+        readBuf = bigger;
+    }
+
+    // 받는 중인 프레임이 처음 크기 버퍼에 들어가지 않는지. readBuf 는 flip 된 상태
+    private boolean pendingLargeFrame() {
+        if (readBuf.remaining() < Frames.HEADER_BYTES) return false;
+        return Frames.HEADER_BYTES + (long) readBuf.getInt(readBuf.position()) > INITIAL_READ_BUFFER;
+    }
+
+    private void handOffLegacy() {
+        byte[] preread = new byte[readBuf.remaining()];
+        readBuf.get(preread);
+        closed = true;
+        key.cancel();
+        // 취소된 키는 다음 select 에서 해제되므로, 블로킹 전환은 그 뒤에 수행
+        loop.execute(() -> {
+            try {
+                channel.configureBlocking(true);
+                ClientHandler legacy = new ClientHandler(channel.socket(), preread, server);
+                legacy.start();
+                System.out.println("[Server] 예전 프로토콜 클라이언트를 스레드 방식으로 전환: " + channel.getRemoteAddress());
+            } catch (IOException e) {
+                System.out.println("[NioConnection] 전환 실패: " + e.getMessage());
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        });
+    }
+
+    void flush() {
+        if (closed) return;
+        try {
+            while (true) {
+                ByteBuffer b;
+                while (inflight.size() < MAX_GATHER && (b = pending.poll()) != null) {
+                    inflight.add(b);
+                }
+                if (inflight.isEmpty()) {
+                    break;
+                }
+                int n = 0;
+                for (ByteBuffer buf : inflight) {
+                    gather[n++] = buf;
+                    if (n == MAX_GATHER) break;
+                }
+                channel.write(gather, 0, n);
+                while (!inflight.isEmpty() && !inflight.peek().hasRemaining()) {
+                    inflight.poll();
+                }
+                if (!inflight.isEmpty()) {
+                    break; // 소켓 송신 버퍼가 찼음 → OP_WRITE 로 이어서
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("[NioConnection] 쓰기 오류(" + handler.getNickname() + "): " + e.getMessage());
+            closeNow();
+            return;
+        } finally {
+            java.util.Arrays.fill(gather, null);
+        }
+
+        if (key.isValid()) {
+            int ops = inflight.isEmpty()
+                    ? SelectionKey.OP_READ
+                    : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+            if (key.interestOps() != ops) {
+                key.interestOps(ops);
+            }
+        }
+    }
+
+    private void closeNow() {
+        if (closed) return;
+        closed = true;
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        pending.close(true);
+        inflight.clear();
+        handler.disconnect();
+    }
+}
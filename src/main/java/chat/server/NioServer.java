@@ -0,0 +1,80 @@
+package chat.server;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Selector 기반 리액터 서버.
+ * accept 는 호출 스레드에서 처리하고, 접속은 고정 개수의 EventLoop 에 라운드로빈으로 분배한다.
+ * 접속마다 스레드를 만들지 않으므로 동시 접속 수가 스레드 수에 묶이지 않는다.
+ */
+public class NioServer {
+
+    private final ChatServer server;
+    private final int port;
+    private final EventLoop[] loops;
+    private ServerSocketChannel channel; // bind() 가 연 서버 소켓
+    private int next;
+
+    public NioServer(ChatServer server, int port, int loopCount) {
+        this.server = server;
+        this.port = port;
+        this.loops = new EventLoop[Math.max(1, loopCount)];
+    }
+
+    // 승격하는 대기 서버는 주 서버가 포트를 놓을 때까지 다시 시도 (블로킹 방식의 ChatServerMain.bind 와 같음)
+    public void bind(boolean retry) throws IOException {
+        while (true) {
+            ServerSocketChannel ch = ServerSocketChannel.open();
+            try {
+                ch.bind(new InetSocketAddress(port));
+                channel = ch;
+                return;
+            } catch (BindException e) {
+                ch.close();
+                if (!retry) throw e;
+                try {
+                    Thread.sleep(ChatServerMain.BIND_RETRY_MILLIS);
+                } catch (InterruptedException ie) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public void run() throws IOException {
+        if (channel == null) {
+            bind(false);
+        }
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(server, i);
+            loops[i].start();
+        }
+
+        try (Selector selector = Selector.open();
+             ServerSocketChannel ssc = channel) {
+            ssc.configureBlocking(false);
+            ssc.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("[Server] NIO 채팅 서버 시작: port=" + port + ", loops=" + loops.length);
+
+            while (true) {
+                selector.select();
+                selector.selectedKeys().clear();
+
+                SocketChannel ch;
+                while ((ch = ssc.accept()) != null) {
+                    System.out.println("[Server] 새 클라이언트 접속: " + ch.getRemoteAddress());
+                    ch.configureBlocking(false);
+                    ch.socket().setTcpNoDelay(true);
+                    loops[next].register(ch);
+                    next = (next + 1) % loops.length;
+                }
+            }
+        }
+    }
+}
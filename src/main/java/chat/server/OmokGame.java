@@ -1,13 +1,19 @@
 package chat.server;
 
 import chat.shared.Message;
+import chat.shared.WireReader;
+import chat.shared.WireWriter;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
  * 채팅방 단위 오목 게임 상태를 관리한다.
  * 서버가 룰을 판정하고 상태 스냅샷을 브로드캐스트한다.
+ * 방 작업 대기열(RoomMailbox) 안에서만 호출되므로 따로 락을 잡지 않는다.
  */
 public class OmokGame {
 
@@ -30,7 +36,24 @@ public class OmokGame {
         this.room = room;
     }
 
-    public synchronized void joinAsPlayer(String nickname) {
+    /**
+     * 클라이언트 요청 하나 적용. 서버와 대기 서버(복제)가 같은 경로를 타야 결과가 같다.
+     * 규칙 위반이면 예외 (상태는 바뀌지 않음), 모르는 동작이면 false.
+     */
+    boolean apply(Message.GameAction action, String nickname, int x, int y) {
+        switch (action) {
+            case REQUEST_JOIN_PLAYER -> joinAsPlayer(nickname);
+            case REQUEST_SPECTATOR -> joinAsSpectator(nickname);
+            case MOVE -> placeStone(nickname, x, y);
+            case RESIGN -> resign(nickname);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void joinAsPlayer(String nickname) {
         if (finished) reset();
 
         // 이미 플레이어라면 그대로 유지
@@ -58,14 +81,14 @@ public class OmokGame {
         }
     }
 
-    public synchronized boolean joinAsSpectator(String nickname) {
+    public boolean joinAsSpectator(String nickname) {
         if (nickname.equals(blackPlayer) || nickname.equals(whitePlayer)) {
             return false;
         }
         return spectators.add(nickname);
     }
 
-    public synchronized void resign(String nickname) {
+    public void resign(String nickname) {
         if (finished) return;
         if (!nickname.equals(blackPlayer) && !nickname.equals(whitePlayer)) {
             return;
@@ -75,7 +98,7 @@ public class OmokGame {
         resultReason = "RESIGN";
     }
 
-    public synchronized void placeStone(String nickname, int x, int y) {
+    public void placeStone(String nickname, int x, int y) {
         validateInRange(x, y);
         if (finished) {
             throw new IllegalStateException("이미 종료된 게임입니다.");
@@ -109,7 +132,7 @@ public class OmokGame {
         }
     }
 
-    public synchronized Message toStateMessage() {
+    public Message toStateMessage() {
         // 보드 복사본 제공
         int[][] snapshot = new int[BOARD_SIZE][BOARD_SIZE];
         for (int i = 0; i < BOARD_SIZE; i++) {
@@ -131,7 +154,7 @@ public class OmokGame {
         );
     }
 
-    public synchronized void onUserLeft(String nickname) {
+    public void onUserLeft(String nickname) {
         // 플레이어가 나가면 결과 없이 게임 상태 초기화
         if (nickname.equals(blackPlayer) || nickname.equals(whitePlayer)) {
             reset();
@@ -141,18 +164,58 @@ public class OmokGame {
         spectators.remove(nickname);
     }
 
-    public synchronized boolean isPlayer(String nickname) {
+    public boolean isPlayer(String nickname) {
         return nickname != null && (nickname.equals(blackPlayer) || nickname.equals(whitePlayer));
     }
 
-    public synchronized boolean hasPlayers() {
+    public boolean hasPlayers() {
         return blackPlayer != null || whitePlayer != null;
     }
 
-    public synchronized boolean isFinished() {
+    // 방 목록에 보여줄 상태
+    public Message.RoomGame status() {
+        if (finished) return Message.RoomGame.FINISHED;
+        if (currentTurn != null) return Message.RoomGame.PLAYING;
+        return hasPlayers() ? Message.RoomGame.WAITING : Message.RoomGame.NONE;
+    }
+
+    public boolean isFinished() {
         return finished;
     }
 
+    // 복제 스냅숏: 판·플레이어·차례·결과·관전자 전부
+    void writeState(WireWriter w) {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                w.writeByte(board[i][j]);
+            }
+        }
+        w.writeString(blackPlayer);
+        w.writeString(whitePlayer);
+        w.writeString(currentTurn);
+        w.writeByte(finished ? 1 : 0);
+        w.writeString(winner);
+        w.writeString(resultReason);
+        w.writeStrings(new ArrayList<>(spectators));
+    }
+
+    void readState(WireReader r) throws IOException {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                board[i][j] = r.readByte();
+            }
+        }
+        blackPlayer = r.readString();
+        whitePlayer = r.readString();
+        currentTurn = r.readString();
+        finished = r.readByte() == 1;
+        winner = r.readString();
+        resultReason = r.readString();
+        spectators.clear();
+        List<String> list = r.readStrings();
+        if (list != null) spectators.addAll(list);
+    }
+
     private void validateInRange(int x, int y) {
         if (x < 0 || y < 0 || x >= BOARD_SIZE || y >= BOARD_SIZE) {
             throw new IllegalArgumentException("좌표가 범위를 벗어났습니다.");
@@ -0,0 +1,193 @@
+package chat.server;
+
+import chat.shared.Message;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 접속 하나의 송신 대기열. 보내는 쪽(다른 참가자의 스레드)은 넣기만 하고 바로 돌아가며,
+ * 실제 소켓 쓰기는 연결의 writer(블로킹 모드는 전용 스레드, NIO 는 이벤트 루프)가 한다.
+ * 가득 차면 OverflowPolicy 에 따라 오래된 항목/채팅을 버리거나 연결을 끊는다.
+ */
+class OutboundQueue<T> {
+
+    enum OverflowPolicy {
+        DROP_OLDEST,    // 가장 오래된 항목부터 버림
+        DROP_CHAT,      // 채팅/이미지만 버리고 게임·시스템 이벤트는 유지
+        DISCONNECT      // 느린 클라이언트는 끊음
+    }
+
+    private static final class Entry<T> {
+        final T item;
+        final boolean droppable;
+
+        Entry(T item, boolean droppable) {
+            this.item = item;
+            this.droppable = droppable;
+        }
+    }
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final ArrayDeque<Entry<T>> entries = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private boolean closed;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile int highWater;
+
+    OutboundQueue(int capacity, OverflowPolicy policy) {
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+    }
+
+    // 버려도 되는(최신 상태로 대체되지 않는 일회성) 메시지인지
+    static boolean isDroppable(Message m) {
+        return m.getType() == Message.Type.CHAT
+                || m.getType() == Message.Type.IMAGE
+                || m.getType() == Message.Type.IMAGE_CHUNK
+                || m.getType() == Message.Type.IMAGE_REF;
+    }
+
+    /**
+     * @return false 면 정책상 연결을 끊어야 한다
+     */
+    boolean offer(T item, boolean droppable) {
+        lock.lock();
+        try {
+            if (closed) return true;
+            if (entries.size() >= capacity && !makeRoom()) {
+                if (policy == OverflowPolicy.DISCONNECT || !droppable) {
+                    return false;
+                }
+                // DROP_CHAT 인데 버릴 채팅이 없고 새 항목도 채팅이면 새 항목을 버린다
+                dropped.incrementAndGet();
+                return true;
+            }
+            entries.add(new Entry<>(item, droppable));
+            enqueued.incrementAndGet();
+            if (entries.size() > highWater) {
+                highWater = entries.size();
+            }
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean makeRoom() {
+        switch (policy) {
+            case DROP_OLDEST -> {
+                entries.poll();
+                dropped.incrementAndGet();
+                return true;
+            }
+            case DROP_CHAT -> {
+                for (Iterator<Entry<T>> it = entries.iterator(); it.hasNext(); ) {
+                    if (it.next().droppable) {
+                        it.remove();
+                        dropped.incrementAndGet();
+                        return true;
+                    }
+                }
+                return false;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    T poll() {
+        lock.lock();
+        try {
+            Entry<T> e = entries.poll();
+            return e == null ? null : e.item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // writer 스레드용: 하나 이상 들어올 때까지 기다렸다가 최대 max 개를 꺼낸다.
+    // 닫힌 뒤에도 남은 항목은 끝까지 내주고, 비었으면 0
+    int takeBatch(List<T> out, int max, long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (entries.isEmpty() && !closed) {
+                if (nanos <= 0) return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = 0;
+            while (n < max && !entries.isEmpty()) {
+                out.add(entries.poll().item);
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 더 이상 받지 않는다. 이미 들어온 항목은 writer 가 마저 보낸다 (discard=true 면 버림)
+    void close(boolean discard) {
+        lock.lock();
+        try {
+            closed = true;
+            if (discard) {
+                entries.clear();
+            }
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 닫혔고 남은 항목도 없으면 writer 종료
+    boolean isDrained() {
+        lock.lock();
+        try {
+            return closed && entries.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int depth() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    OverflowPolicy policy() {
+        return policy;
+    }
+
+    long enqueued() {
+        return enqueued.get();
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    int highWater() {
+        return highWater;
+    }
+}
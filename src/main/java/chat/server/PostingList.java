@@ -0,0 +1,211 @@
+package chat.server;
+
+import java.util.Arrays;
+
+/**
+ * 토큰 하나의 posting 목록. 문서 번호(기록 번호)는 늘어나는 순서로만 들어오므로
+ * [앞 문서와의 차이 varint][점수 1바이트] 를 byte[] 하나에 이어 쓴다 (보통 posting 당 2~3바이트).
+ * 점수(impact)는 색인할 때 tf 와 기록 길이로 미리 계산해 둔 BM25 값(idf 제외)을 0~255 로 양자화한 것이다.
+ * SKIP_INTERVAL 건을 한 블록으로 보고 블록마다 시작 지점과 최대 점수를 남겨서,
+ * 교집합 계산 때 필요한 곳부터 풀고 순위에 들 수 없는 블록은 풀지 않고 건너뛸 수 있게 한다.
+ * 쓰기는 색인 스레드 하나만, 읽기는 RoomIndex 의 읽기 락 안에서.
+ */
+final class PostingList {
+
+    static final int SKIP_INTERVAL = 64;
+
+    private byte[] data = new byte[16];
+    private int size;
+    private int count;
+    private long lastDoc = -1;
+
+    // 건너뛰기 지점: 그 위치 직전 문서 번호(차이 계산 기준)와 바이트 위치
+    private long[] skipBase = new long[0];
+    private int[] skipPos = new int[0];
+    private int skips;
+
+    // 블록마다 최대 점수
+    private byte[] blockMax = new byte[1];
+
+    int count() {
+        return count;
+    }
+
+    long lastDoc() {
+        return lastDoc;
+    }
+
+    void add(long doc, int impact) {
+        if (count > 0 && count % SKIP_INTERVAL == 0) {
+            if (skips == skipBase.length) {
+                skipBase = Arrays.copyOf(skipBase, Math.max(4, skips * 2));
+                skipPos = Arrays.copyOf(skipPos, Math.max(4, skips * 2));
+            }
+            skipBase[skips] = lastDoc;
+            skipPos[skips] = size;
+            skips++;
+        }
+        int block = count / SKIP_INTERVAL;
+        if (block == blockMax.length) {
+            blockMax = Arrays.copyOf(blockMax, blockMax.length * 2);
+        }
+        if (count % SKIP_INTERVAL == 0 || impact > (blockMax[block] & 0xFF)) {
+            blockMax[block] = (byte) impact;
+        }
+
+        ensure(11);
+        long delta = doc - lastDoc;
+        while ((delta & ~0x7FL) != 0) {
+            data[size++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[size++] = (byte) delta;
+        data[size++] = (byte) impact;
+        lastDoc = doc;
+        count++;
+    }
+
+    int blockCount() {
+        return (count + SKIP_INTERVAL - 1) / SKIP_INTERVAL;
+    }
+
+    int blockMax(int block) {
+        return blockMax[block] & 0xFF;
+    }
+
+    // 블록의 첫 문서는 이 번호보다 크다
+    long blockBase(int block) {
+        return block == 0 ? -1 : skipBase[block - 1];
+    }
+
+    // 블록의 마지막 문서 = 다음 블록의 기준 번호
+    long blockLastDoc(int block) {
+        return block < skips ? skipBase[block] : lastDoc;
+    }
+
+    // 문서 번호 (after, last] 구간에 걸친 블록들의 최대 점수 (다른 토큰 블록 범위의 상한 계산용)
+    int maxBetween(long after, long last) {
+        int from = skipsBefore(after + 1);
+        int to = Math.min(skipsBefore(last), blockCount() - 1);
+        int max = 0;
+        for (int k = from; k <= to; k++) {
+            max = Math.max(max, blockMax(k));
+        }
+        return max;
+    }
+
+    // 기준 번호가 doc 미만인 건너뛰기 지점 수 = doc 이 들어 있을 수 있는 블록 번호
+    private int skipsBefore(long doc) {
+        int lo = 0, hi = skips;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (skipBase[mid] < doc) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // minDoc 이전 posting 을 뺀 새 목록 (남는 게 없으면 null)
+    PostingList trimmed(long minDoc) {
+        PostingList out = new PostingList();
+        Cursor c = cursor();
+        if (c.advance(minDoc)) {
+            do {
+                out.add(c.doc(), c.impact());
+            } while (c.next());
+        }
+        if (out.count == 0) return null;
+        out.data = Arrays.copyOf(out.data, out.size);
+        return out;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(size + extra, data.length + (data.length >> 1)));
+        }
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /** 앞에서부터 한 건씩. 처음엔 아무 문서도 가리키지 않는다 */
+    final class Cursor {
+        private final byte[] buf = data;
+        private final int end = size;
+        private final int skipCount = skips;
+        private int pos;
+        private int next;       // 아직 지나지 않은 첫 건너뛰기 지점
+        private int remaining = Integer.MAX_VALUE; // seekBlock 이후 이 블록에 남은 건수
+        private long doc = -1;
+        private int impact;
+
+        long doc() {
+            return doc;
+        }
+
+        int impact() {
+            return impact;
+        }
+
+        // 블록 하나만 읽도록 그 시작으로 이동 (이후 nextInBlock)
+        void seekBlock(int b) {
+            pos = b == 0 ? 0 : skipPos[b - 1];
+            doc = b == 0 ? -1 : skipBase[b - 1];
+            next = b;
+            remaining = SKIP_INTERVAL;
+        }
+
+        boolean nextInBlock() {
+            return remaining-- > 0 && next();
+        }
+
+        boolean next() {
+            if (pos >= end) {
+                doc = Long.MAX_VALUE;
+                return false;
+            }
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buf[pos++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += delta;
+            impact = buf[pos++] & 0xFF;
+            return true;
+        }
+
+        // target 이상인 첫 문서로 이동
+        boolean advance(long target) {
+            if (doc >= target) return doc != Long.MAX_VALUE;
+            // 이미 지나온 지점은 버리고, 기준 번호가 target 보다 작은 마지막 지점으로 건너뛴다
+            while (next < skipCount && skipPos[next] <= pos) {
+                next++;
+            }
+            if (next < skipCount && skipBase[next] < target) {
+                int lo = next, hi = skipCount - 1;
+                while (lo < hi) {
+                    int mid = (lo + hi + 1) >>> 1;
+                    if (skipBase[mid] < target) {
+                        lo = mid;
+                    } else {
+                        hi = mid - 1;
+                    }
+                }
+                pos = skipPos[lo];
+                doc = skipBase[lo];
+                next = lo + 1;
+            }
+            while (doc < target) {
+                if (!next()) return false;
+            }
+            return true;
+        }
+    }
+}
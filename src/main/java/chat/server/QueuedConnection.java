@@ -0,0 +1,86 @@
+package chat.server;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 블로킹 소켓 연결의 공통 부분: send() 는 대기열에 넣고 바로 돌아가며,
+ * 연결마다 하나인 writer 스레드가 대기열을 비우면서 소켓에 쓴다.
+ * 한 클라이언트의 네트워크가 막혀도 보내는 쪽(방 브로드캐스트) 스레드는 붙잡히지 않는다.
+ */
+abstract class QueuedConnection<T> implements Connection {
+
+    private static final int WRITE_BATCH = 64;
+
+    protected final Socket socket;
+    protected final OutboundQueue<T> queue;
+
+    QueuedConnection(Socket socket, ServerOptions options) {
+        this.socket = socket;
+        this.queue = new OutboundQueue<>(options.outboundCapacity, options.overflowPolicy);
+    }
+
+    void startWriter(ThreadFactory threads) {
+        threads.newThread(this::writeLoop).start();
+    }
+
+    protected void enqueue(T item, boolean droppable) {
+        if (!queue.offer(item, droppable)) {
+            System.out.println("[Server] 송신 대기열 초과로 연결 종료(" + socket.getRemoteSocketAddress()
+                    + ", depth=" + queue.depth() + ", policy=" + queue.policy() + ")");
+            abort();
+        }
+    }
+
+    private void writeLoop() {
+        List<T> batch = new ArrayList<>(WRITE_BATCH);
+        try {
+            while (!queue.isDrained()) {
+                batch.clear();
+                if (queue.takeBatch(batch, WRITE_BATCH, 1000) == 0) {
+                    continue;
+                }
+                for (T item : batch) {
+                    write(item);
+                }
+                // 묶음 단위로 한 번만 flush
+                flushOut();
+            }
+        } catch (IOException | InterruptedException e) {
+            System.out.println("[Server] writer 종료(" + socket.getRemoteSocketAddress() + "): " + e.getMessage());
+        } finally {
+            closeSocket();
+        }
+    }
+
+    protected abstract void write(T item) throws IOException;
+
+    protected abstract void flushOut() throws IOException;
+
+    @Override
+    public OutboundQueue<?> outbound() {
+        return queue;
+    }
+
+    // 남은 프레임을 보낸 뒤 writer 가 소켓을 닫는다
+    @Override
+    public void close() {
+        queue.close(false);
+    }
+
+    // 대기열을 버리고 즉시 끊는다 (느린 클라이언트 정책)
+    void abort() {
+        queue.close(true);
+        closeSocket();
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (Exception ignored) {
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package chat.server;
+
+import java.util.function.Consumer;
+
+/**
+ * 방이 최근에 방송한 프레임을 순번과 함께 capacity 개까지 (기록에 남기지 않는 안내·게임 상태 포함).
+ * 세션을 이어받은 클라이언트에게 마지막으로 받은 순번 뒤의 것만 그대로 다시 보낼 때 쓴다. 방 작업 대기열 안에서만.
+ */
+final class RecentFrames {
+
+    private final long[] seqs;
+    private final SharedFrame[] frames;
+    private int next;
+    private int size;
+
+    RecentFrames(int capacity) {
+        this.seqs = new long[Math.max(1, capacity)];
+        this.frames = new SharedFrame[seqs.length];
+    }
+
+    void add(long seq, SharedFrame frame) {
+        seqs[next] = seq;
+        frames[next] = frame;
+        next = (next + 1) % seqs.length;
+        size = Math.min(size + 1, seqs.length);
+    }
+
+    /**
+     * afterSeq 뒤(미포함)부터 latestSeq 까지 빠짐없이 가지고 있으면 오래된 것부터 sink 로 보내고 건수를 돌려준다.
+     * 너무 오래됐거나(이미 밀려남) 순번을 모르면(음수·방 순번보다 큼) -1.
+     */
+    int replay(long afterSeq, long latestSeq, Consumer<SharedFrame> sink) {
+        if (afterSeq < 0 || afterSeq > latestSeq) {
+            return -1;
+        }
+        if (afterSeq == latestSeq) {
+            return 0;
+        }
+        int oldest = (next - size + seqs.length) % seqs.length;
+        if (size == 0 || seqs[oldest] > afterSeq + 1) {
+            return -1;
+        }
+        int sent = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = (oldest + i) % seqs.length;
+            if (seqs[slot] > afterSeq) {
+                sink.accept(frames[slot]);
+                sent++;
+            }
+        }
+        return sent;
+    }
+}
@@ -0,0 +1,283 @@
+package chat.server;
+
+import chat.shared.BinaryCodec;
+import chat.shared.Message;
+import chat.shared.WireWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 주 서버 쪽 복제: --replication-port 로 접속한 대기 서버(StandbyReplica)에게 방 이벤트 기록을 보낸다.
+ * 이벤트(입장·퇴장·방송·게임 요청·방 삭제)는 모두 방 작업 대기열 안에서, 상태를 바꾸기 전에 만들어지므로
+ * 방마다 주 서버가 적용한 순서 그대로 간다. 어떤 방의 이벤트를 처음 보낼 때는 그 직전 상태(순번·참가자·게임·기록)를
+ * 스냅숏으로 먼저 보낸다. 대기 서버는 하트비트가 끊기면 주 서버가 죽은 것으로 본다.
+ */
+class ReplicationLog {
+
+    static final int ROOMS = 1;     // [방 이름들] 접속 직후 한 번: 이 목록에 없는 복제 방은 버림
+    static final int SNAPSHOT = 2;  // [방][순번][참가자들][게임 있음][게임 상태]
+    static final int RECORDS = 3;   // [방][기록 수][bin1 프레임...] 스냅숏의 기록
+    static final int DELIVER = 4;   // [방][보낸 시각(epoch us)][순번][기록 여부][bin1 프레임]
+    static final int JOIN = 5;      // [방][닉네임]
+    static final int LEAVE = 6;     // [방][닉네임]
+    static final int GAME = 7;      // [방][닉네임][동작][x][y]
+    static final int CLOSE = 8;     // [방]
+    static final int HEARTBEAT = 9; // [보낸 시각(epoch us)]
+
+    // 스냅숏 기록은 이만큼씩 묶어서 (링크 대기열 칸 수를 아낌)
+    private static final int RECORDS_BATCH_BYTES = 1024 * 1024;
+
+    private static final class Standby {
+        final DuplexLink link;
+        // 스냅숏을 보낸 방 (그 방의 대기열 안에서만 추가)
+        final Set<ChatRoom> synced = ConcurrentHashMap.newKeySet();
+
+        Standby(DuplexLink link) {
+            this.link = link;
+        }
+    }
+
+    private final ChatServer server;
+    private final int port;
+    private final ScheduledExecutorService timer;
+    private final long heartbeatMillis;
+    private final List<Standby> standbys = new CopyOnWriteArrayList<>();
+    private final AtomicLong shipped = new AtomicLong();
+    private ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    ReplicationLog(ChatServer server, int port, ScheduledExecutorService timer, long heartbeatMillis) {
+        this.server = server;
+        this.port = port;
+        this.timer = timer;
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        Thread t = new Thread(this::acceptLoop, "replication-accept");
+        t.setDaemon(true);
+        t.start();
+        timer.scheduleAtFixedRate(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        System.out.println("[Replication] 대기 서버 접속 대기: port=" + port);
+    }
+
+    // 운영자용: "standbys=1 shipped=1234"
+    String report() {
+        return "standbys=" + standbys.size() + " shipped=" + shipped.get();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                attach(serverSocket.accept());
+            } catch (IOException e) {
+                if (!closed) System.out.println("[Replication] accept 오류: " + e.getMessage());
+            }
+        }
+    }
+
+    private void attach(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        String name = "standby@" + socket.getPort();
+        DuplexLink link = new DuplexLink(socket, name, new DuplexLink.Handler() {
+            @Override
+            public void frame(DuplexLink l, byte[] payload) {
+            }
+
+            @Override
+            public void closed(DuplexLink l, String reason) {
+                standbys.removeIf(s -> s.link == l);
+                System.out.println("[Replication] " + l.name() + " 끊김: " + reason);
+            }
+        });
+        link.start(in, out);
+        Standby standby = new Standby(link);
+
+        // 방 목록을 먼저 보내고 나서 이벤트를 받기 시작한다. 조용한 방도 스냅숏을 받도록 방마다 대기열에 넣어 둠
+        List<String> names = new ArrayList<>();
+        for (ChatRoom room : server.rooms()) {
+            names.add(room.getName());
+        }
+        WireWriter w = new WireWriter();
+        try {
+            w.writeByte(ROOMS);
+            w.writeStrings(names);
+            link.send(w.toByteArray());
+        } finally {
+            w.release();
+        }
+        standbys.add(standby);
+        for (ChatRoom room : server.rooms()) {
+            room.post(() -> {
+                if (!room.isClosed() && standbys.contains(standby) && standby.synced.add(room)) {
+                    snapshot(standby, room);
+                }
+            });
+        }
+        System.out.println("[Replication] " + name + " 연결 (방 " + names.size() + "개 동기화 시작)");
+    }
+
+    // ===== 방 작업 대기열 안에서 부르는 이벤트 =====
+
+    void joined(ChatRoom room, String nickname) {
+        if (standbys.isEmpty()) return;
+        WireWriter w = event(JOIN, room);
+        w.writeString(nickname);
+        ship(room, w);
+    }
+
+    void left(ChatRoom room, String nickname) {
+        if (standbys.isEmpty()) return;
+        WireWriter w = event(LEAVE, room);
+        w.writeString(nickname);
+        ship(room, w);
+    }
+
+    void delivered(ChatRoom room, long seq, boolean saveHistory, byte[] frame) {
+        if (standbys.isEmpty()) return;
+        WireWriter w = event(DELIVER, room);
+        w.writeSignedVarint(LatencyHistogram.epochMicros());
+        w.writeVarint(seq);
+        w.writeByte(saveHistory ? 1 : 0);
+        w.writeBytes(frame);
+        ship(room, w);
+    }
+
+    void game(ChatRoom room, Message.GameAction action, String nickname, int x, int y) {
+        if (standbys.isEmpty()) return;
+        WireWriter w = event(GAME, room);
+        w.writeString(nickname);
+        w.writeVarint(action.ordinal());
+        w.writeSignedVarint(x);
+        w.writeSignedVarint(y);
+        ship(room, w);
+    }
+
+    // 방 삭제. 스냅숏을 보낸 적 없는 방이면 보낼 것도 없다
+    void closed(ChatRoom room) {
+        for (Standby s : standbys) {
+            if (!s.synced.remove(room)) continue;
+            WireWriter w = event(CLOSE, room);
+            try {
+                s.link.send(w.toByteArray());
+            } finally {
+                w.release();
+            }
+        }
+    }
+
+    private static WireWriter event(int type, ChatRoom room) {
+        WireWriter w = new WireWriter();
+        w.writeByte(type);
+        w.writeString(room.getName());
+        return w;
+    }
+
+    private void ship(ChatRoom room, WireWriter w) {
+        try {
+            byte[] payload = w.toByteArray();
+            for (Standby s : standbys) {
+                if (s.synced.add(room)) {
+                    snapshot(s, room);
+                }
+                s.link.send(payload);
+            }
+            shipped.incrementAndGet();
+        } finally {
+            w.release();
+        }
+    }
+
+    // 방의 지금 상태. 대기열 안에서 만들므로 뒤이은 이벤트와 빈틈·겹침이 없다
+    private void snapshot(Standby s, ChatRoom room) {
+        WireWriter w = event(SNAPSHOT, room);
+        try {
+            w.writeVarint(room.seq());
+            w.writeStrings(room.members());
+            OmokGame game = room.getCurrentGame();
+            w.writeByte(game != null ? 1 : 0);
+            if (game != null) {
+                game.writeState(w);
+            }
+            s.link.send(w.toByteArray());
+        } finally {
+            w.release();
+        }
+
+        List<byte[]> batch = new ArrayList<>();
+        int[] bytes = {0};
+        room.forEachRecord(m -> {
+            try {
+                byte[] frame = SharedFrame.of(m).frameBytes(BinaryCodec.INSTANCE);
+                batch.add(frame);
+                bytes[0] += frame.length;
+                if (bytes[0] >= RECORDS_BATCH_BYTES) {
+                    sendRecords(s, room, batch);
+                    batch.clear();
+                    bytes[0] = 0;
+                }
+            } catch (IOException e) {
+                System.out.println("[Replication] 기록 인코딩 실패(" + room.getName() + "): " + e.getMessage());
+            }
+        });
+        if (!batch.isEmpty()) {
+            sendRecords(s, room, batch);
+        }
+    }
+
+    private static void sendRecords(Standby s, ChatRoom room, List<byte[]> frames) {
+        WireWriter w = event(RECORDS, room);
+        try {
+            w.writeVarint(frames.size());
+            for (byte[] frame : frames) {
+                w.writeBytes(frame);
+            }
+            s.link.send(w.toByteArray());
+        } finally {
+            w.release();
+        }
+    }
+
+    private void heartbeat() {
+        if (standbys.isEmpty()) return;
+        WireWriter w = new WireWriter();
+        try {
+            w.writeByte(HEARTBEAT);
+            w.writeSignedVarint(LatencyHistogram.epochMicros());
+            byte[] payload = w.toByteArray();
+            for (Standby s : standbys) {
+                s.link.send(payload);
+            }
+        } finally {
+            w.release();
+        }
+    }
+
+    void close() {
+        closed = true;
+        try {
+            if (serverSocket != null) serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        for (Standby s : standbys) {
+            s.link.close("서버 종료");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package chat.server;
+
+import chat.shared.BinaryCodec;
+import chat.shared.Message;
+import chat.shared.WireReader;
+import chat.shared.WireWriter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 방송을 Backplane 토픽으로 보내고 받는 부분. 방 토픽은 "room:" + 방 이름, 전체 공지는 "system".
+ * payload = [기록 저장 여부][발행 시각(epoch us)][bin1 메시지]. 받은 쪽은 토픽 번호를 방 순번(seq)으로 쓰고
+ * 방 작업 대기열에서 자기 참가자에게만 보낸다. 발행부터 받은 노드가 대기열에 넣기까지의 시간을 모은다.
+ */
+class RoomBackplane {
+
+    private static final String SYSTEM_TOPIC = "system";
+
+    private final ChatServer server;
+    private final Backplane backplane;
+    private final Map<ChatRoom, Backplane.Subscriber> rooms = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    RoomBackplane(ChatServer server, Backplane backplane) {
+        this.server = server;
+        this.backplane = backplane;
+        backplane.subscribe(SYSTEM_TOPIC, (topic, seq, payload) -> {
+            Message msg = decode(payload);
+            if (msg != null) server.deliverSystem(msg);
+        });
+    }
+
+    // 이 노드에 방의 첫 참가자가 들어왔을 때 (방 작업 대기열 안에서, 입장 안내를 발행하기 전에)
+    void subscribe(ChatRoom room) {
+        Backplane.Subscriber subscriber = (topic, seq, payload) -> {
+            boolean saveHistory = payload.length > 0 && payload[0] == 1;
+            Message msg = decode(payload);
+            if (msg != null) room.post(() -> room.deliver(msg, seq, saveHistory));
+        };
+        if (rooms.putIfAbsent(room, subscriber) == null) {
+            backplane.subscribe(topic(room), subscriber);
+        }
+    }
+
+    // 이 노드의 마지막 참가자가 나갔거나 방이 지워졌을 때
+    void unsubscribe(ChatRoom room) {
+        Backplane.Subscriber subscriber = rooms.remove(room);
+        if (subscriber != null) {
+            backplane.unsubscribe(topic(room), subscriber);
+        }
+    }
+
+    void publish(ChatRoom room, Message msg, boolean saveHistory) {
+        byte[] payload = encode(msg, saveHistory);
+        if (payload != null) backplane.publish(topic(room), payload);
+    }
+
+    void publishSystem(Message msg) {
+        byte[] payload = encode(msg, false);
+        if (payload != null) backplane.publish(SYSTEM_TOPIC, payload);
+    }
+
+    // 운영자용: 다른 노드(또는 자기)가 발행한 것을 받기까지
+    String report() {
+        return latency.summary();
+    }
+
+    void close() {
+        backplane.close();
+    }
+
+    private static String topic(ChatRoom room) {
+        return "room:" + room.getName();
+    }
+
+    private static byte[] encode(Message msg, boolean saveHistory) {
+        WireWriter w = new WireWriter();
+        try {
+            w.writeByte(saveHistory ? 1 : 0);
+            w.writeSignedVarint(LatencyHistogram.epochMicros());
+            w.writeBytes(BinaryCodec.INSTANCE.encode(msg));
+            return w.toByteArray();
+        } catch (IOException e) {
+            System.out.println("[Backplane] 메시지 인코딩 실패: " + e.getMessage());
+            return null;
+        } finally {
+            w.release();
+        }
+    }
+
+    private Message decode(byte[] payload) {
+        try {
+            WireReader r = new WireReader(payload, 0, payload.length);
+            r.readByte();
+            latency.record(LatencyHistogram.epochMicros() - r.readSignedVarint());
+            byte[] body = r.readBytes();
+            return BinaryCodec.INSTANCE.decode(body, 0, body.length);
+        } catch (IOException e) {
+            System.out.println("[Backplane] 메시지 디코딩 실패: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package chat.server;
+
+import chat.shared.Message;
+import chat.shared.RoomInfo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 버전이 붙은 방 목록. 방이 생기고 없어질 때 전체 목록 대신 ROOM_ADDED/ROOM_REMOVED 변경분만 보내고,
+ * 참여자 수·오목 상태 변경(ROOM_UPDATED)은 방마다 모아 두었다가 주기적으로 한 번씩 보낸다.
+ * 최근 변경분을 LOG_CAPACITY 개까지 들고 있어서, 다시 접속한 클라이언트가 알고 있는 버전을 보내면
+ * 그 뒤 변경분만 보내고 너무 오래된 버전일 때만 전체 목록(변경이 없는 동안 캐시)을 보낸다.
+ * 예전 클라이언트는 변경분을 모르므로 방이 생기고 없어질 때 캐시된 전체 목록을 받는다.
+ *
+ * ROOM_QUERY 는 이름순(TreeMap), 참여자순·최근 활동순(TreeSet) 색인을 바뀔 때마다 고쳐 두고
+ * 요청마다 필요한 구간만 읽는다 (방이 많아도 한 페이지에 정렬 전체를 하지 않음).
+ * 대화할 때마다 락을 잡지 않도록 활동 시각은 touch 로 모아 두었다가 flushUpdates 때 색인에 반영한다.
+ */
+class RoomDirectory {
+
+    static final int LOG_CAPACITY = 1024;
+    static final int MAX_QUERY_PAGE = 100;
+
+    private static final class Delta {
+        final long version;
+        final SharedFrame frame;
+
+        Delta(long version, SharedFrame frame) {
+            this.version = version;
+            this.frame = frame;
+        }
+    }
+
+    // 색인에 들어 있는 동안 participants/activity 를 바꾸려면 먼저 해당 TreeSet 에서 뺄 것
+    private static final class Entry {
+        final String name;
+        int participants;
+        long activity;
+        Message.RoomGame game;
+
+        Entry(String name, int participants, long activity, Message.RoomGame game) {
+            this.name = name;
+            this.participants = participants;
+            this.activity = activity;
+            this.game = game;
+        }
+
+        long key(Message.RoomSort sort) {
+            return sort == Message.RoomSort.PARTICIPANTS ? participants : sort == Message.RoomSort.ACTIVITY ? activity : 0;
+        }
+
+        RoomInfo info() {
+            return new RoomInfo(name, participants, game, activity);
+        }
+    }
+
+    private static final Comparator<Entry> BY_PARTICIPANTS = Comparator
+            .comparingInt((Entry e) -> -e.participants).thenComparing(e -> e.name);
+    private static final Comparator<Entry> BY_ACTIVITY = Comparator
+            .comparingLong((Entry e) -> -e.activity).thenComparing(e -> e.name);
+
+    private final Collection<ClientHandler> clients;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeMap<String, Entry> rooms = new TreeMap<>();
+    private final TreeSet<Entry> byParticipants = new TreeSet<>(BY_PARTICIPANTS);
+    private final TreeSet<Entry> byActivity = new TreeSet<>(BY_ACTIVITY);
+    private final Set<String> dirty = new LinkedHashSet<>();      // 바뀌고 아직 안 알린 방
+    private final Map<String, Long> touched = new ConcurrentHashMap<>(); // 색인에 아직 안 넣은 활동 시각
+    private final ArrayDeque<Delta> log = new ArrayDeque<>();
+    private SharedFrame snapshot; // 변경이 생기면 null
+
+    // 서버를 다시 띄워도 예전 버전과 겹치지 않도록 시작 시각(ms)에서 출발
+    private long version = System.currentTimeMillis();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "room-directory");
+        t.setDaemon(true);
+        return t;
+    });
+
+    RoomDirectory(Collection<ClientHandler> clients, long updateIntervalMillis) {
+        this.clients = clients;
+        flusher.scheduleWithFixedDelay(this::flushUpdates, updateIntervalMillis, updateIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // 참여자 수·게임 상태는 락 안에서 읽는다 (동시에 입장한 쪽이 먼저 알려도 마지막 값이 남도록)
+    void added(ChatRoom chatRoom) {
+        lock.lock();
+        try {
+            String room = chatRoom.getName();
+            if (rooms.containsKey(room)) return;
+            int participants = chatRoom.participantCount();
+            Message.RoomGame game = chatRoom.gameStatus();
+            Entry e = new Entry(room, participants, System.currentTimeMillis(), game);
+            rooms.put(room, e);
+            byParticipants.add(e);
+            byActivity.add(e);
+            publish(Message.roomDelta(Message.Type.ROOM_ADDED, room, participants, game, ++version), true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void removed(String room) {
+        lock.lock();
+        try {
+            Entry e = rooms.remove(room);
+            if (e == null) return;
+            byParticipants.remove(e);
+            byActivity.remove(e);
+            dirty.remove(room);
+            touched.remove(room);
+            publish(Message.roomDelta(Message.Type.ROOM_REMOVED, room, 0, null, ++version), true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 입장·퇴장·게임 진행마다 불린다. 색인은 바로 고치고, 알리는 건 다음 flushUpdates 때 방마다 한 번만
+    void changed(ChatRoom chatRoom) {
+        lock.lock();
+        try {
+            String room = chatRoom.getName();
+            Entry e = rooms.get(room);
+            if (e == null) return;
+            int participants = chatRoom.participantCount();
+            Message.RoomGame game = chatRoom.gameStatus();
+            if (e.participants == participants && e.game == game) return;
+            if (e.participants != participants) {
+                byParticipants.remove(e);
+                e.participants = participants;
+                byParticipants.add(e);
+            }
+            e.game = game;
+            dirty.add(room);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 대화가 오갈 때마다. 락 없이 기록만 해 두고 최근 활동순 색인은 flushUpdates 때 고친다
+    void touch(String room) {
+        touched.put(room, System.currentTimeMillis());
+    }
+
+    void flushUpdates() {
+        lock.lock();
+        try {
+            for (String room : touched.keySet()) {
+                Long at = touched.remove(room);
+                Entry e = rooms.get(room);
+                if (at != null && e != null && at > e.activity) {
+                    byActivity.remove(e);
+                    e.activity = at;
+                    byActivity.add(e);
+                }
+            }
+            for (String room : dirty) {
+                Entry e = rooms.get(room);
+                publish(Message.roomDelta(Message.Type.ROOM_UPDATED, room, e.participants, e.game, ++version), false);
+            }
+            dirty.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * ROOM_LIST 요청 / 접속 시. knownVersion 이후 변경분을 보내거나, 모르는 버전이면 전체 목록.
+     * 이미 최신이면 아무것도 보내지 않는다.
+     */
+    void sync(ClientHandler client, long knownVersion) {
+        lock.lock();
+        try {
+            if (!client.isModern()) {
+                client.send(snapshot());
+                return;
+            }
+            if (knownVersion == version) return;
+            Delta oldest = log.peekFirst();
+            if (knownVersion >= 0 && knownVersion < version && oldest != null && oldest.version <= knownVersion + 1) {
+                for (Delta d : log) {
+                    if (d.version > knownVersion) {
+                        client.send(d.frame);
+                    }
+                }
+                return;
+            }
+            client.send(snapshot());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 이름이 prefix 로 시작하는 방을 sort 순서로 afterRoom(정렬 값 afterKey) 다음부터 limit 개.
+     * 페이지 사이에 참여자 수가 바뀐 방은 두 번 보이거나 빠질 수 있다 (목록은 변경분으로 고쳐 씀).
+     */
+    Message query(String prefix, Message.RoomSort sort, String afterRoom, long afterKey, int limit) {
+        String p = prefix == null ? "" : prefix;
+        Message.RoomSort s = sort == null ? Message.RoomSort.NAME : sort;
+        int n = Math.max(1, Math.min(limit, MAX_QUERY_PAGE));
+        lock.lock();
+        try {
+            List<Entry> found = s == Message.RoomSort.NAME
+                    ? byName(p, afterRoom, n + 1)
+                    : ranked(s, p, afterRoom, afterKey, n + 1);
+            boolean more = found.size() > n;
+            List<RoomInfo> page = new ArrayList<>(Math.min(n, found.size()));
+            for (int i = 0; i < found.size() && i < n; i++) {
+                page.add(found.get(i).info());
+            }
+            Entry last = page.isEmpty() ? null : found.get(page.size() - 1);
+            return Message.roomQueryResult(p, s, page,
+                    last == null ? afterRoom : last.name, last == null ? afterKey : last.key(s), more, version);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long version() {
+        lock.lock();
+        try {
+            return version;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return rooms.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ===== 조회 (락 안에서) =====
+
+    // 이름이 prefix 로 시작하는 구간
+    private NavigableMap<String, Entry> prefixRange(String prefix, String afterRoom) {
+        boolean after = afterRoom != null && afterRoom.compareTo(prefix) >= 0;
+        String from = after ? afterRoom : prefix;
+        if (prefix.isEmpty()) {
+            return rooms.tailMap(from, !after);
+        }
+        String to = prefix + Character.MAX_VALUE;
+        if (from.compareTo(to) > 0) {
+            return new TreeMap<>();
+        }
+        return rooms.subMap(from, !after, to, true);
+    }
+
+    private List<Entry> byName(String prefix, String afterRoom, int count) {
+        List<Entry> out = new ArrayList<>(count);
+        for (Entry e : prefixRange(prefix, afterRoom).values()) {
+            if (out.size() == count) break;
+            out.add(e);
+        }
+        return out;
+    }
+
+    /**
+     * 정렬 색인을 앞에서부터 읽으며 접두어에 맞는 방을 고른다. 맞는 방이 드물어 한참 읽어도 다 못 채우면
+     * 이름 구간(접두어에 맞는 방만)을 훑어 상위 count 개만 heap 으로 고른다.
+     * 어느 쪽이든 읽는 양은 대략 min(색인 앞부분, 접두어에 맞는 방 수) 이다.
+     */
+    private List<Entry> ranked(Message.RoomSort sort, String prefix, String afterRoom, long afterKey, int count) {
+        Comparator<Entry> order = sort == Message.RoomSort.PARTICIPANTS ? BY_PARTICIPANTS : BY_ACTIVITY;
+        NavigableSet<Entry> index = sort == Message.RoomSort.PARTICIPANTS ? byParticipants : byActivity;
+        Entry probe = afterRoom == null ? null : new Entry(afterRoom, (int) afterKey, afterKey, null);
+        if (probe != null) {
+            index = index.tailSet(probe, false);
+        }
+
+        List<Entry> out = new ArrayList<>(count);
+        int budget = prefix.isEmpty() ? Integer.MAX_VALUE : Math.max(1024, count * 32);
+        for (Entry e : index) {
+            if (out.size() == count) return out;
+            if (--budget < 0) break;
+            if (e.name.startsWith(prefix)) {
+                out.add(e);
+            }
+        }
+        if (budget >= 0) return out;
+
+        // 가장 순위가 낮은 것이 맨 앞인 heap
+        PriorityQueue<Entry> top = new PriorityQueue<>(count + 1, order.reversed());
+        for (Entry e : prefixRange(prefix, null).values()) {
+            if (probe != null && order.compare(e, probe) <= 0) continue;
+            top.add(e);
+            if (top.size() > count) {
+                top.poll();
+            }
+        }
+        out.clear();
+        out.addAll(top);
+        out.sort(order);
+        return out;
+    }
+
+    // ===== 변경분 전송 =====
+
+    // 락 안에서. 버전 순서대로 도착하도록 보내기(대기열에 넣기)까지 락 안에서 한다
+    private void publish(Message delta, boolean structural) {
+        snapshot = null;
+        SharedFrame frame = SharedFrame.of(delta);
+        log.addLast(new Delta(delta.getVersion(), frame));
+        if (log.size() > LOG_CAPACITY) {
+            log.removeFirst();
+        }
+        for (ClientHandler ch : clients) {
+            if (ch.isModern()) {
+                ch.send(frame);
+            } else if (structural) {
+                ch.send(snapshot());
+            }
+        }
+    }
+
+    private SharedFrame snapshot() {
+        if (snapshot == null) {
+            List<String> names = new ArrayList<>(rooms.size());
+            List<Integer> counts = new ArrayList<>(rooms.size());
+            for (Entry e : rooms.values()) {
+                names.add(e.name);
+                counts.add(e.participants);
+            }
+            snapshot = SharedFrame.of(Message.roomSnapshot(names, counts, version));
+        }
+        return snapshot;
+    }
+}
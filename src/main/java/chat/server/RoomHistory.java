@@ -0,0 +1,41 @@
+package chat.server;
+
+import chat.shared.Message;
+
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 방 대화 기록 저장소. 메모리 원형 버퍼(HistoryRing) 또는 디스크 세그먼트 로그(RoomLog).
+ * 기록 단위는 SharedFrame 이 만든 bin1 프레임([길이][payload])이다.
+ */
+interface RoomHistory {
+
+    // 붙인 기록의 번호. 기록하지 못했으면 -1
+    long append(byte[] frame);
+
+    // 입장한 클라이언트에게 보낼 최근 기록을 오래된 것부터 sink 로 흘려보낸다
+    void replay(Consumer<Message> sink);
+
+    /**
+     * beforeSeq 이전(미포함) 기록을 최대 max 건, 오래된 것부터 흘려보낸다. beforeSeq 가 음수면 최신부터.
+     * @return 보낸 것 중 가장 오래된 기록 번호 (다음 페이지 요청의 beforeSeq)
+     */
+    long page(long beforeSeq, int max, Consumer<Message> sink);
+
+    // 남아 있는 가장 오래된 기록 번호
+    long firstSeq();
+
+    // 다음에 붙을 기록 번호
+    long nextSeq();
+
+    // 기록 하나. 이미 지워졌거나 없는 번호면 null
+    Message get(long seq);
+
+    // 여러 기록을 한 번 훑어서 (검색 결과). seqs 는 오름차순, 지워졌거나 없는 번호는 건너뛴다
+    void get(long[] seqs, ObjLongConsumer<Message> sink);
+
+    int count();
+
+    void close();
+}
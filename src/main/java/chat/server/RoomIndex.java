@@ -0,0 +1,280 @@
+package chat.server;
+
+import chat.shared.Message;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 방 하나의 전문 검색 색인 (토큰 → PostingList). 문서 번호는 RoomHistory 의 기록 번호라서
+ * 결과는 번호만 들고 있다가 보여줄 페이지 것만 기록에서 꺼낸다.
+ * 추가는 SearchIndexer 스레드에서만 하고, 검색은 요청한 스레드에서 읽기 락으로 한다.
+ * 모든 토큰을 포함한 기록만 찾고 BM25 로 순위를 매긴다 (점수가 같으면 최근 것 먼저).
+ * 길이 정규화는 색인할 때의 평균 길이로 해서 토큰별 점수를 posting 에 미리 넣어 둔다.
+ */
+class RoomIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int COMPACT_EVERY = 4096;
+    private static final double IMPACT_SCALE = 255 / (K1 + 1); // 토큰 점수 상한 K1+1 → 255
+
+    private final String room;
+    private final RoomHistory history;
+    private final SearchIndexer indexer;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> terms = new HashMap<>();
+    private PostingList docs = new PostingList(); // 색인한 모든 기록 (점수 자리에 길이, 문서 수·평균 길이용)
+    private long totalLength;
+    private int sinceCompact;
+
+    // 아래는 색인 스레드 전용
+    private long nextDoc;  // 이 번호 이전까지는 반영함
+    private final AtomicLong missedFrom = new AtomicLong(-1); // 대기열이 넘쳐 놓친 첫 번호
+    private volatile boolean closed;
+
+    static final class Hits {
+        static final Hits EMPTY = new Hits(new long[0], false);
+
+        final long[] seqs;   // 요청한 범위의 기록 번호 (순위 순)
+        final boolean more;  // 다음 순위 결과가 더 있는지
+
+        Hits(long[] seqs, boolean more) {
+            this.seqs = seqs;
+            this.more = more;
+        }
+    }
+
+    RoomIndex(String room, RoomHistory history, SearchIndexer indexer) {
+        this.room = room;
+        this.history = history;
+        this.indexer = indexer;
+    }
+
+    String room() {
+        return room;
+    }
+
+    // 방송 경로에서. 색인 작업을 넘기기만 하고 바로 돌아온다
+    void offer(long seq, Message msg) {
+        if (seq < 0 || closed || msg.getType() != Message.Type.CHAT || msg.getText() == null) return;
+        indexer.submit(this, seq, msg.getText());
+    }
+
+    void markMissed(long seq) {
+        missedFrom.accumulateAndGet(seq, (cur, s) -> cur < 0 ? s : Math.min(cur, s));
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    // ===== 색인 스레드 =====
+
+    void add(long seq, String text) {
+        if (closed) return;
+        long missed = missedFrom.getAndSet(-1);
+        if (missed >= 0 && missed < seq) {
+            catchUp(missed, seq);
+        }
+        index(seq, text);
+    }
+
+    // 기록 저장소에 이미 있는 기록 중 아직 색인하지 않은 것 (방을 다시 열었을 때, 대기열이 넘쳤을 때)
+    void catchUp(long from, long to) {
+        final int chunk = 1000;
+        for (long s = Math.max(from, nextDoc); s < to && !closed; s += chunk) {
+            List<Message> batch = new ArrayList<>();
+            long start = history.page(Math.min(s + chunk, to), chunk, batch::add);
+            for (int i = 0; i < batch.size(); i++) {
+                Message m = batch.get(i);
+                if (m.getType() == Message.Type.CHAT && m.getText() != null) {
+                    index(start + i, m.getText());
+                }
+            }
+        }
+    }
+
+    void backfill() {
+        long to = history.nextSeq();
+        long started = System.nanoTime();
+        catchUp(history.firstSeq(), to);
+        System.out.println("[Search] 색인 복구: " + room + " (" + docCount() + "건, "
+                + (System.nanoTime() - started) / 1_000_000 + "ms)");
+    }
+
+    private void index(long seq, String text) {
+        if (seq < nextDoc) return; // 복구와 실시간 색인이 겹친 경우
+        List<String> tokens = SearchTokenizer.indexTerms(text);
+        nextDoc = seq + 1;
+        if (tokens.isEmpty()) return;
+        Map<String, Integer> tf = new HashMap<>();
+        for (String t : tokens) {
+            tf.merge(t, 1, Integer::sum);
+        }
+        int length = Math.min(255, tokens.size());
+        lock.writeLock().lock();
+        try {
+            totalLength += length;
+            double avgLength = (double) totalLength / (docs.count() + 1);
+            double norm = 1 - B + B * length / avgLength;
+            for (Map.Entry<String, Integer> e : tf.entrySet()) {
+                int f = e.getValue();
+                int impact = (int) Math.round(f * (K1 + 1) / (f + K1 * norm) * IMPACT_SCALE);
+                terms.computeIfAbsent(e.getKey(), k -> new PostingList()).add(seq, Math.max(1, Math.min(255, impact)));
+            }
+            docs.add(seq, length);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (++sinceCompact >= COMPACT_EVERY) {
+            sinceCompact = 0;
+            compact();
+        }
+    }
+
+    // 기록 저장소에서 지워진(보존 기간·메모리 회수) 기록의 posting 을 정리
+    private void compact() {
+        long first = history.firstSeq();
+        lock.readLock().lock();
+        try {
+            PostingList.Cursor c = docs.cursor();
+            // 지워진 것이 1/4 이 안 되면 다음에
+            if (!c.next() || c.doc() >= first) return;
+            int stale = 0;
+            while (c.doc() < first && stale * 4 < docs.count()) {
+                stale++;
+                if (!c.next()) break;
+            }
+            if (stale * 4 < docs.count()) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            terms.replaceAll((t, p) -> p.trimmed(first));
+            terms.values().removeIf(p -> p == null);
+            PostingList trimmed = docs.trimmed(first);
+            docs = trimmed != null ? trimmed : new PostingList();
+            totalLength = 0;
+            PostingList.Cursor c = docs.cursor();
+            while (c.next()) {
+                totalLength += c.impact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===== 검색 =====
+
+    int docCount() {
+        lock.readLock().lock();
+        try {
+            return docs.count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 순위 offset 번째부터 limit 건.
+     * 가장 짧은 posting 목록을 최근 블록부터 거꾸로 훑고, 블록의 점수 상한이 지금 상위 목록의
+     * 커트라인을 넘지 못하면 그 블록은 풀지 않는다 (흔한 단어도 전체를 채점하지 않음).
+     */
+    Hits search(String query, int offset, int limit) {
+        List<String> q = SearchTokenizer.queryTerms(query);
+        if (q.isEmpty()) return Hits.EMPTY;
+        long first = history.firstSeq();
+        int keep = offset + limit + 1; // 한 건 더 찾아서 다음 페이지가 있는지 본다
+
+        // 점수 낮은 것(같으면 오래된 것)이 맨 앞인 heap 으로 상위 keep 건만 유지
+        PriorityQueue<double[]> top = new PriorityQueue<>(keep + 1,
+                (a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0]) : Double.compare(a[1], b[1]));
+
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = new PostingList[q.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = terms.get(q.get(i));
+                if (lists[i] == null) return Hits.EMPTY;
+            }
+            // 짧은 목록이 기준, 나머지는 건너뛰기로 맞춘다
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.count(), b.count()));
+            int n = Math.max(1, docs.count());
+            double[] idf = new double[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                int df = lists[i].count();
+                idf[i] = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            }
+
+            PostingList lead = lists[0];
+            PostingList.Cursor[] others = new PostingList.Cursor[lists.length];
+            for (int block = lead.blockCount() - 1; block >= 0; block--) {
+                long base = lead.blockBase(block);
+                long last = lead.blockLastDoc(block);
+                if (last < first) break; // 여기부터는 지워진 기록
+                // 다른 토큰은 이 블록 문서 범위에 걸친 자기 블록들의 최대 점수로
+                double rest = 0;
+                for (int i = 1; i < lists.length; i++) {
+                    rest += idf[i] * lists[i].maxBetween(base, last);
+                }
+                // 뒤 블록은 더 오래된 기록이라 점수가 같아도 순위에 못 든다
+                if (top.size() == keep && idf[0] * lead.blockMax(block) + rest <= top.peek()[0]) continue;
+
+                PostingList.Cursor c = lead.cursor();
+                c.seekBlock(block);
+                for (int i = 1; i < lists.length; i++) {
+                    others[i] = lists[i].cursor();
+                }
+                candidates:
+                while (c.nextInBlock()) {
+                    long doc = c.doc();
+                    if (doc < first) continue;
+                    double score = idf[0] * c.impact();
+                    // 다른 토큰이 최대 점수를 내도 못 드는 기록은 교집합 확인도 하지 않는다
+                    if (top.size() == keep && score + rest < top.peek()[0]) continue;
+                    for (int i = 1; i < lists.length; i++) {
+                        if (!others[i].advance(doc)) break candidates;
+                        if (others[i].doc() != doc) continue candidates;
+                        score += idf[i] * others[i].impact();
+                    }
+                    if (top.size() < keep) {
+                        top.add(new double[]{score, doc});
+                    } else if (score > top.peek()[0] || score == top.peek()[0] && doc > top.peek()[1]) {
+                        top.poll();
+                        top.add(new double[]{score, doc});
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        boolean more = top.size() == keep;
+        if (more) {
+            top.poll();
+        }
+        long[] ranked = new long[top.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = (long) top.poll()[1];
+        }
+        return new Hits(Arrays.copyOfRange(ranked, Math.min(offset, ranked.length), ranked.length), more);
+    }
+}
@@ -0,0 +1,765 @@
+package chat.server;
+
+import chat.shared.BinaryCodec;
+import chat.shared.Frames;
+import chat.shared.Message;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 방 하나의 디스크 기록 (append-only 세그먼트 로그).
+ *
+ * 디렉터리 안에 [시작 번호].log 세그먼트 파일이 이어지고, 마지막(활성) 세그먼트는
+ * READ_WRITE 매핑해서 bin1 프레임([길이][payload])을 그대로 복사해 붙인다.
+ * 매핑은 처음 쓰거나 읽을 때 만들고, 작게(INITIAL_SEGMENT_BYTES) 시작해 두 배씩 키워 segmentBytes 에서 넘긴다.
+ * 닫힌 세그먼트, 한동안 쓰이지 않은 방, 닫힌 방의 매핑은 바로 해제한다 (방이 많아도 매핑 수·주소 공간이 쌓이지 않게).
+ * 매핑은 락 안에서만 접근하고, 읽을 때는 필요한 기록만 락 안에서 복사해 락 밖에서 디코딩한다.
+ * 기록마다 방 안에서 증가하는 번호(seq)가 붙고, INDEX_INTERVAL 건마다 파일 위치를 적은
+ * 희소 인덱스로 원하는 번호 근처까지 바로 건너뛴다.
+ *
+ * 닫힌 세그먼트는 백그라운드(HistoryLog 의 정리 스레드)에서 Deflater 로 압축해 .log.z 로 바꾸고,
+ * 작은 압축 세그먼트끼리는 합치며, 보존 기간/크기를 넘은 오래된 세그먼트는 지운다.
+ */
+class RoomLog implements RoomHistory {
+
+    static final int INDEX_INTERVAL = 32;
+    static final int INITIAL_SEGMENT_BYTES = 64 * 1024;
+    // 이만큼 쓰지도 읽지도 않은 방은 매핑을 푼다 (다음에 접근할 때 다시 매핑)
+    private static final long IDLE_UNMAP_MILLIS = 60_000;
+    private static final String LOG = ".log";
+    private static final String COMPRESSED = ".log.z";
+
+    // 세그먼트 한 개. 압축 전에는 map 으로 읽고, 압축 후에는 파일을 풀어서 읽는다
+    static final class Segment {
+        final long baseSeq;
+        Path file;
+        boolean compressed;
+        MappedByteBuffer map; // 매핑하지 않았거나 해제했으면 null
+        int capacity;       // 압축 전: 파일(매핑) 크기
+        int end;            // 압축 전: 기록이 끝나는 위치
+        int count;
+        int rawBytes;       // 압축 후: 풀었을 때 크기
+        long lastModified;
+        int[] index = new int[8]; // index[k] = (k * INDEX_INTERVAL) 번째 기록의 위치
+        int indexSize;
+
+        Segment(long baseSeq, Path file) {
+            this.baseSeq = baseSeq;
+            this.file = file;
+        }
+
+        void addIndex(int relSeq, int pos) {
+            if (relSeq % INDEX_INTERVAL != 0) return;
+            if (indexSize == index.length) {
+                index = Arrays.copyOf(index, indexSize * 2);
+            }
+            index[indexSize++] = pos;
+        }
+
+        long sizeOnDisk() {
+            return compressed ? fileSize(file) : end;
+        }
+    }
+
+    // 락 안에서 정해 둔 읽을 범위. 압축 전 세그먼트는 기록 바이트를 복사해 두고, 압축 세그먼트는 락 밖에서 푼다
+    private static final class Chunk {
+        final Segment segment;
+        final Path file;
+        final int count;
+        final byte[] records; // 압축 전: start 부터 n 건
+        final long start;
+        final int skip;       // 압축: 풀어서 건너뛸 기록 수
+        final int n;
+
+        Chunk(Segment segment, byte[] records, long start, int skip, int n) {
+            this.segment = segment;
+            this.file = segment.file;
+            this.count = segment.count;
+            this.records = records;
+            this.start = start;
+            this.skip = skip;
+            this.n = n;
+        }
+    }
+
+    // 락 안에서 골라 둔 세그먼트 하나의 여러 기록. 압축 전 세그먼트는 기록마다 복사해 두고, 압축 세그먼트는 락 밖에서 한 번 푼다
+    private static final class Picks {
+        final Segment segment;
+        final Path file;
+        final int count;
+        final long[] seqs;
+        final int[] skips;
+        final byte[][] records; // 압축 전만
+
+        Picks(Segment segment, long[] seqs, int[] skips, byte[][] records) {
+            this.segment = segment;
+            this.file = segment.file;
+            this.count = segment.count;
+            this.seqs = seqs;
+            this.skips = skips;
+            this.records = records;
+        }
+    }
+
+    // sun.misc.Unsafe.invokeCleaner (없으면 null)
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> c = Class.forName("sun.misc.Unsafe");
+            Field f = c.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            unsafe = f.get(null);
+            invokeCleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.out.println("[History] 매핑을 바로 해제할 수 없어 GC 에 맡깁니다: " + e);
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final String room;
+    private final Path dir;
+    private final HistoryLog.Config config;
+    private final HistoryLog owner;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private long activeSince;
+    private long lastAccess = System.currentTimeMillis();
+    private long nextSeq;
+    private boolean closed;
+
+    private RoomLog(String room, Path dir, HistoryLog.Config config, HistoryLog owner) {
+        this.room = room;
+        this.dir = dir;
+        this.config = config;
+        this.owner = owner;
+    }
+
+    // 디렉터리의 세그먼트를 읽어 들이고, 마지막 세그먼트에 이어 쓴다
+    static RoomLog open(String room, Path dir, HistoryLog.Config config, HistoryLog owner) throws IOException {
+        Files.createDirectories(dir);
+        RoomLog log = new RoomLog(room, dir, config, owner);
+        log.recover();
+        return log;
+    }
+
+    String room() {
+        return room;
+    }
+
+    @Override
+    public long nextSeq() {
+        lock.lock();
+        try {
+            return nextSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long firstSeq() {
+        lock.lock();
+        try {
+            return segments.isEmpty() ? nextSeq : segments.get(0).baseSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int count() {
+        lock.lock();
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, nextSeq - (segments.isEmpty() ? nextSeq : segments.get(0).baseSeq));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long sizeOnDisk() {
+        lock.lock();
+        try {
+            long total = 0;
+            for (Segment s : segments) {
+                total += s.sizeOnDisk();
+            }
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long append(byte[] frame) {
+        try {
+            return appendAndGetSeq(frame);
+        } catch (IOException e) {
+            System.out.println("[History] 기록 실패(" + room + "): " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // 기록을 붙이고 그 번호를 돌려준다. 기록하지 못했으면 -1
+    long appendAndGetSeq(byte[] frame) throws IOException {
+        lock.lock();
+        try {
+            if (closed) return -1;
+            int needed = active.end + frame.length;
+            if (needed > active.capacity) {
+                if (needed <= config.segmentBytes) {
+                    grow(needed);
+                } else {
+                    roll(frame.length);
+                }
+            }
+            ensureMapped(active);
+            lastAccess = System.currentTimeMillis();
+            int pos = active.end;
+            int len = frame.length - Frames.HEADER_BYTES;
+            // payload 를 먼저 쓰고 길이를 마지막에 쓴다 (중간에 죽으면 길이 0 → 복구 시 거기서 끝)
+            active.map.put(pos + Frames.HEADER_BYTES, frame, Frames.HEADER_BYTES, len);
+            active.map.putInt(pos, len);
+            active.addIndex(active.count, pos);
+            active.end = pos + frame.length;
+            active.count++;
+            active.lastModified = System.currentTimeMillis();
+            return nextSeq++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void replay(Consumer<Message> sink) {
+        page(-1, config.replayCount, sink);
+    }
+
+    @Override
+    public long page(long beforeSeq, int max, Consumer<Message> sink) {
+        long next = nextSeq();
+        long end = beforeSeq < 0 || beforeSeq > next ? next : beforeSeq;
+        long from = Math.max(firstSeq(), end - max);
+        if (from < end) {
+            read(from, (int) (end - from), sink);
+        }
+        return from;
+    }
+
+    @Override
+    public Message get(long seq) {
+        if (seq < firstSeq() || seq >= nextSeq()) return null;
+        Message[] found = new Message[1];
+        // 읽는 사이 보존 정책으로 세그먼트가 지워졌으면 다른 번호가 나오므로 돌려받은 번호로 확인
+        long after = read(seq, 1, m -> found[0] = m);
+        return after == seq + 1 ? found[0] : null;
+    }
+
+    @Override
+    public void get(long[] seqs, ObjLongConsumer<Message> sink) {
+        List<Picks> picks = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) return;
+            lastAccess = System.currentTimeMillis();
+            int i = 0;
+            for (Segment s : segments) {
+                while (i < seqs.length && seqs[i] < s.baseSeq) i++;
+                int from = i;
+                while (i < seqs.length && seqs[i] < s.baseSeq + s.count) i++;
+                if (from == i) continue;
+                long[] in = Arrays.copyOfRange(seqs, from, i);
+                int[] skips = new int[in.length];
+                byte[][] records = s.compressed ? null : new byte[in.length][];
+                for (int k = 0; k < in.length; k++) {
+                    skips[k] = (int) (in[k] - s.baseSeq);
+                    if (records != null) {
+                        records[k] = copy(s, skips[k], 1);
+                    }
+                }
+                picks.add(new Picks(s, in, skips, records));
+            }
+        } catch (IOException e) {
+            System.out.println("[History] 기록 매핑 실패(" + room + "): " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+
+        for (Picks p : picks) {
+            try {
+                if (p.records != null) {
+                    for (int k = 0; k < p.records.length; k++) {
+                        sink.accept(BinaryCodec.INSTANCE.decode(p.records[k], Frames.HEADER_BYTES, p.records[k].length - Frames.HEADER_BYTES), p.seqs[k]);
+                    }
+                    continue;
+                }
+                // 압축 세그먼트: 한 번 풀어서 앞에서부터 한 번만 훑는다
+                ByteBuffer raw = ByteBuffer.wrap(inflated(p.segment, p.file, p.count).raw);
+                int pos = 0;
+                int at = 0;
+                for (int k = 0; k < p.skips.length; k++) {
+                    for (; at < p.skips[k]; at++) {
+                        pos += Frames.HEADER_BYTES + raw.getInt(pos);
+                    }
+                    int len = raw.getInt(pos);
+                    sink.accept(BinaryCodec.INSTANCE.decode(raw.array(), pos + Frames.HEADER_BYTES, len), p.seqs[k]);
+                }
+            } catch (IOException e) {
+                System.out.println("[History] 기록 읽기 실패(" + room + ", " + p.file.getFileName() + "): " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * fromSeq 부터 최대 max 건을 오래된 순서로 흘려보낸다. 락 안에서는 읽을 범위를 정하고 압축 전 기록만 복사해 두며,
+     * 압축 해제와 디코딩은 락 밖에서 한다.
+     * @return 마지막으로 보낸 기록 다음 번호
+     */
+    long read(long fromSeq, int max, Consumer<Message> sink) {
+        List<Chunk> chunks = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) return fromSeq;
+            lastAccess = System.currentTimeMillis();
+            long seq = fromSeq;
+            int remaining = max;
+            for (Segment s : segments) {
+                if (remaining <= 0) break;
+                if (s.baseSeq + s.count <= seq) continue;
+                long start = Math.max(seq, s.baseSeq);
+                int skip = (int) (start - s.baseSeq);
+                int n = Math.min(remaining, s.count - skip);
+                if (n <= 0) continue;
+                chunks.add(s.compressed ? new Chunk(s, null, start, skip, n) : new Chunk(s, copy(s, skip, n), start, 0, n));
+                seq = start + n;
+                remaining -= n;
+            }
+        } catch (IOException e) {
+            System.out.println("[History] 기록 매핑 실패(" + room + "): " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+
+        long seq = fromSeq;
+        for (Chunk c : chunks) {
+            try {
+                if (c.records != null) {
+                    emit(ByteBuffer.wrap(c.records), 0, 0, c.n, sink);
+                } else {
+                    emit(ByteBuffer.wrap(inflated(c.segment, c.file, c.count).raw), 0, c.skip, c.n, sink);
+                }
+                seq = c.start + c.n;
+            } catch (IOException e) {
+                System.out.println("[History] 기록 읽기 실패(" + room + ", " + c.file.getFileName() + "): " + e.getMessage());
+            }
+        }
+        return seq;
+    }
+
+    // 락 안에서: 압축 전 세그먼트의 skip 번째부터 n 건을 복사
+    private byte[] copy(Segment s, int skip, int n) throws IOException {
+        ensureMapped(s);
+        MappedByteBuffer m = s.map;
+        int k = Math.min(skip / INDEX_INTERVAL, s.indexSize - 1);
+        int pos = k < 0 ? 0 : s.index[k];
+        for (int i = Math.max(k, 0) * INDEX_INTERVAL; i < skip; i++) {
+            pos += Frames.HEADER_BYTES + m.getInt(pos);
+        }
+        int from = pos;
+        for (int i = 0; i < n; i++) {
+            pos += Frames.HEADER_BYTES + m.getInt(pos);
+        }
+        byte[] records = new byte[pos - from];
+        m.get(from, records, 0, records.length);
+        return records;
+    }
+
+    // 압축 세그먼트는 한 번 풀면 공용 캐시에서 (같은 세그먼트의 다음 페이지·검색 결과)
+    private InflatedSegments.Entry inflated(Segment segment, Path file, int count) throws IOException {
+        InflatedSegments cache = owner.inflated();
+        InflatedSegments.Entry e = cache.get(segment, count);
+        if (e == null) {
+            e = inflate(file);
+            cache.put(segment, e);
+        }
+        return e;
+    }
+
+    // buf 의 pos 부터 skip 건을 건너뛰고 n 건을 디코딩
+    private void emit(ByteBuffer buf, int pos, int skip, int n, Consumer<Message> sink) throws IOException {
+        for (int i = 0; i < skip; i++) {
+            pos += Frames.HEADER_BYTES + buf.getInt(pos);
+        }
+        byte[] payload = new byte[256];
+        for (int i = 0; i < n; i++) {
+            int len = buf.getInt(pos);
+            if (len > payload.length) {
+                payload = new byte[len];
+            }
+            buf.get(pos + Frames.HEADER_BYTES, payload, 0, len);
+            sink.accept(BinaryCodec.INSTANCE.decode(payload, 0, len));
+            pos += Frames.HEADER_BYTES + len;
+        }
+    }
+
+    // ===== 세그먼트 관리 =====
+
+    // 활성 세그먼트를 닫고 새 세그먼트를 연다. 닫힌 세그먼트는 다음 정리 때 압축된다. 새 파일은 처음 쓸 때 만든다
+    private void roll(int minCapacity) throws IOException {
+        if (active != null && active.count == 0) {
+            // 빈 세그먼트(첫 기록이 너무 컸던 경우)는 같은 번호로 다시 만든다
+            segments.remove(active);
+            unmap(active);
+            deleteQuietly(active.file);
+        } else if (active != null) {
+            unmap(active);
+        }
+        Segment s = new Segment(nextSeq, dir.resolve(name(nextSeq, LOG)));
+        s.capacity = Math.max(Math.min(INITIAL_SEGMENT_BYTES, config.segmentBytes), minCapacity);
+        s.lastModified = System.currentTimeMillis();
+        segments.add(s);
+        active = s;
+        activeSince = System.currentTimeMillis();
+    }
+
+    // 활성 세그먼트를 needed 바이트 이상으로 (두 배씩, segmentBytes 까지). 다음 ensureMapped 가 새 크기로 매핑
+    private void grow(int needed) {
+        unmap(active);
+        active.capacity = Math.min(config.segmentBytes, Math.max(active.capacity * 2, needed));
+    }
+
+    // 락 안에서. 활성 세그먼트는 쓰기용(파일도 capacity 까지 늘어남), 닫힌 세그먼트는 읽기 전용
+    private void ensureMapped(Segment s) throws IOException {
+        if (s.map != null) return;
+        s.map = s == active ? map(s.file, s.capacity) : mapReadOnly(s.file);
+    }
+
+    // 락 안에서 (매핑을 읽는 곳은 모두 락 안이므로 바로 풀어도 된다)
+    private static void unmap(Segment s) {
+        MappedByteBuffer m = s.map;
+        if (m == null) return;
+        s.map = null;
+        if (!m.isReadOnly()) {
+            m.force();
+        }
+        release(m);
+    }
+
+    private void recover() throws IOException {
+        List<Long> bases = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) {
+                String n = f.getFileName().toString();
+                if (n.endsWith(COMPRESSED) || n.endsWith(LOG)) {
+                    long base = Long.parseLong(n.substring(0, n.indexOf('.')));
+                    if (!bases.contains(base)) bases.add(base);
+                } else if (n.endsWith(".tmp")) {
+                    Files.deleteIfExists(f); // 압축/병합 중에 죽은 흔적
+                }
+            }
+        }
+        bases.sort(null);
+
+        for (int i = 0; i < bases.size(); i++) {
+            long base = bases.get(i);
+            Path z = dir.resolve(name(base, COMPRESSED));
+            Path plain = dir.resolve(name(base, LOG));
+            Segment s = new Segment(base, z);
+            if (Files.exists(z)) {
+                Files.deleteIfExists(plain); // 압축은 끝났는데 원본 삭제 전에 죽은 경우
+                readHeader(s);
+            } else {
+                s.file = plain;
+                s.capacity = (int) Files.size(plain);
+                s.map = mapReadOnly(plain);
+                scan(s);
+                unmap(s);
+            }
+            s.lastModified = Files.getLastModifiedTime(s.file).toMillis();
+            segments.add(s);
+        }
+
+        Segment tail = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        nextSeq = tail == null ? 0 : tail.baseSeq + tail.count;
+        if (tail != null && !tail.compressed) {
+            // 마지막 세그먼트에 이어 쓴다 (처음 쓸 때 READ_WRITE 로 매핑)
+            active = tail;
+            activeSince = System.currentTimeMillis();
+        } else {
+            roll(0);
+        }
+    }
+
+    // 길이 0(또는 범위 밖)을 만날 때까지 기록을 세면서 인덱스를 만든다
+    private static void scan(Segment s) {
+        MappedByteBuffer m = s.map;
+        int pos = 0;
+        int count = 0;
+        while (pos + Frames.HEADER_BYTES <= m.capacity()) {
+            int len = m.getInt(pos);
+            if (len <= 0 || pos + Frames.HEADER_BYTES + len > m.capacity()) break;
+            s.addIndex(count, pos);
+            pos += Frames.HEADER_BYTES + len;
+            count++;
+        }
+        s.end = pos;
+        s.count = count;
+    }
+
+    /**
+     * 백그라운드 정리: 오래된 활성 세그먼트 닫기 → 닫힌 세그먼트 압축 → 작은 압축 세그먼트 병합 → 보존 정책 적용.
+     * HistoryLog 의 정리 스레드 하나에서만 불리므로 닫힌 세그먼트는 여기서만 바뀐다.
+     */
+    void maintain() {
+        long now = System.currentTimeMillis();
+        List<Segment> sealed = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) return;
+            if (active.count > 0 && now - activeSince > config.rollMillis) {
+                roll(0);
+            }
+            if (now - lastAccess > IDLE_UNMAP_MILLIS) {
+                for (Segment s : segments) {
+                    unmap(s);
+                }
+            }
+            for (Segment s : segments) {
+                if (s != active) sealed.add(s);
+            }
+        } catch (IOException e) {
+            System.out.println("[History] 세그먼트 전환 실패(" + room + "): " + e.getMessage());
+            return;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            for (Segment s : sealed) {
+                if (!s.compressed) compress(s);
+            }
+            mergeSmall(sealed);
+            applyRetention(now);
+        } catch (IOException e) {
+            System.out.println("[History] 정리 실패(" + room + "): " + e.getMessage());
+        }
+    }
+
+    // 닫힌 세그먼트는 더 바뀌지 않으므로 매핑 없이 파일에서 바로 읽는다
+    private void compress(Segment s) throws IOException {
+        byte[] raw = readPrefix(s.file, s.end);
+        Path z = dir.resolve(name(s.baseSeq, COMPRESSED));
+        writeCompressed(z, raw, s.count, s.lastModified);
+        Path plain = s.file;
+        lock.lock();
+        try {
+            s.compressed = true;
+            s.file = z;
+            s.rawBytes = raw.length;
+            unmap(s);
+            s.index = new int[0];
+            s.indexSize = 0;
+        } finally {
+            lock.unlock();
+        }
+        deleteQuietly(plain);
+    }
+
+    // 이어진 압축 세그먼트 둘을 풀었을 때 합이 세그먼트 크기 이하이면 하나로 합친다
+    private void mergeSmall(List<Segment> sealed) throws IOException {
+        for (int i = 0; i + 1 < sealed.size(); i++) {
+            Segment a = sealed.get(i);
+            Segment b = sealed.get(i + 1);
+            if (!a.compressed || !b.compressed || a.rawBytes + b.rawBytes > config.segmentBytes) continue;
+
+            byte[] merged = new byte[a.rawBytes + b.rawBytes];
+            byte[] ra = inflate(a.file).raw;
+            byte[] rb = inflate(b.file).raw;
+            System.arraycopy(ra, 0, merged, 0, ra.length);
+            System.arraycopy(rb, 0, merged, ra.length, rb.length);
+            writeCompressed(a.file, merged, a.count + b.count, b.lastModified);
+
+            lock.lock();
+            try {
+                a.count += b.count;
+                a.rawBytes = merged.length;
+                a.lastModified = b.lastModified;
+                segments.remove(b);
+            } finally {
+                lock.unlock();
+            }
+            owner.inflated().evict(b);
+            deleteQuietly(b.file);
+            sealed.remove(i + 1);
+            i--; // 합친 a 를 다음 것과 다시 비교
+        }
+    }
+
+    // 오래된 닫힌 세그먼트부터: 보존 기간을 넘었거나 전체 크기가 한도를 넘으면 삭제 (활성 세그먼트는 유지)
+    private void applyRetention(long now) {
+        while (true) {
+            Segment oldest;
+            lock.lock();
+            try {
+                if (segments.size() < 2) return;
+                oldest = segments.get(0);
+                long total = 0;
+                for (Segment s : segments) total += s.sizeOnDisk();
+                boolean expired = now - oldest.lastModified > config.retentionMillis;
+                if (!expired && total <= config.retentionBytes) return;
+                segments.remove(0);
+            } finally {
+                lock.unlock();
+            }
+            owner.inflated().evict(oldest);
+            deleteQuietly(oldest.file);
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            for (Segment s : segments) {
+                unmap(s);
+                owner.inflated().evict(s);
+            }
+        } finally {
+            lock.unlock();
+        }
+        owner.forget(this);
+    }
+
+    // ===== 파일 =====
+
+    static String name(long base, String suffix) {
+        return String.format("%020d%s", base, suffix);
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static MappedByteBuffer mapReadOnly(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+    }
+
+    // GC 를 기다리지 않고 매핑을 바로 푼다. 쓸 수 없는 JVM 이면 GC 에 맡긴다
+    private static void release(MappedByteBuffer map) {
+        if (INVOKE_CLEANER == null) return;
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, map);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.out.println("[History] 매핑 해제 실패: " + e);
+        }
+    }
+
+    private static byte[] readPrefix(Path file, int length) throws IOException {
+        byte[] raw = new byte[length];
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.wrap(raw);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, buf.position()) < 0) {
+                    throw new IOException("세그먼트가 기록보다 짧습니다: " + file.getFileName());
+                }
+            }
+        }
+        return raw;
+    }
+
+    // 압축 파일 형식: [int 기록 수][int 원본 크기][deflate(기록들)]. 임시 파일에 쓰고 원자적으로 교체
+    private void writeCompressed(Path target, byte[] raw, int count, long lastModified) throws IOException {
+        Path tmp = Files.createTempFile(dir, "segment", ".tmp");
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp);
+                 DataOutputStream header = new DataOutputStream(os)) {
+                header.writeInt(count);
+                header.writeInt(raw.length);
+                DeflaterOutputStream out = new DeflaterOutputStream(header, deflater, 64 * 1024);
+                out.write(raw);
+                out.finish();
+            }
+            Files.setLastModifiedTime(tmp, FileTime.fromMillis(lastModified));
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(tmp);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void readHeader(Segment s) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(s.file))) {
+            s.compressed = true;
+            s.count = in.readInt();
+            s.rawBytes = in.readInt();
+        }
+    }
+
+    private static InflatedSegments.Entry inflate(Path file) throws IOException {
+        Inflater inflater = new Inflater();
+        try (InputStream is = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(is)) {
+            int count = in.readInt();
+            byte[] raw = new byte[in.readInt()];
+            new DataInputStream(new InflaterInputStream(in, inflater, 64 * 1024)).readFully(raw);
+            return new InflatedSegments.Entry(count, raw);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.out.println("[History] 파일 삭제 실패(" + file + "): " + e.getMessage());
+        }
+    }
+}
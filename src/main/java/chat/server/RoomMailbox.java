@@ -0,0 +1,83 @@
+package chat.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 방 하나의 작업 대기열. 어느 스레드에서 넣든 공용 작업 스레드 풀에서 한 번에 한 스레드만 꺼내 실행하므로
+ * 방 상태(참가자, 게임, 입장·퇴장 변경분, 방 순번)는 락 없이 이 대기열 안에서만 바꾼다.
+ * 한 번에 DRAIN_BATCH 개 또는 DRAIN_BUDGET 시간까지만 실행하고 풀에 다시 줄을 서서,
+ * 바쁜 방 하나가 작업 스레드를 붙잡고 있지 않게 한다.
+ * 실행할 풀은 바꿀 수 있다 (뜨거운 방을 전용 풀로 옮기기). 바꾼 뒤 다음 줄 서기부터 새 풀에서 실행된다.
+ */
+class RoomMailbox {
+
+    static final int DRAIN_BATCH = 64;
+    // 큰 방 방송 하나가 수 ms 라서 개수만으로는 부족하다
+    static final long DRAIN_BUDGET_NANOS = 2_000_000;
+
+    private final String room;
+    private volatile Executor executor;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile Thread owner; // 지금 대기열을 비우고 있는 스레드
+
+    RoomMailbox(String room, Executor executor) {
+        this.room = room;
+        this.executor = executor;
+    }
+
+    void post(Runnable task) {
+        tasks.add(task);
+        schedule();
+    }
+
+    // 지금 실행 중인 작업이 있으면 그 묶음이 끝난 뒤부터. 한 번에 한 스레드만 실행하는 건 그대로
+    void moveTo(Executor executor) {
+        this.executor = executor;
+    }
+
+    // 대기열을 비우는 스레드 안인지 (방 상태를 바로 만져도 되는지)
+    boolean inMailbox() {
+        return owner == Thread.currentThread();
+    }
+
+    int pending() {
+        return tasks.size();
+    }
+
+    private void schedule() {
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                System.out.println("[Room:" + room + "] 작업을 실행할 수 없습니다: " + e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        owner = Thread.currentThread();
+        long started = System.nanoTime();
+        try {
+            for (int i = 0; i < DRAIN_BATCH && System.nanoTime() - started < DRAIN_BUDGET_NANOS; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) break;
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.out.println("[Room:" + room + "] 작업 처리 중 오류: " + e);
+                }
+            }
+        } finally {
+            owner = null;
+            scheduled.set(false);
+        }
+        // 남은 작업이 있거나, 그 사이 들어온 작업이 schedule 을 놓쳤으면 다시 줄 선다
+        schedule();
+    }
+}
@@ -0,0 +1,153 @@
+package chat.server;
+
+import chat.shared.Message;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 방 참가자 목록 변경분. 입장·퇴장마다 전체 목록을 모두에게 보내지 않고 닉네임별 마지막 상태만 모아 두었다가,
+ * 첫 변경 뒤 interval 이 지나면 USER_JOINED / USER_LEFT 로 한 번에 보낸다 (방마다 주기당 한 번).
+ * 변경분에는 방마다 1씩 늘어나는 버전이 붙고, 새로 들어온 사람은 그 버전의 전체 목록(USER_LIST)을 바로 받는다.
+ * 변경분을 모르는 예전 클라이언트는 같은 시점에 전체 목록을 받는다.
+ * 인원이 summaryThreshold 이상인 방은 입장·퇴장 안내도 "A님, B님 외 N명이 입장했습니다." 한 줄로 묶는다.
+ * 모든 메서드는 방 작업 대기열 안에서 불린다 (타이머도 대기열에 flush 를 넣기만 함).
+ */
+class RoomPresence {
+
+    private static final int NAMES_IN_SUMMARY = 3;
+
+    // 모든 방이 나눠 쓰는 타이머 스레드와 설정
+    static final class Settings {
+        final ScheduledExecutorService timer;
+        final long intervalMillis;
+        final int summaryThreshold;
+
+        Settings(ScheduledExecutorService timer, long intervalMillis, int summaryThreshold) {
+            this.timer = timer;
+            this.intervalMillis = intervalMillis;
+            this.summaryThreshold = summaryThreshold;
+        }
+    }
+
+    private final ChatRoom room;
+    private final Settings settings; // null 이면 모으지 않고 바로 보냄
+    private final Map<String, Boolean> pending = new LinkedHashMap<>(); // 닉네임 → 지금 들어와 있는지
+    private final List<String> joinNotices = new ArrayList<>();
+    private final List<String> leaveNotices = new ArrayList<>();
+    private long version;
+    private boolean scheduled;
+
+    RoomPresence(ChatRoom room, Settings settings) {
+        this.room = room;
+        this.settings = settings;
+    }
+
+    /**
+     * 참가자 집합에 넣은 뒤 호출. 들어온 사람에게는 지금 목록을 바로 보낸다.
+     * 큰 방이라 입장 안내를 묶어 보낼 거면 true (호출한 쪽은 안내를 보내지 않음).
+     */
+    boolean joined(ClientHandler client) {
+        pending.put(client.getNickname(), true);
+        boolean summarized = summarize();
+        if (summarized) {
+            joinNotices.add(client.getNickname());
+        }
+        client.send(snapshot());
+        schedule();
+        if (settings == null) flush();
+        return summarized;
+    }
+
+    // 참가자 집합에서 뺀 뒤 호출. 반환값은 joined 와 같음
+    boolean left(ClientHandler client) {
+        pending.put(client.getNickname(), false);
+        boolean summarized = summarize();
+        if (summarized) {
+            leaveNotices.add(client.getNickname());
+        }
+        schedule();
+        if (settings == null) flush();
+        return summarized;
+    }
+
+    // USER_LIST 재요청 (변경분을 놓친 클라이언트)
+    void sendSnapshot(ClientHandler client) {
+        client.send(snapshot());
+    }
+
+    private boolean summarize() {
+        return settings != null && room.participantCount() >= settings.summaryThreshold;
+    }
+
+    private void schedule() {
+        if (settings == null || scheduled) return;
+        scheduled = true;
+        settings.timer.schedule(() -> room.post(this::flush), settings.intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void flush() {
+        scheduled = false;
+        List<String> in = new ArrayList<>();
+        List<String> out = new ArrayList<>();
+        for (Map.Entry<String, Boolean> e : pending.entrySet()) {
+            (e.getValue() ? in : out).add(e.getKey());
+        }
+        pending.clear();
+        if (!in.isEmpty() || !out.isEmpty()) {
+            SharedFrame joinFrame = in.isEmpty() ? null
+                    : SharedFrame.of(Message.userDelta(Message.Type.USER_JOINED, room.getName(), in, ++version));
+            SharedFrame leaveFrame = out.isEmpty() ? null
+                    : SharedFrame.of(Message.userDelta(Message.Type.USER_LEFT, room.getName(), out, ++version));
+            SharedFrame legacy = null;
+            for (ClientHandler ch : room.recipients()) {
+                if (ch.isModern()) {
+                    if (joinFrame != null) ch.send(joinFrame);
+                    if (leaveFrame != null) ch.send(leaveFrame);
+                } else {
+                    if (legacy == null) legacy = snapshot();
+                    ch.send(legacy);
+                }
+            }
+        }
+        List<String> joinedNames = new ArrayList<>(joinNotices);
+        List<String> leftNames = new ArrayList<>(leaveNotices);
+        joinNotices.clear();
+        leaveNotices.clear();
+        if (!joinedNames.isEmpty()) {
+            room.broadcast(Message.systemForRoom(room.getName(), summary(joinedNames) + " 입장했습니다."), true);
+        }
+        if (!leftNames.isEmpty()) {
+            room.broadcast(Message.systemForRoom(room.getName(), summary(leftNames) + " 퇴장했습니다."), false);
+        }
+        if (!joinedNames.isEmpty() || !leftNames.isEmpty()) {
+            System.out.println("[Room:" + room.getName() + "] 입장 " + joinedNames.size() + "명, 퇴장 " + leftNames.size() + "명 (묶음 안내)");
+        }
+    }
+
+    long version() {
+        return version;
+    }
+
+    // 아직 보내지 않은 변경분도 이미 반영된 목록이지만, 변경분은 "들어와 있음/나감" 상태라 다시 적용해도 같다
+    private SharedFrame snapshot() {
+        return SharedFrame.of(Message.userListSnapshot(room.getName(), room.nicknames(), version));
+    }
+
+    // "A님, B님, C님 외 N명이" / "A님이"
+    private static String summary(List<String> names) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < names.size() && i < NAMES_IN_SUMMARY; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(names.get(i)).append("님");
+        }
+        if (names.size() > NAMES_IN_SUMMARY) {
+            sb.append(" 외 ").append(names.size() - NAMES_IN_SUMMARY).append("명");
+        }
+        return sb.append("이").toString();
+    }
+}
@@ -0,0 +1,52 @@
+package chat.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 방 검색 색인을 채우는 백그라운드 스레드 하나.
+ * 방송 경로는 (기록 번호, 본문)을 대기열에 넣기만 하므로 색인 때문에 전달이 늦어지지 않는다.
+ * 대기열이 넘치면 그 기록은 버리고 번호만 표시해 두었다가, 그 방의 다음 색인 때 기록 저장소에서 다시 읽어 채운다.
+ */
+class SearchIndexer {
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong overflowed = new AtomicLong();
+
+    SearchIndexer(int queueCapacity) {
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), VirtualThreads.platform("search-index-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // 방이 열릴 때. 저장소에 남아 있는 기록부터 색인한다 (이후 방송보다 먼저 대기열에 들어감)
+    RoomIndex open(String room, RoomHistory history) {
+        RoomIndex index = new RoomIndex(room, history, this);
+        try {
+            executor.execute(index::backfill);
+        } catch (RejectedExecutionException e) {
+            index.markMissed(history.firstSeq());
+        }
+        return index;
+    }
+
+    void submit(RoomIndex index, long seq, String text) {
+        try {
+            executor.execute(() -> index.add(seq, text));
+        } catch (RejectedExecutionException e) {
+            overflowed.incrementAndGet();
+            index.markMissed(seq);
+        }
+    }
+
+    int queued() {
+        return executor.getQueue().size();
+    }
+
+    long overflowed() {
+        return overflowed.get();
+    }
+}
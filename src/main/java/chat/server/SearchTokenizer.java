@@ -0,0 +1,84 @@
+package chat.server;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 검색용 토큰 분리.
+ * 한글은 조사·어미가 붙어 띄어쓰기 단위로는 찾을 수 없으므로 연속된 한글(및 한자·가나) 구간을
+ * 두 글자씩 겹쳐 자른다(bigram). "서버에서" → 서버, 버에, 에서.
+ * 색인할 때는 구간의 첫 글자도 따로 넣어 한 글자 검색어("밥")가 "밥을", "밥이" 에 걸리게 한다.
+ * 그 밖의 글자·숫자는 소문자로 바꾼 단어 하나가 토큰이다.
+ */
+final class SearchTokenizer {
+
+    static final int MAX_TERM = 32;
+
+    private SearchTokenizer() {
+    }
+
+    // 색인용. 같은 토큰이 여러 번 나오면 그대로 여러 번 (tf 계산용)
+    static List<String> indexTerms(String text) {
+        List<String> out = new ArrayList<>();
+        split(text, out, true);
+        return out;
+    }
+
+    // 검색어용. 중복 없이, 모든 토큰을 포함한 기록만 찾는다
+    static List<String> queryTerms(String text) {
+        List<String> out = new ArrayList<>();
+        split(text, out, false);
+        return new ArrayList<>(new LinkedHashSet<>(out));
+    }
+
+    private static void split(String text, List<String> out, boolean forIndex) {
+        if (text == null || text.isEmpty()) return;
+        // 자모가 풀려 들어온 한글(NFD)과 전각 문자를 한 가지 형태로
+        String s = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < s.length()) {
+            int cp = s.codePointAt(i);
+            if (isCjk(cp)) {
+                int end = i;
+                while (end < s.length() && isCjk(s.codePointAt(end))) {
+                    end += Character.charCount(s.codePointAt(end));
+                }
+                addCjk(s.substring(i, end), out, forIndex);
+                i = end;
+            } else if (Character.isLetterOrDigit(cp)) {
+                int end = i;
+                while (end < s.length()) {
+                    int c = s.codePointAt(end);
+                    if (!Character.isLetterOrDigit(c) || isCjk(c)) break;
+                    end += Character.charCount(c);
+                }
+                String word = s.substring(i, end);
+                out.add(word.length() > MAX_TERM ? word.substring(0, MAX_TERM) : word);
+                i = end;
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+    }
+
+    private static void addCjk(String run, List<String> out, boolean forIndex) {
+        int[] cps = run.codePoints().toArray();
+        if (cps.length == 1 || forIndex) {
+            out.add(new String(cps, 0, 1));
+        }
+        for (int k = 0; k + 1 < cps.length; k++) {
+            out.add(new String(cps, k, 2));
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HANGUL
+                || script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+}
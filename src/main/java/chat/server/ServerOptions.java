@@ -0,0 +1,266 @@
+package chat.server;
+
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 서버 실행 옵션. ChatServerMain 인자로 채우고 ChatServer 를 통해 각 구성요소가 읽는다.
+ *
+ * 사용법: ChatServerMain [port] [--nio[=이벤트루프 수] | --virtual]
+ *                       [--queue=접속당 송신 대기열 크기] [--overflow=drop-oldest|drop-chat|disconnect]
+ *                       [--blob-dir=이미지 저장 디렉터리] [--blob-memory=이미지 메모리 예산(MB)]
+ *                       [--thumb=썸네일 긴 변(px)] [--thumb-threads=썸네일 작업 스레드 수]
+ *                       [--history-store=disk|memory] [--history-dir=기록 디렉터리] [--history-replay=입장 시 보낼 기록 수]
+ *                       [--history-retention-hours=보존 시간] [--history-retention-mb=방당 보존 크기(MB)]
+ *                       [--history=방당 기록 크기(KB)] [--history-memory=전체 기록 메모리(MB)]  (memory 모드)
+ *                       [--search-queue=검색 색인 대기열 크기] [--directory-interval=방 참여자 수 알림 주기(ms)]
+ *                       [--presence-interval=방 입장·퇴장 묶음 주기(ms)] [--presence-summary=입장·퇴장 안내를 묶는 방 인원]
+ *                       [--room-threads=방 작업 스레드 수] [--request-threads=기록·검색·이미지 요청 작업 스레드 수]
+ *                       [--fanout-threshold=병렬 방송 시작 인원] [--fanout-slice=조각당 인원] [--fanout-threads=병렬 방송 스레드 수]
+ *                       [--hot-rate=뜨거운 방 기준 초당 메시지 수] [--hot-cost=뜨거운 방 기준 초당 방송 시간(ms)]
+ *                       [--hot-cooldown=공용 풀로 돌아가기까지(초)] [--hot-max=동시에 격리할 방 수] [--hot-threads=전용 작업 스레드 수]
+ *                       [--node=이 노드 이름 --cluster=a=host:port,b=host:port,... [--cluster-transport=tcp|local]]
+ *                         (local 이면 한 JVM 안의 서버끼리, 주소 없이 --cluster=a,b,c)
+ *                       [--backplane=memory|중계 host:port]  (여러 서버가 같은 방을 열고 방송을 토픽으로 주고받음)
+ *                       [--gateway-port=게이트웨이 링크를 받을 포트]  (코어)
+ *                       [--upstream=코어 host:port [--upstream-links=코어 링크 수]]  (게이트웨이로 실행)
+ *                       [--replication-port=대기 서버가 접속할 포트] [--standby=주 서버 host:복제 포트]  (대기 서버로 실행)
+ *                       [--failover-timeout=주 서버를 잃었다고 볼 때까지(ms)] [--failover-grace=승격 후 참가자를 기다릴 시간(초)]
+ *                       [--resume-window=끊긴 세션을 남겨 둘 시간(초), 0 이면 끔] [--resume-buffer=방마다 남길 최근 방송 수]
+ */
+public class ServerOptions {
+
+    static final int DEFAULT_HISTORY_BYTES = 256 * 1024;
+
+    int port = 6000;
+    boolean nio;
+    boolean virtual;
+    int loops = Runtime.getRuntime().availableProcessors();
+
+    int outboundCapacity = 1024;
+    OutboundQueue.OverflowPolicy overflowPolicy = OutboundQueue.OverflowPolicy.DROP_CHAT;
+
+    String blobDir = "blobs";
+    long blobMemoryBytes = 64L * 1024 * 1024;
+    int thumbnailEdge = 320;
+    int thumbnailThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    boolean historyOnDisk = true;
+    String historyDir = "history";
+    int historyReplay = 200;
+    int historySegmentBytes = 4 * 1024 * 1024;
+    long historyRollMillis = TimeUnit.HOURS.toMillis(1);
+    long historyRetentionMillis = TimeUnit.DAYS.toMillis(7);
+    long historyRetentionBytes = 256L * 1024 * 1024;
+    int historyBytesPerRoom = DEFAULT_HISTORY_BYTES;
+    long historyMemoryBytes = 64L * 1024 * 1024;
+    int searchQueue = 65536;
+    long directoryIntervalMillis = 1000;
+    long presenceIntervalMillis = 500;
+    int presenceSummaryThreshold = 50;
+    int roomThreads = Runtime.getRuntime().availableProcessors();
+    // 이벤트 루프에서 넘겨받은 기록·검색·이미지 요청 (디스크 읽기)
+    int requestThreads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    int fanoutThreshold = 2048;
+    int fanoutSlice = 512;
+    int fanoutThreads = Runtime.getRuntime().availableProcessors();
+    int hotRate = 200;
+    int hotCostMillis = 100;
+    int hotCooldownSeconds = 10;
+    int hotMax = 8;
+    int hotThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // 클러스터 (nodeId 가 없으면 혼자)
+    String nodeId;
+    Map<String, InetSocketAddress> clusterNodes = new LinkedHashMap<>();
+    boolean clusterLocal;
+    // 발행/구독 통로: "memory" (한 JVM 안) 또는 BackplaneBroker 주소
+    String backplane;
+    // 게이트웨이: 코어는 gatewayPort 로 링크를 받고, 게이트웨이는 upstream 으로 링크를 맺는다
+    int gatewayPort;
+    InetSocketAddress upstream;
+    int upstreamLinks = 2;
+    // 복제: 주 서버는 replicationPort 로 이벤트 기록을 내보내고, 대기 서버는 standby 주소로 받는다
+    int replicationPort;
+    InetSocketAddress standby;
+    int failoverTimeoutMillis = 1000;
+    int failoverGraceSeconds = 30;
+    // 세션 이어받기: 끊긴 세션을 resumeWindowSeconds 동안 남겨 두고, 방마다 최근 방송 resumeBuffer 개를 다시 보낼 수 있게 둔다
+    int resumeWindowSeconds = 60;
+    int resumeBuffer = 1024;
+
+    private ThreadFactory connectionThreads;
+
+    public static ServerOptions parse(String[] args) {
+        ServerOptions o = new ServerOptions();
+        for (String arg : args) {
+            if (arg.startsWith("--nio")) {
+                o.nio = true;
+                if (arg.startsWith("--nio=")) {
+                    o.loops = intValue(arg, o.loops);
+                }
+            } else if (arg.equals("--virtual")) {
+                o.virtual = true;
+            } else if (arg.startsWith("--queue=")) {
+                o.outboundCapacity = intValue(arg, o.outboundCapacity);
+            } else if (arg.startsWith("--overflow=")) {
+                String v = arg.substring("--overflow=".length()).trim().toUpperCase().replace('-', '_');
+                try {
+                    o.overflowPolicy = OutboundQueue.OverflowPolicy.valueOf(v);
+                } catch (IllegalArgumentException e) {
+                    System.out.println("알 수 없는 overflow 정책: " + v + ", 기본값 " + o.overflowPolicy + " 사용");
+                }
+            } else if (arg.startsWith("--blob-dir=")) {
+                o.blobDir = arg.substring("--blob-dir=".length()).trim();
+            } else if (arg.startsWith("--blob-memory=")) {
+                o.blobMemoryBytes = intValue(arg, (int) (o.blobMemoryBytes >> 20)) * 1024L * 1024;
+            } else if (arg.startsWith("--history-store=")) {
+                o.historyOnDisk = !arg.endsWith("=memory");
+            } else if (arg.startsWith("--history-dir=")) {
+                o.historyDir = arg.substring("--history-dir=".length()).trim();
+            } else if (arg.startsWith("--history-replay=")) {
+                o.historyReplay = Math.max(0, intValue(arg, o.historyReplay));
+            } else if (arg.startsWith("--history-retention-hours=")) {
+                o.historyRetentionMillis = TimeUnit.HOURS.toMillis(Math.max(1, intValue(arg, 24 * 7)));
+                o.historyRollMillis = Math.min(o.historyRollMillis, o.historyRetentionMillis / 4);
+            } else if (arg.startsWith("--history-retention-mb=")) {
+                o.historyRetentionBytes = Math.max(1, intValue(arg, (int) (o.historyRetentionBytes >> 20))) * 1024L * 1024;
+            } else if (arg.startsWith("--history=")) {
+                o.historyBytesPerRoom = Math.max(4, intValue(arg, o.historyBytesPerRoom >> 10)) * 1024;
+            } else if (arg.startsWith("--history-memory=")) {
+                o.historyMemoryBytes = Math.max(1, intValue(arg, (int) (o.historyMemoryBytes >> 20))) * 1024L * 1024;
+            } else if (arg.startsWith("--directory-interval=")) {
+                o.directoryIntervalMillis = Math.max(50, intValue(arg, (int) o.directoryIntervalMillis));
+            } else if (arg.startsWith("--presence-interval=")) {
+                o.presenceIntervalMillis = Math.max(10, intValue(arg, (int) o.presenceIntervalMillis));
+            } else if (arg.startsWith("--presence-summary=")) {
+                o.presenceSummaryThreshold = Math.max(1, intValue(arg, o.presenceSummaryThreshold));
+            } else if (arg.startsWith("--room-threads=")) {
+                o.roomThreads = Math.max(1, intValue(arg, o.roomThreads));
+            } else if (arg.startsWith("--request-threads=")) {
+                o.requestThreads = Math.max(1, intValue(arg, o.requestThreads));
+            } else if (arg.startsWith("--fanout-threshold=")) {
+                o.fanoutThreshold = Math.max(2, intValue(arg, o.fanoutThreshold));
+            } else if (arg.startsWith("--fanout-slice=")) {
+                o.fanoutSlice = Math.max(1, intValue(arg, o.fanoutSlice));
+            } else if (arg.startsWith("--fanout-threads=")) {
+                o.fanoutThreads = Math.max(1, intValue(arg, o.fanoutThreads));
+            } else if (arg.startsWith("--hot-rate=")) {
+                o.hotRate = Math.max(1, intValue(arg, o.hotRate));
+            } else if (arg.startsWith("--hot-cost=")) {
+                o.hotCostMillis = Math.max(1, intValue(arg, o.hotCostMillis));
+            } else if (arg.startsWith("--hot-cooldown=")) {
+                o.hotCooldownSeconds = Math.max(1, intValue(arg, o.hotCooldownSeconds));
+            } else if (arg.startsWith("--hot-max=")) {
+                o.hotMax = Math.max(0, intValue(arg, o.hotMax));
+            } else if (arg.startsWith("--hot-threads=")) {
+                o.hotThreads = Math.max(1, intValue(arg, o.hotThreads));
+            } else if (arg.startsWith("--node=")) {
+                o.nodeId = arg.substring("--node=".length()).trim();
+            } else if (arg.startsWith("--cluster=")) {
+                o.clusterNodes = clusterNodes(arg.substring("--cluster=".length()));
+            } else if (arg.startsWith("--cluster-transport=")) {
+                o.clusterLocal = arg.endsWith("=local");
+            } else if (arg.startsWith("--backplane=")) {
+                o.backplane = arg.substring("--backplane=".length()).trim();
+            } else if (arg.startsWith("--gateway-port=")) {
+                o.gatewayPort = Math.max(0, intValue(arg, 0));
+            } else if (arg.startsWith("--upstream=")) {
+                o.upstream = address(arg.substring("--upstream=".length()).trim());
+            } else if (arg.startsWith("--upstream-links=")) {
+                o.upstreamLinks = Math.max(1, intValue(arg, o.upstreamLinks));
+            } else if (arg.startsWith("--replication-port=")) {
+                o.replicationPort = Math.max(0, intValue(arg, 0));
+            } else if (arg.startsWith("--standby=")) {
+                o.standby = address(arg.substring("--standby=".length()).trim());
+            } else if (arg.startsWith("--failover-timeout=")) {
+                o.failoverTimeoutMillis = Math.max(100, intValue(arg, o.failoverTimeoutMillis));
+            } else if (arg.startsWith("--failover-grace=")) {
+                o.failoverGraceSeconds = Math.max(0, intValue(arg, o.failoverGraceSeconds));
+            } else if (arg.startsWith("--resume-window=")) {
+                o.resumeWindowSeconds = Math.max(0, intValue(arg, o.resumeWindowSeconds));
+            } else if (arg.startsWith("--resume-buffer=")) {
+                o.resumeBuffer = Math.max(1, intValue(arg, o.resumeBuffer));
+            } else if (arg.startsWith("--search-queue=")) {
+                o.searchQueue = Math.max(1, intValue(arg, o.searchQueue));
+            } else if (arg.startsWith("--thumb-threads=")) {
+                o.thumbnailThreads = Math.max(1, intValue(arg, o.thumbnailThreads));
+            } else if (arg.startsWith("--thumb=")) {
+                o.thumbnailEdge = Math.max(16, intValue(arg, o.thumbnailEdge));
+            } else {
+                try {
+                    o.port = Integer.parseInt(arg);
+                } catch (NumberFormatException e) {
+                    System.out.println("포트 파싱 실패, 기본 포트 " + o.port + " 사용");
+                }
+            }
+        }
+        return o;
+    }
+
+    private static int intValue(String arg, int fallback) {
+        try {
+            return Integer.parseInt(arg.substring(arg.indexOf('=') + 1).trim());
+        } catch (NumberFormatException e) {
+            System.out.println("옵션 파싱 실패(" + arg + "), 기본값 " + fallback + " 사용");
+            return fallback;
+        }
+    }
+
+    // "a=127.0.0.1:7101,b=127.0.0.1:7102" (local 링크면 "a,b" 처럼 이름만)
+    private static Map<String, InetSocketAddress> clusterNodes(String value) {
+        Map<String, InetSocketAddress> nodes = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) continue;
+            int eq = part.indexOf('=');
+            if (eq < 0) {
+                nodes.put(part, null);
+                continue;
+            }
+            InetSocketAddress address = address(part.substring(eq + 1));
+            if (address != null) {
+                nodes.put(part.substring(0, eq), address);
+            }
+        }
+        return nodes;
+    }
+
+    // "host:port" (파싱 실패면 null)
+    static InetSocketAddress address(String value) {
+        int colon = value.lastIndexOf(':');
+        try {
+            return new InetSocketAddress(value.substring(0, colon), Integer.parseInt(value.substring(colon + 1)));
+        } catch (RuntimeException e) {
+            System.out.println("주소 파싱 실패(" + value + ")");
+            return null;
+        }
+    }
+
+    public ServerOptions virtual(boolean virtual) {
+        this.virtual = virtual;
+        this.connectionThreads = null;
+        return this;
+    }
+
+    // 접속 읽기 루프·송신 writer 에 쓰는 스레드 (가상 스레드 모드면 가상 스레드)
+    public synchronized ThreadFactory connectionThreads() {
+        if (connectionThreads == null) {
+            connectionThreads = handlerThreads(virtual);
+        }
+        return connectionThreads;
+    }
+
+    private static ThreadFactory handlerThreads(boolean virtual) {
+        if (virtual) {
+            ThreadFactory vt = VirtualThreads.factoryOrNull("client-vt-");
+            if (vt != null) {
+                System.out.println("[Server] 가상 스레드 모드");
+                return vt;
+            }
+            System.out.println("[Server] 이 런타임은 가상 스레드를 지원하지 않습니다(JDK 21+ 필요). 플랫폼 스레드로 실행합니다.");
+        }
+        return VirtualThreads.platform("client-");
+    }
+}
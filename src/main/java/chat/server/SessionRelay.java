@@ -0,0 +1,295 @@
+package chat.server;
+
+import chat.shared.BinaryCodec;
+import chat.shared.Frames;
+import chat.shared.Message;
+import chat.shared.WireReader;
+import chat.shared.WireWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 세션 번호를 붙여 다른 프로세스와 클라이언트 요청·응답을 주고받는 부분 (클러스터 노드 사이, 게이트웨이 ↔ 코어).
+ * 요청을 넘기는 쪽(home)은 FORWARD 로 보내고, 접속이 끊기면 DETACH 로 알린다.
+ * 받는 쪽은 세션마다 대리 ClientHandler 를 두고 자기 클라이언트처럼 처리한다.
+ * 대리가 보내는 프레임은 home 별로 모았다가, 같은 프레임을 받는 세션들을 묶어 한 번만 보낸다(DELIVER).
+ * home 은 받은 프레임을 다시 인코딩하지 않고 자기 클라이언트들에게 나눠 준다.
+ * 첫 FORWARD 가 LOGIN(또는 RESUME) 이면 대리도 LOGIN 부터 처리한다 (게이트웨이: 접속 등록·환영 인사·방 목록을 받는 쪽이 맡음).
+ */
+class SessionRelay implements ClusterTransport.Receiver {
+
+    private static final int FORWARD = 1; // home → 받는 쪽: [세션][닉네임][modern][메시지]
+    private static final int DELIVER = 2; // 받는 쪽 → home: [프레임][세션 수][세션...]
+    private static final int DETACH = 3;  // home → 받는 쪽: [세션] 접속 종료
+
+    // 이 프로세스에 접속해 있고 요청을 다른 쪽으로 넘긴 클라이언트
+    private static final class Session {
+        final long id;
+        final ClientHandler client;
+        final Set<String> nodes = ConcurrentHashMap.newKeySet(); // 요청을 넘긴 노드
+
+        Session(long id, ClientHandler client) {
+            this.id = id;
+            this.client = client;
+        }
+    }
+
+    private static final class Outgoing {
+        final long session;
+        final SharedFrame frame;
+
+        Outgoing(long session, SharedFrame frame) {
+            this.session = session;
+            this.frame = frame;
+        }
+    }
+
+    private final ChatServer server;
+    private final ClusterTransport transport;
+    private final boolean dropOnLinkDown;
+    private final ExecutorService linkWorkers;
+
+    private final AtomicLong sessionIds = new AtomicLong();
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<ClientHandler, Session> sessionsByClient = new ConcurrentHashMap<>();
+    // "home/세션" → 그쪽에 접속한 클라이언트의 대리
+    private final Map<String, ClientHandler> proxies = new ConcurrentHashMap<>();
+    private final Map<String, NodeLink> links = new ConcurrentHashMap<>();
+
+    // dropOnLinkDown: 링크가 끊기면 그 링크를 쓰던 클라이언트 접속을 끊는다 (게이트웨이: 세션 전체가 그쪽에 있음)
+    SessionRelay(ChatServer server, ClusterTransport transport, boolean dropOnLinkDown) {
+        this.server = server;
+        this.transport = transport;
+        this.dropOnLinkDown = dropOnLinkDown;
+        this.linkWorkers = Executors.newFixedThreadPool(2, VirtualThreads.platform("relay-"));
+    }
+
+    void start(String self) throws IOException {
+        transport.start(self, this);
+    }
+
+    int proxyCount() {
+        return proxies.size();
+    }
+
+    long session(ClientHandler client) {
+        return sessionOf(client).id;
+    }
+
+    private Session sessionOf(ClientHandler client) {
+        return sessionsByClient.computeIfAbsent(client, c -> {
+            Session n = new Session(sessionIds.incrementAndGet(), c);
+            sessions.put(n.id, n);
+            return n;
+        });
+    }
+
+    // 클라이언트 요청 하나를 node 로
+    void forward(String node, ClientHandler client, Message msg) {
+        Session s = sessionOf(client);
+        s.nodes.add(node);
+        WireWriter w = new WireWriter();
+        try {
+            w.writeByte(FORWARD);
+            w.writeVarint(s.id);
+            w.writeString(client.getNickname());
+            w.writeByte(client.isModern() ? 1 : 0);
+            w.writeBytes(BinaryCodec.INSTANCE.encode(msg));
+            transport.send(node, w.toByteArray());
+        } catch (IOException e) {
+            client.send(Message.error("요청을 방 서버로 보내지 못했습니다: " + e.getMessage()));
+        } finally {
+            w.release();
+        }
+    }
+
+    // 클라이언트 접속 종료: 요청을 넘겼던 노드들에서 대리를 정리하게 한다
+    void detach(ClientHandler client) {
+        Session s = sessionsByClient.remove(client);
+        if (s == null) return;
+        sessions.remove(s.id);
+        for (String node : s.nodes) {
+            WireWriter w = new WireWriter();
+            try {
+                w.writeByte(DETACH);
+                w.writeVarint(s.id);
+                transport.send(node, w.toByteArray());
+            } finally {
+                w.release();
+            }
+        }
+    }
+
+    @Override
+    public void receive(String from, byte[] payload) {
+        try {
+            WireReader r = new WireReader(payload, 0, payload.length);
+            switch (r.readByte()) {
+                case FORWARD -> receiveForward(from, r);
+                case DELIVER -> receiveDeliver(r);
+                case DETACH -> {
+                    ClientHandler proxy = proxies.remove(from + "/" + r.readVarint());
+                    if (proxy != null) proxy.disconnect();
+                }
+                default -> System.out.println("[Relay] " + from + " 에서 알 수 없는 메시지");
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[Relay] " + from + " 메시지 처리 실패: " + e);
+        }
+    }
+
+    private void receiveForward(String from, WireReader r) throws IOException {
+        long session = r.readVarint();
+        String nickname = r.readString();
+        boolean modern = r.readByte() == 1;
+        byte[] body = r.readBytes();
+        Message msg = BinaryCodec.INSTANCE.decode(body, 0, body.length);
+        ClientHandler proxy = proxies.computeIfAbsent(from + "/" + session, k -> msg.getType() == Message.Type.LOGIN || msg.getType() == Message.Type.RESUME
+                ? new ClientHandler(new ProxyConnection(from, session), server, null, false)
+                : new ClientHandler(new ProxyConnection(from, session), server, nickname, modern));
+        proxy.receive(msg);
+    }
+
+    private void receiveDeliver(WireReader r) throws IOException {
+        byte[] frame = r.readBytes();
+        Message msg = BinaryCodec.INSTANCE.decode(frame, Frames.HEADER_BYTES, frame.length - Frames.HEADER_BYTES);
+        SharedFrame shared = SharedFrame.of(msg, BinaryCodec.INSTANCE, frame);
+        int count = (int) r.readVarint();
+        for (int i = 0; i < count; i++) {
+            Session s = sessions.get(r.readVarint());
+            if (s != null) s.client.send(shared);
+        }
+    }
+
+    @Override
+    public void linkDown(String node) {
+        String prefix = node + "/";
+        for (Map.Entry<String, ClientHandler> e : proxies.entrySet()) {
+            if (e.getKey().startsWith(prefix) && proxies.remove(e.getKey(), e.getValue())) {
+                e.getValue().disconnect();
+            }
+        }
+        for (Session s : sessions.values()) {
+            if (!s.nodes.remove(node)) continue;
+            if (dropOnLinkDown) {
+                s.client.send(Message.error("서버와 연결이 끊겼습니다. 다시 접속해 주세요."));
+                s.client.disconnect();
+            } else {
+                s.client.send(Message.error("방 서버(" + node + ")와 연결이 끊겨 그 서버의 방에서 나갔습니다. 다시 입장해 주세요."));
+            }
+        }
+    }
+
+    void close() {
+        transport.close();
+        linkWorkers.shutdown();
+    }
+
+    private NodeLink link(String node) {
+        return links.computeIfAbsent(node, NodeLink::new);
+    }
+
+    /**
+     * home 하나로 가는 프레임 대기열.
+     * 방송 한 번이면 같은 프레임이 그 home 의 세션 수만큼 연달아 들어오므로, 이어진 것끼리 DELIVER 하나로 묶는다.
+     * 한 번에 한 스레드만 비우므로 세션마다 넣은 순서가 유지된다 (RoomMailbox 와 같은 방식).
+     */
+    private final class NodeLink {
+        private final String node;
+        private final Queue<Outgoing> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        NodeLink(String node) {
+            this.node = node;
+        }
+
+        void offer(long session, SharedFrame frame) {
+            queue.add(new Outgoing(session, frame));
+            if (scheduled.compareAndSet(false, true)) {
+                linkWorkers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            List<Long> batch = new ArrayList<>();
+            try {
+                for (int i = 0; i < RoomMailbox.DRAIN_BATCH; i++) {
+                    Outgoing first = queue.poll();
+                    if (first == null) break;
+                    batch.clear();
+                    batch.add(first.session);
+                    Outgoing next;
+                    while ((next = queue.peek()) != null && next.frame == first.frame) {
+                        queue.poll();
+                        batch.add(next.session);
+                    }
+                    send(first.frame, batch);
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                linkWorkers.execute(this::drain);
+            }
+        }
+
+        private void send(SharedFrame frame, List<Long> batch) {
+            WireWriter w = new WireWriter();
+            try {
+                w.writeByte(DELIVER);
+                w.writeBytes(frame.frameBytes(BinaryCodec.INSTANCE));
+                w.writeVarint(batch.size());
+                for (long session : batch) {
+                    w.writeVarint(session);
+                }
+                transport.send(node, w.toByteArray());
+            } catch (IOException e) {
+                System.out.println("[Relay] " + node + " 로 보낼 프레임 인코딩 실패: " + e.getMessage());
+            } finally {
+                w.release();
+            }
+        }
+    }
+
+    // 대리 ClientHandler 가 쓰는 연결: 보내는 프레임은 home 으로
+    private final class ProxyConnection implements Connection {
+        private final String node;
+        private final long session;
+
+        ProxyConnection(String node, long session) {
+            this.node = node;
+            this.session = session;
+        }
+
+        @Override
+        public void send(SharedFrame frame) {
+            link(node).offer(session, frame);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public OutboundQueue<?> outbound() {
+            return null;
+        }
+
+        // 노드 링크의 읽기 스레드 하나가 이 노드의 모든 대리 세션을 처리하므로 디스크 요청은 작업 풀로
+        @Override
+        public boolean sharedReader() {
+            return true;
+        }
+    }
+}
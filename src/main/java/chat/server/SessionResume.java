@@ -0,0 +1,114 @@
+package chat.server;
+
+import chat.shared.Message;
+
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 세션 이어받기. 로그인한 새 클라이언트에게 토큰을 주고(RESUME), 연결이 끊기면 window 동안 세션을 방에 남겨 둔다.
+ * 그 안에 같은 토큰으로 RESUME 하면 새 연결이 세션을 넘겨받는다: 모든 방에 다시 붙고,
+ * 방마다 마지막으로 받은 순번 뒤에 놓친 방송만 받는다 (왕복 한 번). 토큰은 이어받을 때마다 바뀐다.
+ * 창이 지나면 그때 방에서 나간다 (끊긴 즉시 나가던 것과 같은 처리).
+ */
+class SessionResume {
+
+    private static final int TOKEN_BYTES = 16;
+
+    private static final class Session {
+        final ClientHandler client;
+        volatile ScheduledFuture<?> expiry;
+
+        Session(ClientHandler client) {
+            this.client = client;
+        }
+    }
+
+    private final ScheduledExecutorService timer;
+    private final long windowSeconds;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong resumed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    SessionResume(ScheduledExecutorService timer, long windowSeconds) {
+        this.timer = timer;
+        this.windowSeconds = windowSeconds;
+    }
+
+    // 로그인 직후: 토큰 발급
+    void open(ClientHandler client) {
+        client.send(Message.resumed(issue(client), null));
+    }
+
+    /**
+     * 연결이 끊긴 세션을 창 동안 남겨 둔다. false 면 바로 정리해야 함 (토큰 없음).
+     * 이미 새 연결이 넘겨받은 세션이면 방 정리는 그쪽 몫이라 true.
+     */
+    boolean park(ClientHandler client) {
+        String token = client.resumeToken();
+        if (token == null) {
+            return false;
+        }
+        Session s = sessions.get(token);
+        if (s == null || s.client != client) {
+            return true;
+        }
+        s.expiry = timer.schedule(() -> {
+            if (sessions.remove(token, s)) {
+                expired.incrementAndGet();
+                client.release();
+            }
+        }, windowSeconds, TimeUnit.SECONDS);
+        return true;
+    }
+
+    // 첫 메시지가 RESUME 인 새 연결. 넘겨받았으면 응답까지 보내고 true
+    boolean resume(ClientHandler fresh, Message request) {
+        String token = request.getText();
+        Session s = token == null ? null : sessions.get(token);
+        if (s == null || !s.client.getNickname().equals(fresh.getNickname()) || !sessions.remove(token, s)) {
+            return false;
+        }
+        ScheduledFuture<?> expiry = s.expiry;
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+        resumed.incrementAndGet();
+
+        Map<String, Long> lastSeqs = new HashMap<>();
+        List<String> rooms = request.getRooms();
+        List<Long> seqs = request.getSeqs();
+        if (rooms != null && seqs != null) {
+            for (int i = 0; i < Math.min(rooms.size(), seqs.size()); i++) {
+                lastSeqs.put(rooms.get(i), seqs.get(i));
+            }
+        }
+        fresh.takeOver(s.client, issue(fresh), lastSeqs);
+        return true;
+    }
+
+    // 운영자용
+    String report() {
+        long parked = sessions.values().stream().filter(s -> s.expiry != null).count();
+        return "sessions=" + sessions.size() + " parked=" + parked
+                + " resumed=" + resumed.get() + " expired=" + expired.get();
+    }
+
+    private String issue(ClientHandler client) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = HexFormat.of().formatHex(bytes);
+        sessions.put(token, new Session(client));
+        client.resumeToken(token);
+        return token;
+    }
+}
@@ -0,0 +1,70 @@
+package chat.server;
+
+import chat.shared.Frames;
+import chat.shared.Message;
+import chat.shared.MessageCodec;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 브로드캐스트용 메시지 한 건. 코덱별로 [길이][payload] 프레임을 처음 필요할 때 한 번만 인코딩해 두고,
+ * 같은 byte[] 를 모든 참가자의 연결에 그대로 쓴다 (N명에게 보내도 직렬화는 코덱 수만큼).
+ * 예전 스트림 클라이언트용 레코드(TC_RESET + 객체)도 같은 방식으로 한 번만 만든다.
+ * 캐시된 배열은 절대 수정하지 않는다.
+ */
+final class SharedFrame {
+
+    private final Message message;
+    private final boolean droppable;
+    private static final String LEGACY_STREAM = "legacy-stream";
+
+    private final Map<String, byte[]> encoded = new ConcurrentHashMap<>(4);
+
+    private SharedFrame(Message message) {
+        this.message = message;
+        this.droppable = OutboundQueue.isDroppable(message);
+    }
+
+    static SharedFrame of(Message message) {
+        return new SharedFrame(message);
+    }
+
+    // 다른 노드가 이미 인코딩해 보낸 프레임을 받았을 때: 그 코덱으로는 다시 인코딩하지 않는다
+    static SharedFrame of(Message message, MessageCodec codec, byte[] frame) {
+        SharedFrame f = new SharedFrame(message);
+        f.encoded.put(codec.name(), frame);
+        return f;
+    }
+
+    Message message() {
+        return message;
+    }
+
+    boolean droppable() {
+        return droppable;
+    }
+
+    // 헤더 포함 프레임 바이트 (공유, 읽기 전용)
+    byte[] frameBytes(MessageCodec codec) throws IOException {
+        byte[] cached = encoded.get(codec.name());
+        if (cached != null) {
+            return cached;
+        }
+        byte[] frame = Frames.frame(codec.encode(message));
+        byte[] prev = encoded.putIfAbsent(codec.name(), frame);
+        return prev != null ? prev : frame;
+    }
+
+    // 예전 ObjectOutputStream 스트림 클라이언트용 (공유, 읽기 전용)
+    byte[] legacyRecord() throws IOException {
+        byte[] cached = encoded.get(LEGACY_STREAM);
+        if (cached != null) {
+            return cached;
+        }
+        byte[] record = Frames.legacyStreamRecord(message);
+        byte[] prev = encoded.putIfAbsent(LEGACY_STREAM, record);
+        return prev != null ? prev : record;
+    }
+}
@@ -0,0 +1,185 @@
+package chat.server;
+
+import chat.shared.Message;
+import chat.shared.WireReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 대기 서버 (--standby=주 서버 host:복제 포트). 주 서버의 방 이벤트 기록(ReplicationLog)을 받아
+ * 같은 이름의 방에 그대로 적용해 두고(순번·기록·참가자·오목 게임), 주 서버가 사라지면 돌아와서 승격한다.
+ * 링크가 끊기면 곧바로 다시 접속해 보고, 접속이 안 되거나 접속해도 아무것도 오지 않으면 주 서버가 죽은 것으로 본다.
+ * 방 이벤트는 방 작업 대기열에 넣어 적용하므로 방마다 주 서버와 같은 순서다.
+ * 접속 중이던 클라이언트 연결은 옮길 수 없다: 클라이언트는 같은 포트로 다시 접속해 방에 다시 들어온다.
+ */
+class StandbyReplica {
+
+    private static final long RETRY_MILLIS = 1000;
+
+    private final ChatServer server;
+    private final InetSocketAddress primary;
+    private final int timeoutMillis;
+    // 주 서버가 방송한 때부터 여기 방 대기열에서 적용하기까지
+    private final LatencyHistogram lag = new LatencyHistogram();
+    private final AtomicLong applied = new AtomicLong();
+    private volatile long lostAt;
+
+    StandbyReplica(ChatServer server, InetSocketAddress primary, int timeoutMillis) {
+        this.server = server;
+        this.primary = primary;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 주 서버가 살아 있는 동안 복제를 받으며 기다린다. 주 서버를 잃으면 돌아온다.
+     * 아직 한 번도 받은 적이 없으면(주 서버가 뜨기 전) 계속 다시 접속한다.
+     */
+    void awaitPrimaryLoss() throws InterruptedException {
+        boolean replicated = false;
+        while (true) {
+            long received = -1;
+            try {
+                received = follow();
+            } catch (IOException e) {
+                if (!replicated) {
+                    System.out.println("[Replica] 주 서버(" + primary + ") 접속 실패, 다시 시도: " + e.getMessage());
+                }
+            }
+            if (received > 0) {
+                replicated = true;
+                continue; // 끊겼으면 곧바로 다시 접속해 본다 (주 서버가 살아 있으면 새 스냅숏부터)
+            }
+            if (replicated) {
+                return;
+            }
+            Thread.sleep(RETRY_MILLIS);
+        }
+    }
+
+    // 주 서버를 잃은 뒤 지난 시간 (승격이 끝났을 때 보고용)
+    long millisSinceLoss() {
+        return lostAt == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lostAt);
+    }
+
+    // 운영자용: "applied=.. lag n=.. p50=..us p99=..us"
+    String report() {
+        String summary = lag.summary();
+        return "applied=" + applied.get() + (summary != null ? " lag " + summary : "");
+    }
+
+    // 링크 하나가 끊길 때까지 적용. 받은 프레임 수
+    private long follow() throws IOException, InterruptedException {
+        Socket socket = new Socket();
+        socket.connect(primary, timeoutMillis);
+        socket.setTcpNoDelay(true);
+        // 하트비트가 이만큼 없으면 읽기가 끊기고 링크를 닫는다
+        socket.setSoTimeout(timeoutMillis);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        AtomicLong received = new AtomicLong();
+        DuplexLink link = new DuplexLink(socket, "primary", new DuplexLink.Handler() {
+            @Override
+            public void frame(DuplexLink l, byte[] payload) {
+                if (received.incrementAndGet() == 1) {
+                    lostAt = 0;
+                    System.out.println("[Replica] 주 서버 " + primary + " 에서 복제 시작");
+                }
+                apply(payload);
+            }
+
+            @Override
+            public void closed(DuplexLink l, String reason) {
+                lostAt = System.nanoTime();
+                System.out.println("[Replica] 주 서버 링크 끊김: " + reason);
+            }
+        });
+        link.start(in, out);
+        link.await();
+        return received.get();
+    }
+
+    private void apply(byte[] payload) {
+        try {
+            WireReader r = new WireReader(payload, 0, payload.length);
+            int type = r.readByte();
+            if (type == ReplicationLog.HEARTBEAT) {
+                return;
+            }
+            if (type == ReplicationLog.ROOMS) {
+                List<String> names = r.readStrings();
+                server.retainRooms(names == null ? new HashSet<>() : new HashSet<>(names));
+                return;
+            }
+            String name = r.readString();
+            switch (type) {
+                case ReplicationLog.SNAPSHOT -> {
+                    long seq = r.readVarint();
+                    List<String> members = r.readStrings();
+                    ChatRoom room = server.replaceRoom(name);
+                    OmokGame game = null;
+                    if (r.readByte() == 1) {
+                        game = new OmokGame(room);
+                        game.readState(r);
+                    }
+                    OmokGame restored = game;
+                    room.post(() -> room.restore(seq, members == null ? List.of() : members, restored));
+                }
+                case ReplicationLog.RECORDS -> {
+                    ChatRoom room = server.getOrCreateRoom(name);
+                    int count = (int) r.readVarint();
+                    for (int i = 0; i < count; i++) {
+                        byte[] frame = r.readBytes();
+                        room.post(() -> room.restoreRecord(frame));
+                    }
+                }
+                case ReplicationLog.DELIVER -> {
+                    long sent = r.readSignedVarint();
+                    long seq = r.readVarint();
+                    boolean saveHistory = r.readByte() == 1;
+                    byte[] frame = r.readBytes();
+                    ChatRoom room = server.getOrCreateRoom(name);
+                    room.post(() -> {
+                        room.replicate(seq, saveHistory, frame);
+                        lag.record(LatencyHistogram.epochMicros() - sent);
+                        applied.incrementAndGet();
+                    });
+                }
+                case ReplicationLog.JOIN -> {
+                    String nickname = r.readString();
+                    ChatRoom room = server.getOrCreateRoom(name);
+                    room.post(() -> room.replicaJoined(nickname));
+                }
+                case ReplicationLog.LEAVE -> {
+                    String nickname = r.readString();
+                    ChatRoom room = server.getOrCreateRoom(name);
+                    room.post(() -> room.replicaLeft(nickname));
+                }
+                case ReplicationLog.GAME -> {
+                    String nickname = r.readString();
+                    Message.GameAction action = Message.GameAction.values()[(int) r.readVarint()];
+                    int x = (int) r.readSignedVarint();
+                    int y = (int) r.readSignedVarint();
+                    ChatRoom room = server.getOrCreateRoom(name);
+                    room.post(() -> room.replicaGame(action, nickname, x, y));
+                }
+                case ReplicationLog.CLOSE -> {
+                    ChatRoom room = server.getRoom(name);
+                    if (room != null) room.post(() -> server.removeEmptyRoom(name));
+                }
+                default -> System.out.println("[Replica] 알 수 없는 복제 이벤트: " + type);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[Replica] 복제 이벤트 처리 실패: " + e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package chat.server;
+
+import chat.shared.Frames;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * 예전 클라이언트용: 상대는 하나의 ObjectInputStream 으로 계속 readObject 한다.
+ * 서버는 ObjectOutputStream 을 유지하지 않고, 메시지마다 TC_RESET 으로 시작하는 독립 레코드를 쓴다.
+ * 그래서 접속이 오래 유지돼도 핸들 테이블이 커지지 않고, 브로드캐스트 레코드도 연결끼리 공유한다.
+ */
+class StreamConnection extends QueuedConnection<byte[]> {
+
+    private final OutputStream out;
+
+    StreamConnection(Socket socket, ServerOptions options) throws IOException {
+        super(socket, options);
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        // 스트림 헤더는 접속 직후 한 번 (상대 ObjectInputStream 생성자가 기다림)
+        out.write(Frames.legacyStreamHeader());
+        out.flush();
+    }
+
+    @Override
+    public void send(SharedFrame frame) {
+        try {
+            enqueue(frame.legacyRecord(), frame.droppable());
+        } catch (IOException e) {
+            System.out.println("[StreamConnection] 직렬화 실패(" + socket.getRemoteSocketAddress() + "): " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected void write(byte[] record) throws IOException {
+        out.write(record);
+    }
+
+    @Override
+    protected void flushOut() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,132 @@
+package chat.server;
+
+import chat.shared.Message;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 예전 ObjectOutputStream 클라이언트 한 명이 접속을 끊지 않고 메시지를 오래 주고받을 때
+ * 서버 힙이 평평하게 유지되는지 보는 도구 (연결마다 핸들 테이블이 쌓이지 않는지).
+ * 서버를 같은 JVM 에 띄우고 방 하나에 들어가 USER_LIST 요청을 messages 번 왕복한다
+ * (응답은 매번 새로 만든 Message 와 목록). 구간마다 GC 후 힙 사용량을 찍고,
+ * 첫 구간 대비 증가가 limit 을 넘으면 종료 코드 1.
+ *
+ * 사용법: StreamSoak [messages=1000000] [window=256] [limitMB=8]
+ */
+public class StreamSoak {
+
+    private static final int CHECKPOINTS = 10;
+    private static final String ROOM = "soak";
+
+    public static void main(String[] args) throws Exception {
+        long messages = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int window = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        long limitBytes = (args.length > 2 ? Long.parseLong(args[2]) : 8) * 1024 * 1024;
+
+        PrintStream report = System.out;
+        // 접속·방 로그는 측정에 방해되므로 버린다
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        ServerSocket ss = new ServerSocket(0);
+        ServerOptions options = ServerOptions.parse(new String[]{"--history-store=memory", "--resume-window=0"});
+        ChatServer server = new ChatServer(options);
+        ThreadFactory threads = options.connectionThreads();
+        Thread acceptor = new Thread(() -> {
+            try {
+                ChatServerMain.serveBlocking(server, ss, threads);
+            } catch (IOException ignored) {
+            }
+        }, "soak-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        Socket socket = new Socket("localhost", ss.getLocalPort());
+        socket.setTcpNoDelay(true);
+        ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.flush();
+        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+
+        // 응답 하나에 허가 하나: 보내 놓고 아직 못 받은 요청은 window 개까지
+        Semaphore inFlight = new Semaphore(0);
+        AtomicLong replies = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            try {
+                while (true) {
+                    Message m = (Message) in.readObject();
+                    if (m.getType() == Message.Type.USER_LIST && m.getUsers() != null) {
+                        replies.incrementAndGet();
+                        inFlight.release();
+                    }
+                }
+            } catch (IOException | ClassNotFoundException ignored) {
+            }
+        }, "soak-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        write(out, Message.login("soak"));
+        write(out, Message.joinRoom(ROOM));
+        out.flush();
+        // 입장 때 오는 참가자 목록을 한 번 받고 나서 시작
+        if (!inFlight.tryAcquire(5, TimeUnit.SECONDS)) {
+            report.println("입장 응답을 받지 못했습니다.");
+            System.exit(1);
+        }
+        inFlight.release(window);
+        long base = replies.get();
+
+        report.println("messages=" + messages + " window=" + window + " mode=" + (options.virtual ? "virtual" : "platform"));
+        long step = Math.max(1, messages / CHECKPOINTS);
+        long first = -1;
+        long last = 0;
+        long t0 = System.nanoTime();
+        for (long i = 1; i <= messages; i++) {
+            inFlight.acquire();
+            write(out, Message.userListRequest(ROOM));
+            if (inFlight.availablePermits() == 0 || i % step == 0) {
+                out.flush();
+            }
+            if (i % step == 0) {
+                inFlight.acquire(window);
+                inFlight.release(window);
+                last = heapAfterGc();
+                if (first < 0) first = last;
+                report.printf("%,d 왕복 (%.1f s): heapUsed=%,d KB%n",
+                        replies.get() - base, (System.nanoTime() - t0) / 1e9, last / 1024);
+            }
+        }
+
+        long growth = last - first;
+        boolean flat = growth <= limitBytes;
+        report.printf("첫 구간 대비 힙 증가 %,d KB (한도 %,d KB): %s%n",
+                growth / 1024, limitBytes / 1024, flat ? "평평함" : "증가함");
+        System.exit(flat ? 0 : 1);
+    }
+
+    // 클라이언트 쪽 핸들 테이블도 쌓이지 않도록 매번 reset
+    private static void write(ObjectOutputStream out, Message m) throws IOException {
+        out.writeObject(m);
+        out.reset();
+    }
+
+    private static long heapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
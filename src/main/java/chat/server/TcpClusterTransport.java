@@ -0,0 +1,165 @@
+package chat.server;
+
+import chat.shared.Frames;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 노드 사이 TCP 링크 (한 장비에서는 루프백 포트 여러 개로 띄운다).
+ * 보내는 쪽: 노드마다 대기열 하나와 writer 스레드 하나가 연결을 맺고 [노드 이름] 다음에 [길이][payload] 프레임을 쓴다.
+ * 받는 쪽: 들어온 연결마다 읽기 스레드 하나. 방향마다 연결이 따로라 두 노드는 서로에게 연결을 하나씩 맺는다.
+ * 연결이 끊기면 writer 는 1초 간격으로 다시 맺고, 그 사이 대기열이 가득 차면 새 메시지는 버린다.
+ */
+class TcpClusterTransport implements ClusterTransport {
+
+    private static final int QUEUE_CAPACITY = 65536;
+    private static final int WRITE_BATCH = 64;
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private final Map<String, InetSocketAddress> nodes;
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+    private String self;
+    private Receiver receiver;
+    private ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    TcpClusterTransport(Map<String, InetSocketAddress> nodes) {
+        this.nodes = nodes;
+    }
+
+    @Override
+    public void start(String self, Receiver receiver) throws IOException {
+        this.self = self;
+        this.receiver = receiver;
+        InetSocketAddress address = nodes.get(self);
+        if (address == null) {
+            throw new IOException("클러스터 목록에 이 노드(" + self + ")의 주소가 없습니다.");
+        }
+        serverSocket = new ServerSocket(address.getPort());
+        daemon(this::acceptLoop, "cluster-accept").start();
+        System.out.println("[Cluster] 노드 링크 대기: port=" + address.getPort());
+    }
+
+    @Override
+    public void send(String node, byte[] payload) {
+        Peer peer = peers.computeIfAbsent(node, Peer::new);
+        if (!peer.queue.offer(payload)) {
+            System.out.println("[Cluster] " + node + " 송신 대기열 초과로 메시지를 버립니다.");
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        for (Peer p : peers.values()) {
+            p.writer.interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                daemon(() -> readLoop(socket), "cluster-in-" + socket.getPort()).start();
+            } catch (IOException e) {
+                if (!closed) System.out.println("[Cluster] accept 오류: " + e.getMessage());
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        String from = null;
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            from = in.readUTF();
+            System.out.println("[Cluster] " + from + " 노드가 연결했습니다.");
+            while (!closed) {
+                receiver.receive(from, Frames.readFrame(in));
+            }
+        } catch (IOException e) {
+            if (from != null && !closed) {
+                System.out.println("[Cluster] " + from + " 노드 연결 끊김: " + e.getMessage());
+                receiver.linkDown(from);
+            }
+        }
+    }
+
+    // 보내는 방향 연결 하나
+    private final class Peer {
+        final String node;
+        final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+        final Thread writer;
+
+        Peer(String node) {
+            this.node = node;
+            this.writer = daemon(this::writeLoop, "cluster-out-" + node);
+            writer.start();
+        }
+
+        private void writeLoop() {
+            List<byte[]> batch = new ArrayList<>(WRITE_BATCH);
+            while (!closed) {
+                InetSocketAddress address = nodes.get(node);
+                if (address == null) {
+                    System.out.println("[Cluster] 알 수 없는 노드: " + node);
+                    queue.clear();
+                    return;
+                }
+                try (Socket socket = new Socket(address.getHostString(), address.getPort())) {
+                    socket.setTcpNoDelay(true);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    out.writeUTF(self);
+                    out.flush();
+                    while (!closed) {
+                        batch.clear();
+                        byte[] first = queue.poll(1, TimeUnit.SECONDS);
+                        if (first == null) continue;
+                        batch.add(first);
+                        queue.drainTo(batch, WRITE_BATCH - 1);
+                        for (byte[] payload : batch) {
+                            Frames.writeFrame(out, payload);
+                        }
+                        // 묶음 단위로 한 번만 flush
+                        out.flush();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    if (closed) return;
+                    System.out.println("[Cluster] " + node + " 노드로 보내기 실패: " + e.getMessage());
+                    receiver.linkDown(node);
+                    try {
+                        Thread.sleep(RECONNECT_MILLIS);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+}
@@ -0,0 +1,195 @@
+package chat.server;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 업로드된 이미지를 저장하고 썸네일을 만드는 백그라운드 작업기.
+ * 디스크 쓰기와 디코딩은 I/O 스레드(접속 스레드, 이벤트 루프)가 아니라 여기 고정 크기 풀에서 한다.
+ * 대기열도 제한되어 있어서 넘치면 submit 이 RejectedExecutionException 을 던진다.
+ * 방송과 기록에는 썸네일만 실리고, 원본은 클라이언트가 클릭했을 때 BLOB_REQUEST 로 받아간다.
+ */
+class ThumbnailService {
+
+    static final int MAX_THUMBNAIL_BYTES = 64 * 1024;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final long CACHE_BUDGET = 8L * 1024 * 1024;
+
+    static final class Stored {
+        final String hash;
+        final String mimeType;
+        final byte[] thumbnail; // 만들 수 없으면 null
+
+        Stored(String hash, String mimeType, byte[] thumbnail) {
+            this.hash = hash;
+            this.mimeType = mimeType;
+            this.thumbnail = thumbnail;
+        }
+    }
+
+    private final BlobStore store;
+    private final int maxEdge;
+    private final ThreadPoolExecutor executor;
+
+    // 같은 이미지를 다시 올리면 썸네일을 다시 만들지 않는다 (원본 해시 → 썸네일)
+    private final ReentrantLock cacheLock = new ReentrantLock();
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cacheBytes;
+
+    ThumbnailService(BlobStore store, int threads, int maxEdge) {
+        this.store = store;
+        this.maxEdge = maxEdge;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), VirtualThreads.platform("thumbnail-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 원본을 저장하고 썸네일을 만든다. 결과는 작업 스레드에서 완료된다.
+     * @throws RejectedExecutionException 대기열이 가득 찼을 때
+     */
+    CompletableFuture<Stored> submit(String mimeType, byte[] bytes) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String hash = store.put(mimeType, bytes);
+                return new Stored(hash, mimeType, thumbnailFor(hash, bytes));
+            } catch (IOException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }, executor);
+    }
+
+    int queued() {
+        return executor.getQueue().size();
+    }
+
+    int active() {
+        return executor.getActiveCount();
+    }
+
+    private byte[] thumbnailFor(String hash, byte[] bytes) {
+        cacheLock.lock();
+        try {
+            byte[] cached = cache.get(hash);
+            if (cached != null) return cached;
+        } finally {
+            cacheLock.unlock();
+        }
+
+        byte[] thumb;
+        try {
+            thumb = thumbnail(bytes, maxEdge);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[Thumbnail] 생성 실패(" + hash + "): " + e.getMessage());
+            return null;
+        }
+        if (thumb == null || thumb.length > MAX_THUMBNAIL_BYTES) {
+            return null;
+        }
+
+        cacheLock.lock();
+        try {
+            if (cache.put(hash, thumb) == null) {
+                cacheBytes += thumb.length;
+            }
+            Iterator<Map.Entry<String, byte[]>> it = cache.entrySet().iterator();
+            while (cacheBytes > CACHE_BUDGET && it.hasNext()) {
+                cacheBytes -= it.next().getValue().length;
+                it.remove();
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+        return thumb;
+    }
+
+    /**
+     * 긴 변이 maxEdge 이하가 되도록 줄인 JPEG(알파가 있으면 PNG) 바이트.
+     * 이미 작은 이미지는 원본 바이트를 그대로 쓰고, 큰 이미지는 서브샘플링으로 읽어서 디코딩 메모리를 줄인다.
+     * 이미지로 읽을 수 없으면 null.
+     */
+    static byte[] thumbnail(byte[] bytes, int maxEdge) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if (w <= maxEdge && h <= maxEdge && bytes.length <= MAX_THUMBNAIL_BYTES) {
+                    return bytes;
+                }
+
+                // 목표 크기의 두 배 정도까지만 픽셀을 건너뛰며 읽고, 나머지는 보간으로 줄인다
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(w, h) / (maxEdge * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage src = reader.read(0, param);
+                return encode(scale(src, maxEdge));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage src, int maxEdge) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(w, h));
+        int tw = Math.max(1, (int) Math.round(w * ratio));
+        int th = Math.max(1, (int) Math.round(h * ratio));
+        boolean alpha = src.getColorModel().hasAlpha();
+
+        BufferedImage dst = new BufferedImage(tw, th, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = dst.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, tw, th, null);
+        } finally {
+            g.dispose();
+        }
+        return dst;
+    }
+
+    private static byte[] encode(BufferedImage img) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(16 * 1024);
+        if (img.getColorModel().hasAlpha()) {
+            ImageIO.write(img, "png", bos);
+            return bos.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(bos)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.8f);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,37 @@
+package chat.server;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 가상 스레드 팩토리 조회.
+ * 빌드 대상이 JDK 17 이므로 Thread.ofVirtual() 은 리플렉션으로 찾고,
+ * 지원하지 않는 런타임(JDK 21 미만, preview 미활성)이면 null 을 돌려준다.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static ThreadFactory factoryOrNull(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) ofVirtual.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // 플랫폼 스레드 팩토리 (기존 방식)
+    static ThreadFactory platform(String namePrefix) {
+        return new ThreadFactory() {
+            private int seq;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                return new Thread(r, namePrefix + seq++);
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package chat.shared;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 인코딩용 바이트 배열 풀.
+ * 가상 스레드/이벤트 루프 어디서든 쓸 수 있도록 ThreadLocal 대신 공유 큐를 사용한다.
+ */
+public final class BufferPool {
+
+    public static final int DEFAULT_SIZE = 4 * 1024;
+    // 이보다 큰 배열(이미지 등)은 풀에 돌려놓지 않는다
+    private static final int MAX_POOLED_SIZE = 256 * 1024;
+
+    private static final ArrayBlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(256);
+
+    private BufferPool() {
+    }
+
+    public static byte[] acquire(int minSize) {
+        if (minSize <= DEFAULT_SIZE) {
+            byte[] b = POOL.poll();
+            if (b != null) return b;
+            return new byte[DEFAULT_SIZE];
+        }
+        return new byte[minSize];
+    }
+
+    public static void release(byte[] buf) {
+        if (buf.length >= DEFAULT_SIZE && buf.length <= MAX_POOLED_SIZE) {
+            POOL.offer(buf);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package chat.shared;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * IMAGE_CHUNK 조각을 blobId 별로 모아 원본 바이트로 복원한다 (클라이언트 수신, 서버 업로드 공용).
+ * 오래 완성되지 않는 전송(조각이 버려진 경우 등)은 일정 시간 뒤 버린다.
+ */
+public class ChunkAssembler {
+
+    private static final long EXPIRE_MILLIS = 60_000;
+
+    private final int maxPending;
+
+    // 완성된 이미지 한 장
+    public static final class Completed {
+        public final String blobId;
+        public final String sender;
+        public final String mimeType;
+        public final byte[] bytes;
+
+        Completed(String blobId, String sender, String mimeType, byte[] bytes) {
+            this.blobId = blobId;
+            this.sender = sender;
+            this.mimeType = mimeType;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Partial {
+        final long startedAt = System.currentTimeMillis();
+        final byte[][] chunks;
+        int received;
+        int totalBytes;
+
+        Partial(int count) {
+            chunks = new byte[count][];
+        }
+    }
+
+    private final Map<String, Partial> pending = new LinkedHashMap<>();
+
+    public ChunkAssembler(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    // 마지막 조각이 들어오면 완성본을, 아니면 null
+    public synchronized Completed accept(Message m) {
+        if (!ImageChunks.isValid(m)) return null;
+        expire();
+
+        Partial p = pending.get(m.getBlobId());
+        if (p == null) {
+            if (pending.size() >= maxPending) {
+                Iterator<String> oldest = pending.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            p = new Partial(m.getChunkCount());
+            pending.put(m.getBlobId(), p);
+        }
+        if (p.chunks.length != m.getChunkCount() || p.chunks[m.getChunkIndex()] != null) {
+            return null;
+        }
+        p.chunks[m.getChunkIndex()] = m.getData();
+        p.received++;
+        p.totalBytes += m.getData().length;
+        if (p.received < p.chunks.length) {
+            return null;
+        }
+
+        pending.remove(m.getBlobId());
+        byte[] bytes = new byte[p.totalBytes];
+        int pos = 0;
+        for (byte[] c : p.chunks) {
+            System.arraycopy(c, 0, bytes, pos, c.length);
+            pos += c.length;
+        }
+        return new Completed(m.getBlobId(), m.getSender(), m.getMimeType(), bytes);
+    }
+
+    private void expire() {
+        long now = System.currentTimeMillis();
+        pending.values().removeIf(p -> now - p.startedAt > EXPIRE_MILLIS);
+    }
+}
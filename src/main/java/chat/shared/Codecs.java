@@ -0,0 +1,32 @@
+package chat.shared;
+
+import java.util.List;
+
+/**
+ * 코덱 이름 ↔ 구현 조회 및 LOGIN 협상 규칙.
+ */
+public final class Codecs {
+
+    // 클라이언트가 LOGIN 에 실어 보내는 선호 순서
+    public static final List<String> PREFERRED = List.of(BinaryCodec.NAME, SerialCodec.NAME);
+
+    private Codecs() {
+    }
+
+    public static MessageCodec byName(String name) {
+        if (BinaryCodec.NAME.equals(name)) return BinaryCodec.INSTANCE;
+        if (SerialCodec.NAME.equals(name)) return SerialCodec.INSTANCE;
+        return null;
+    }
+
+    // 클라이언트가 제시한 순서대로 처음 아는 코덱을 고른다 (없으면 serial)
+    public static MessageCodec negotiate(List<String> offered) {
+        if (offered != null) {
+            for (String name : offered) {
+                MessageCodec c = byName(name);
+                if (c != null) return c;
+            }
+        }
+        return SerialCodec.INSTANCE;
+    }
+}
@@ -0,0 +1,107 @@
+package chat.shared;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+
+/**
+ * 길이 접두(length-prefixed) 프레임 규약.
+ * 클라이언트는 접속 직후 MAGIC 4바이트를 보내고, 이후 [int 길이][payload] 프레임을 주고받는다.
+ * 예전 클라이언트(ObjectOutputStream 연속 스트림)는 첫 2바이트가 0xACED 이므로 서버에서 구분할 수 있다.
+ */
+public final class Frames {
+
+    public static final int MAGIC = 0x54504631; // "TPF1"
+    public static final int HEADER_BYTES = 4;
+    public static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    // 직렬화 Message 의 객체 중첩 한도. 페이지 안에 페이지를 겹겹이 넣어 읽는 쪽 스택을 넘치게 하지 못하게
+    public static final ObjectInputFilter MESSAGE_FILTER = ObjectInputFilter.Config.createFilter("maxdepth=32");
+
+    private Frames() {
+    }
+
+    // 첫 2바이트만 보고 예전 직렬화 스트림인지 판별
+    public static boolean isLegacyStream(int b0, int b1) {
+        return ((b0 & 0xFF) << 8 | (b1 & 0xFF)) == (ObjectStreamConstants.STREAM_MAGIC & 0xFFFF);
+    }
+
+    // 예전 스트림 클라이언트에게 접속 직후 한 번 보내는 ObjectOutputStream 헤더
+    public static byte[] legacyStreamHeader() {
+        return new byte[]{
+                (byte) (ObjectStreamConstants.STREAM_MAGIC >>> 8), (byte) ObjectStreamConstants.STREAM_MAGIC,
+                (byte) (ObjectStreamConstants.STREAM_VERSION >>> 8), (byte) ObjectStreamConstants.STREAM_VERSION
+        };
+    }
+
+    /**
+     * 예전 스트림 클라이언트용 레코드: TC_RESET + 새 스트림에서 쓴 객체 바이트.
+     * 매 메시지마다 핸들 테이블을 비우므로 양쪽 스트림이 지난 메시지를 붙잡고 있지 않고,
+     * 내용이 연결 상태와 무관해져 여러 연결이 같은 바이트를 공유할 수 있다.
+     */
+    public static byte[] legacyStreamRecord(Message m) throws IOException {
+        byte[] standalone = serialize(m); // [헤더 4바이트][객체]
+        byte[] record = new byte[1 + standalone.length - 4];
+        record[0] = ObjectStreamConstants.TC_RESET;
+        System.arraycopy(standalone, 4, record, 1, standalone.length - 4);
+        return record;
+    }
+
+    // 프레임 하나에 완결된 직렬화 결과를 담는다 (핸들 테이블이 프레임 사이에 공유되지 않음)
+    public static byte[] serialize(Message m) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(m);
+        }
+        return bos.toByteArray();
+    }
+
+    public static Message deserialize(byte[] buf, int off, int len) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(buf, off, len))) {
+            ois.setObjectInputFilter(MESSAGE_FILTER);
+            Object obj = ois.readObject();
+            if (!(obj instanceof Message m)) {
+                throw new IOException("Message 프레임이 아닙니다: " + obj);
+            }
+            return m;
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    public static void writeFrame(DataOutputStream out, byte[] payload) throws IOException {
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    // [int 길이][payload] 를 한 배열로 (여러 연결이 공유해서 그대로 쓸 수 있게)
+    public static byte[] frame(byte[] payload) {
+        byte[] frame = new byte[HEADER_BYTES + payload.length];
+        int len = payload.length;
+        frame[0] = (byte) (len >>> 24);
+        frame[1] = (byte) (len >>> 16);
+        frame[2] = (byte) (len >>> 8);
+        frame[3] = (byte) len;
+        System.arraycopy(payload, 0, frame, HEADER_BYTES, len);
+        return frame;
+    }
+
+    public static byte[] readFrame(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        checkLength(len);
+        byte[] payload = new byte[len];
+        in.readFully(payload);
+        return payload;
+    }
+
+    public static void checkLength(int len) throws IOException {
+        if (len < 0 || len > MAX_FRAME_BYTES) {
+            throw new IOException("잘못된 프레임 길이: " + len);
+        }
+    }
+}
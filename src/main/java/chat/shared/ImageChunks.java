@@ -0,0 +1,83 @@
+package chat.shared;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * 이미지 원본 바이트를 IMAGE_CHUNK 메시지로 나누는 규칙 (클라이언트/서버 공용).
+ */
+public final class ImageChunks {
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+    public static final int MAX_IMAGE_BYTES = 16 * 1024 * 1024;
+    public static final int MAX_CHUNKS = (MAX_IMAGE_BYTES + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private ImageChunks() {
+    }
+
+    // 업로드: 전송마다 새 blobId
+    public static List<Message> split(String room, String sender, String mimeType, byte[] bytes) {
+        return split(room, sender, UUID.randomUUID().toString(), mimeType, bytes);
+    }
+
+    // 다운로드(BLOB_REQUEST 응답): blobId = 내용 해시
+    public static List<Message> split(String room, String sender, String blobId, String mimeType, byte[] bytes) {
+        if (bytes.length == 0 || bytes.length > MAX_IMAGE_BYTES) {
+            throw new IllegalArgumentException("이미지 크기가 허용 범위를 벗어났습니다: " + bytes.length);
+        }
+        int count = (bytes.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        List<Message> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = i * CHUNK_SIZE;
+            byte[] part = Arrays.copyOfRange(bytes, from, Math.min(bytes.length, from + CHUNK_SIZE));
+            chunks.add(Message.imageChunk(room, sender, blobId, mimeType, i, count, part));
+        }
+        return chunks;
+    }
+
+    // 서버/수신 측 검증: 바이트 내용은 보지 않고 범위만 확인
+    public static boolean isValid(Message m) {
+        return m.getBlobId() != null
+                && !m.getBlobId().isBlank()
+                && m.getChunkCount() > 0
+                && m.getChunkCount() <= MAX_CHUNKS
+                && m.getChunkIndex() >= 0
+                && m.getChunkIndex() < m.getChunkCount()
+                && m.getData() != null
+                && m.getData().length <= CHUNK_SIZE;
+    }
+
+    // 내용 주소(content address): SHA-256 소문자 hex
+    public static String contentHash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder sb = new StringBuilder(64);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 파일 경로로도 쓰이므로 형식을 엄격히 확인
+    public static boolean isContentHash(String s) {
+        return s != null && CONTENT_HASH.matcher(s).matches();
+    }
+
+    public static String mimeOf(String filename) {
+        String lower = filename.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".png")) return "image/png";
+        if (lower.endsWith(".gif")) return "image/gif";
+        return "image/jpeg";
+    }
+}
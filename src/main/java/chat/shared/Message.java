@@ -1,11 +1,22 @@
 package chat.shared;
 
 import javax.swing.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 public class Message implements Serializable {
 
+    // 필드가 늘어도 예전 클라이언트와 직렬화 호환되도록 최초 버전의 값으로 고정
+    private static final long serialVersionUID = 2745823424357216329L;
+
+    // 바이너리 코덱은 ordinal 을 타입 태그로 쓰므로 enum 상수는 끝에만 추가할 것
+
     public enum Type {
         LOGIN,          // 클라이언트 → 서버 (닉네임 전달)
         ROOM_LIST,      // 서버 → 클라이언트 (방 목록 전체)
@@ -17,7 +28,35 @@ public class Message implements Serializable {
         GAME_EVENT,     // 미니게임(오목) 이벤트
         USER_LIST ,      // 방 참가자 목록
         IMAGE  ,          //이미지 전달
-        LEAVE_ROOM       //클라이언트 ->  서버?
+        LEAVE_ROOM,       //클라이언트 ->  서버?
+        IMAGE_CHUNK,     // 원본 압축 이미지(PNG/JPEG/GIF) 바이트 조각. 서버는 디코딩 없이 중계
+        IMAGE_REF,       // 서버 → 클라이언트: 이미지 내용 해시(blobId = SHA-256)와 썸네일(data)
+        BLOB_REQUEST,    // 클라이언트 → 서버: 가지고 있지 않은 blob 요청 → IMAGE_CHUNK 로 응답
+        HISTORY,         // 요청: cursor 이전 기록 pageSize 건 / 응답: 오래된 순서의 기록(page)과 다음 cursor
+        SEARCH,          // 요청: 검색어(text), cursor 번째 결과부터 pageSize 건 / 응답: 관련도 순 결과(page)와 다음 cursor
+        ROOM_ADDED,      // 서버 → 클라이언트: 방 목록 변경분 (version 은 1씩 증가, 건너뛰면 ROOM_LIST 로 다시 요청)
+        ROOM_REMOVED,
+        ROOM_UPDATED,    // 방 정보(참여자 수, 오목 상태) 변경
+        ROOM_QUERY,      // 요청: 이름 접두어(text)·정렬(roomSort)·이전 페이지 마지막 방(room, cursor) / 응답: roomInfos 한 페이지
+        USER_JOINED,     // 서버 → 클라이언트: 방 참가자 변경분 (users, 방마다 version 이 1씩 증가. 건너뛰면 USER_LIST 로 다시 요청)
+        USER_LEFT,
+        RESUME           // 클라이언트 → 서버: LOGIN 대신 첫 메시지로 이어받기 토큰(text)과 방(rooms)마다 마지막으로 받은 순번(seqs)
+                         // 서버 → 클라이언트: 새 토큰(text). rooms 가 있으면 이어받은 방, text 가 null 이면 이어받지 못함(새로 로그인한 것과 같음)
+    }
+
+    // ROOM_QUERY 정렬 기준. 참여자·최근 활동은 많은(최근) 것부터, 같으면 이름순
+    public enum RoomSort {
+        NAME,
+        PARTICIPANTS,
+        ACTIVITY
+    }
+
+    // 방 목록에 보여줄 오목 상태
+    public enum RoomGame {
+        NONE,       // 게임 없음
+        WAITING,    // 상대를 기다리는 중
+        PLAYING,
+        FINISHED
     }
 
     public enum GameAction {
@@ -35,7 +74,13 @@ public class Message implements Serializable {
     private String sender;     // 보낸 사람 닉네임
     private String text;       // 메시지 내용
     private List<String> rooms; // ROOM_LIST 용
-    private List<String> users; //USER_LIST용
+    private List<Integer> participantCounts; // ROOM_LIST: rooms 와 같은 순서의 참여자 수
+    private int participants;   // ROOM_ADDED/UPDATED
+    private long version = -1;  // 방 목록 버전 (ROOM_LIST 요청: 알고 있는 버전, 모르면 -1)
+    private RoomGame game;      // ROOM_ADDED/UPDATED
+    private RoomSort roomSort;  // ROOM_QUERY
+    private List<RoomInfo> roomInfos; // ROOM_QUERY 응답
+    private List<String> users; //USER_LIST용 (USER_JOINED/LEFT: 들어오거나 나간 사람들)
     private ImageIcon image;
 
     // ===== 게임 관련 필드 =====
@@ -51,6 +96,28 @@ public class Message implements Serializable {
     private String resultReason;
     private List<String> spectators;
 
+    // LOGIN: 클라이언트가 지원하는 코덱 목록(선호 순) / 서버 응답에는 선택된 코덱 하나
+    private List<String> codecs;
+
+    // ===== IMAGE_CHUNK =====
+    private String blobId;     // 전송 단위 식별자
+    private String mimeType;   // image/png, image/jpeg, image/gif
+    private int chunkIndex;
+    private int chunkCount;
+    private byte[] data;
+
+    // ===== HISTORY / SEARCH =====
+    private long cursor;        // 요청: 이 번호 이전(미포함), 음수면 최신부터 / 응답: 이 페이지에서 가장 오래된 번호 (SEARCH 는 결과 순번)
+    private int pageSize;
+    private List<Message> page;
+    private boolean hasMore;    // 응답: cursor 이전에 기록이 더 있는지
+
+    // 방이 방송한 순서 (방마다 1씩 증가, 방송이 아니면 -1). 같은 방 메시지는 모두 이 순서로 도착한다
+    private long seq = -1;
+
+    // RESUME 요청: rooms 와 같은 순서로 마지막으로 받은 순번 (모르면 -1)
+    private List<Long> seqs;
+
     public Message(Type type) {
         this.type = type;
     }
@@ -62,6 +129,38 @@ public class Message implements Serializable {
         return m;
     }
 
+    public static Message login(String nickname, List<String> codecs) {
+        Message m = login(nickname);
+        m.codecs = codecs;
+        return m;
+    }
+
+    // 서버 → 클라이언트: 이후 프레임에 쓸 코덱 통보
+    public static Message loginAck(String codec) {
+        Message m = new Message(Type.LOGIN);
+        m.codecs = List.of(codec);
+        return m;
+    }
+
+    // 끊긴 세션 이어받기 요청. LOGIN 처럼 첫 메시지로 보낸다
+    public static Message resume(String nickname, String token, List<String> codecs,
+                                 List<String> rooms, List<Long> lastSeqs) {
+        Message m = login(nickname, codecs);
+        m.type = Type.RESUME;
+        m.text = token;
+        m.rooms = rooms;
+        m.seqs = lastSeqs;
+        return m;
+    }
+
+    // 서버 → 클라이언트: 이어받기 토큰 발급(rooms == null) / 이어받은 방(rooms) / 실패(token == null)
+    public static Message resumed(String token, List<String> rooms) {
+        Message m = new Message(Type.RESUME);
+        m.text = token;
+        m.rooms = rooms;
+        return m;
+    }
+
     public static Message createRoom(String roomName) {
         Message m = new Message(Type.CREATE_ROOM);
         m.room = roomName;
@@ -89,6 +188,48 @@ public class Message implements Serializable {
         return m;
     }
 
+    public static Message roomListRequest(long knownVersion) {
+        Message m = new Message(Type.ROOM_LIST);
+        m.version = knownVersion;
+        return m;
+    }
+
+    public static Message roomSnapshot(List<String> rooms, List<Integer> participantCounts, long version) {
+        Message m = roomList(rooms);
+        m.participantCounts = participantCounts;
+        m.version = version;
+        return m;
+    }
+
+    public static Message roomDelta(Type type, String room, int participants, RoomGame game, long version) {
+        Message m = new Message(type);
+        m.room = room;
+        m.participants = participants;
+        m.game = game;
+        m.version = version;
+        return m;
+    }
+
+    // 첫 페이지면 afterRoom 은 null. 다음 페이지는 응답의 room/cursor 를 그대로 넘긴다
+    public static Message roomQuery(String prefix, RoomSort sort, String afterRoom, long afterKey, int pageSize) {
+        Message m = new Message(Type.ROOM_QUERY);
+        m.text = prefix;
+        m.roomSort = sort;
+        m.room = afterRoom;
+        m.cursor = afterKey;
+        m.pageSize = pageSize;
+        return m;
+    }
+
+    public static Message roomQueryResult(String prefix, RoomSort sort, List<RoomInfo> rooms,
+                                          String nextRoom, long nextKey, boolean hasMore, long version) {
+        Message m = roomQuery(prefix, sort, nextRoom, nextKey, rooms.size());
+        m.roomInfos = rooms;
+        m.hasMore = hasMore;
+        m.version = version;
+        return m;
+    }
+
     public static Message roomList(List<String> rooms) {
         Message m = new Message(Type.ROOM_LIST);
         m.rooms = rooms;
@@ -122,6 +263,25 @@ public class Message implements Serializable {
         return m;
     }
 
+    // 참가자 목록 전체를 다시 요청 (변경분 버전이 건너뛰었을 때)
+    public static Message userListRequest(String room) {
+        return userList(room, null);
+    }
+
+    public static Message userListSnapshot(String room, List<String> users, long version) {
+        Message m = userList(room, users);
+        m.version = version;
+        return m;
+    }
+
+    public static Message userDelta(Type type, String room, List<String> users, long version) {
+        Message m = new Message(type);
+        m.room = room;
+        m.users = users;
+        m.version = version;
+        return m;
+    }
+
     public static Message sendImage(String room, String sender, ImageIcon image){
         Message m = new Message(Type.IMAGE);
         m.room = room;
@@ -131,6 +291,73 @@ public class Message implements Serializable {
         return m;
     }
 
+    public static Message imageChunk(String room, String sender, String blobId, String mimeType,
+                                     int chunkIndex, int chunkCount, byte[] data) {
+        Message m = new Message(Type.IMAGE_CHUNK);
+        m.room = room;
+        m.sender = sender;
+        m.blobId = blobId;
+        m.mimeType = mimeType;
+        m.chunkIndex = chunkIndex;
+        m.chunkCount = chunkCount;
+        m.data = data;
+        return m;
+    }
+
+    public static Message imageRef(String room, String sender, String hash, String mimeType, byte[] thumbnail) {
+        Message m = new Message(Type.IMAGE_REF);
+        m.room = room;
+        m.sender = sender;
+        m.blobId = hash;
+        m.mimeType = mimeType;
+        m.data = thumbnail;
+        return m;
+    }
+
+    public static Message blobRequest(String room, String hash) {
+        Message m = new Message(Type.BLOB_REQUEST);
+        m.room = room;
+        m.blobId = hash;
+        return m;
+    }
+
+    // beforeCursor 가 음수면 가장 최근 페이지
+    public static Message historyRequest(String room, long beforeCursor, int pageSize) {
+        Message m = new Message(Type.HISTORY);
+        m.room = room;
+        m.cursor = beforeCursor;
+        m.pageSize = pageSize;
+        return m;
+    }
+
+    public static Message historyPage(String room, List<Message> page, long cursor, boolean hasMore) {
+        Message m = new Message(Type.HISTORY);
+        m.room = room;
+        m.page = page;
+        m.cursor = cursor;
+        m.hasMore = hasMore;
+        return m;
+    }
+
+    public static Message searchRequest(String room, String query, long offset, int pageSize) {
+        Message m = new Message(Type.SEARCH);
+        m.room = room;
+        m.text = query;
+        m.cursor = offset;
+        m.pageSize = pageSize;
+        return m;
+    }
+
+    public static Message searchResult(String room, String query, List<Message> page, long nextOffset, boolean hasMore) {
+        Message m = new Message(Type.SEARCH);
+        m.room = room;
+        m.text = query;
+        m.page = page;
+        m.cursor = nextOffset;
+        m.hasMore = hasMore;
+        return m;
+    }
+
     // ===== 게임용 편의 생성자들 =====
 
     public static Message gameJoinPlayer(String room) {
@@ -200,8 +427,37 @@ public class Message implements Serializable {
     public String getSender() { return sender; }
     public String getText() { return text; }
     public List<String> getRooms() { return rooms; }
+    public List<Integer> getParticipantCounts() { return participantCounts; }
+    public int getParticipants() { return participants; }
+    public long getVersion() { return version; }
+    public RoomGame getGame() { return game; }
+    public RoomSort getRoomSort() { return roomSort; }
+    public List<RoomInfo> getRoomInfos() { return roomInfos; }
     public List<String> getUsers() { return users; }
     public ImageIcon getImage() {return image; }
+    public List<String> getCodecs() { return codecs; }
+    public String getBlobId() { return blobId; }
+    public String getMimeType() { return mimeType; }
+    public int getChunkIndex() { return chunkIndex; }
+    public int getChunkCount() { return chunkCount; }
+    public byte[] getData() { return data; }
+    public long getCursor() { return cursor; }
+    public int getPageSize() { return pageSize; }
+    public List<Message> getPage() { return page; }
+    public boolean hasMore() { return hasMore; }
+    public long getSeq() { return seq; }
+    public List<Long> getSeqs() { return seqs; }
+
+    // 방송 직전에 방 작업 대기열에서 붙인다
+    public Message sequenced(long seq) {
+        this.seq = seq;
+        return this;
+    }
+
+    // 최초 버전 클라이언트의 Message 클래스에 없는 타입이면 false (받는 쪽 enum 역직렬화가 실패함)
+    public boolean isLegacyCompatible() {
+        return type.ordinal() <= Type.LEAVE_ROOM.ordinal();
+    }
 
     // 게임 관련 getter
     public GameAction getGameAction() { return gameAction; }
@@ -215,4 +471,394 @@ public class Message implements Serializable {
     public String getWinner() { return winner; }
     public String getResultReason() { return resultReason; }
     public List<String> getSpectators() { return spectators; }
+
+    // ===== 바이너리 코덱 (BinaryCodec) =====
+    // 타입 태그 뒤에 해당 Type/GameAction 에 필요한 필드만 쓴다
+
+    // 방 순번은 프레임 맨 뒤에 덧붙인다 (기록 페이지 안의 메시지에는 쓰지 않음)
+    void writeBinary(WireWriter w) throws IOException {
+        writeBody(w);
+        if (seq >= 0) {
+            w.writeSignedVarint(seq);
+        }
+    }
+
+    private void writeBody(WireWriter w) throws IOException {
+        w.writeByte(type.ordinal());
+        switch (type) {
+            case LOGIN -> {
+                w.writeString(sender);
+                w.writeStrings(codecs);
+            }
+            case ROOM_LIST -> {
+                w.writeStrings(rooms);
+                // 버전·참여자 수는 뒤에 덧붙인 필드 (읽는 쪽은 hasRemaining 으로 확인)
+                w.writeSignedVarint(version);
+                w.writeVarint(participantCounts == null ? 0 : participantCounts.size() + 1);
+                if (participantCounts != null) {
+                    for (int c : participantCounts) {
+                        w.writeVarint(c);
+                    }
+                }
+            }
+            case ROOM_ADDED, ROOM_REMOVED, ROOM_UPDATED -> {
+                w.writeString(room);
+                w.writeVarint(participants);
+                w.writeSignedVarint(version);
+                w.writeByte(game == null ? 0 : game.ordinal() + 1);
+            }
+            case ROOM_QUERY -> {
+                w.writeString(text);
+                w.writeByte(roomSort == null ? 0 : roomSort.ordinal() + 1);
+                w.writeString(room);
+                w.writeSignedVarint(version);
+                writePageBinary(w);
+                w.writeVarint(roomInfos == null ? 0 : roomInfos.size() + 1);
+                if (roomInfos != null) {
+                    for (RoomInfo info : roomInfos) {
+                        info.writeBinary(w);
+                    }
+                }
+            }
+            case CREATE_ROOM, JOIN_ROOM -> w.writeString(room);
+            case CHAT -> {
+                w.writeString(room);
+                w.writeString(sender);
+                w.writeString(text);
+            }
+            case SYSTEM -> {
+                w.writeString(room);
+                w.writeString(text);
+            }
+            case ERROR -> w.writeString(text);
+            case USER_LIST -> {
+                w.writeString(room);
+                w.writeStrings(users);
+                w.writeSignedVarint(version); // 뒤에 덧붙인 필드
+            }
+            case USER_JOINED, USER_LEFT -> {
+                w.writeString(room);
+                w.writeStrings(users);
+                w.writeSignedVarint(version);
+            }
+            case IMAGE -> {
+                w.writeString(room);
+                w.writeString(sender);
+                w.writeBytes(image == null ? null : serializeImage(image));
+            }
+            case LEAVE_ROOM -> {
+                w.writeString(room);
+                w.writeString(sender);
+            }
+            case GAME_EVENT -> writeGameBinary(w);
+            case IMAGE_CHUNK -> writeChunkBinary(w);
+            case IMAGE_REF -> {
+                w.writeString(room);
+                w.writeString(sender);
+                w.writeString(blobId);
+                w.writeString(mimeType);
+                w.writeBytes(data);
+            }
+            case BLOB_REQUEST -> {
+                w.writeString(room);
+                w.writeString(blobId);
+            }
+            case HISTORY -> {
+                w.writeString(room);
+                writePageBinary(w);
+            }
+            case SEARCH -> {
+                w.writeString(room);
+                w.writeString(text);
+                writePageBinary(w);
+            }
+            case RESUME -> {
+                w.writeString(sender);
+                w.writeString(text);
+                w.writeStrings(codecs);
+                w.writeStrings(rooms);
+                w.writeVarint(seqs == null ? 0 : seqs.size() + 1);
+                if (seqs != null) {
+                    for (long s : seqs) {
+                        w.writeSignedVarint(s);
+                    }
+                }
+            }
+        }
+    }
+
+    // HISTORY / SEARCH / ROOM_QUERY 공통: cursor, pageSize, hasMore, 메시지 목록
+    private void writePageBinary(WireWriter w) throws IOException {
+        w.writeSignedVarint(cursor);
+        w.writeVarint(pageSize);
+        w.writeByte(hasMore ? 1 : 0);
+        // 페이지의 각 메시지는 자기 타입 태그부터 그대로 이어 쓴다 (null 이면 0, 아니면 건수+1)
+        w.writeVarint(page == null ? 0 : page.size() + 1);
+        if (page != null) {
+            for (Message p : page) {
+                p.writeBody(w);
+            }
+        }
+    }
+
+    private void writeChunkBinary(WireWriter w) {
+        w.writeString(room);
+        w.writeString(sender);
+        w.writeString(blobId);
+        w.writeString(mimeType);
+        w.writeVarint(chunkIndex);
+        w.writeVarint(chunkCount);
+        w.writeBytes(data);
+    }
+
+    private void writeGameBinary(WireWriter w) {
+        w.writeString(room);
+        w.writeByte(gameAction == null ? 0 : gameAction.ordinal() + 1);
+        if (gameAction == null) return;
+        switch (gameAction) {
+            case MOVE -> {
+                w.writeSignedVarint(x);
+                w.writeSignedVarint(y);
+            }
+            case STATE -> {
+                if (board == null) {
+                    w.writeVarint(0);
+                } else {
+                    w.writeVarint(board.length + 1L);
+                    for (int[] row : board) {
+                        w.writeVarint(row.length);
+                        for (int cell : row) {
+                            w.writeByte(cell);
+                        }
+                    }
+                }
+                w.writeString(blackPlayer);
+                w.writeString(whitePlayer);
+                w.writeString(currentTurn);
+                w.writeByte(finished ? 1 : 0);
+                w.writeString(winner);
+                w.writeString(resultReason);
+                w.writeStrings(spectators);
+            }
+            case ERROR -> w.writeString(text);
+            default -> {
+            }
+        }
+    }
+
+    static Message readBinary(WireReader r) throws IOException {
+        Message m = readBody(r, false);
+        if (r.hasRemaining()) {
+            m.seq = r.readSignedVarint();
+        }
+        return m;
+    }
+
+    // nested: 페이지 안의 기록. 기록 안에 다시 페이지가 들어 있으면 거부한다 (중첩 깊이로 스택을 넘치게 하지 못하게)
+    private static Message readBody(WireReader r, boolean nested) throws IOException {
+        int tag = r.readByte();
+        if (tag >= Type.values().length) {
+            throw new IOException("알 수 없는 타입 태그: " + tag);
+        }
+        Message m = new Message(Type.values()[tag]);
+        switch (m.type) {
+            case LOGIN -> {
+                m.sender = r.readString();
+                m.codecs = r.readStrings();
+            }
+            case ROOM_LIST -> {
+                m.rooms = r.readStrings();
+                if (r.hasRemaining()) {
+                    m.version = r.readSignedVarint();
+                    int n = r.readLength();
+                    if (n > 0) {
+                        m.participantCounts = new ArrayList<>(n - 1);
+                        for (int i = 1; i < n; i++) {
+                            m.participantCounts.add((int) r.readVarint());
+                        }
+                    }
+                }
+            }
+            case ROOM_ADDED, ROOM_REMOVED, ROOM_UPDATED -> {
+                m.room = r.readString();
+                m.participants = (int) r.readVarint();
+                m.version = r.readSignedVarint();
+                if (r.hasRemaining()) {
+                    int game = r.readByte();
+                    if (game > RoomGame.values().length) {
+                        throw new IOException("알 수 없는 게임 상태: " + game);
+                    }
+                    m.game = game == 0 ? null : RoomGame.values()[game - 1];
+                }
+            }
+            case ROOM_QUERY -> {
+                m.text = r.readString();
+                int sort = r.readByte();
+                if (sort > RoomSort.values().length) {
+                    throw new IOException("알 수 없는 정렬 기준: " + sort);
+                }
+                m.roomSort = sort == 0 ? null : RoomSort.values()[sort - 1];
+                m.room = r.readString();
+                m.version = r.readSignedVarint();
+                m.readPageBinary(r, nested);
+                int n = r.readLength();
+                if (n > 0) {
+                    m.roomInfos = new ArrayList<>(n - 1);
+                    for (int i = 1; i < n; i++) {
+                        m.roomInfos.add(RoomInfo.readBinary(r));
+                    }
+                }
+            }
+            case CREATE_ROOM, JOIN_ROOM -> m.room = r.readString();
+            case CHAT -> {
+                m.room = r.readString();
+                m.sender = r.readString();
+                m.text = r.readString();
+            }
+            case SYSTEM -> {
+                m.room = r.readString();
+                m.text = r.readString();
+            }
+            case ERROR -> m.text = r.readString();
+            case USER_LIST -> {
+                m.room = r.readString();
+                m.users = r.readStrings();
+                if (r.hasRemaining()) {
+                    m.version = r.readSignedVarint();
+                }
+            }
+            case USER_JOINED, USER_LEFT -> {
+                m.room = r.readString();
+                m.users = r.readStrings();
+                m.version = r.readSignedVarint();
+            }
+            case IMAGE -> {
+                m.room = r.readString();
+                m.sender = r.readString();
+                byte[] img = r.readBytes();
+                m.image = img == null ? null : deserializeImage(img);
+            }
+            case LEAVE_ROOM -> {
+                m.room = r.readString();
+                m.sender = r.readString();
+            }
+            case GAME_EVENT -> m.readGameBinary(r);
+            case IMAGE_CHUNK -> m.readChunkBinary(r);
+            case IMAGE_REF -> {
+                m.room = r.readString();
+                m.sender = r.readString();
+                m.blobId = r.readString();
+                m.mimeType = r.readString();
+                m.data = r.readBytes();
+            }
+            case BLOB_REQUEST -> {
+                m.room = r.readString();
+                m.blobId = r.readString();
+            }
+            case HISTORY -> {
+                m.room = r.readString();
+                m.readPageBinary(r, nested);
+            }
+            case SEARCH -> {
+                m.room = r.readString();
+                m.text = r.readString();
+                m.readPageBinary(r, nested);
+            }
+            case RESUME -> {
+                m.sender = r.readString();
+                m.text = r.readString();
+                m.codecs = r.readStrings();
+                m.rooms = r.readStrings();
+                int n = r.readLength();
+                if (n > 0) {
+                    m.seqs = new ArrayList<>(n - 1);
+                    for (int i = 1; i < n; i++) {
+                        m.seqs.add(r.readSignedVarint());
+                    }
+                }
+            }
+        }
+        return m;
+    }
+
+    private void readPageBinary(WireReader r, boolean nested) throws IOException {
+        cursor = r.readSignedVarint();
+        pageSize = (int) r.readVarint();
+        hasMore = r.readByte() != 0;
+        int n = r.readLength();
+        if (n > 1 && nested) {
+            throw new IOException("페이지 안의 기록에 다시 페이지가 있습니다");
+        }
+        if (n > 0) {
+            page = new ArrayList<>(n - 1);
+            for (int i = 1; i < n; i++) {
+                page.add(readBody(r, true));
+            }
+        }
+    }
+
+    private void readChunkBinary(WireReader r) throws IOException {
+        room = r.readString();
+        sender = r.readString();
+        blobId = r.readString();
+        mimeType = r.readString();
+        chunkIndex = (int) r.readVarint();
+        chunkCount = (int) r.readVarint();
+        data = r.readBytes();
+    }
+
+    private void readGameBinary(WireReader r) throws IOException {
+        room = r.readString();
+        int action = r.readByte();
+        if (action == 0) return;
+        if (action > GameAction.values().length) {
+            throw new IOException("알 수 없는 게임 액션: " + action);
+        }
+        gameAction = GameAction.values()[action - 1];
+        switch (gameAction) {
+            case MOVE -> {
+                x = (int) r.readSignedVarint();
+                y = (int) r.readSignedVarint();
+            }
+            case STATE -> {
+                int rows = r.readLength();
+                if (rows > 0) {
+                    board = new int[rows - 1][];
+                    for (int i = 0; i < board.length; i++) {
+                        board[i] = new int[r.readLength()];
+                        for (int j = 0; j < board[i].length; j++) {
+                            board[i][j] = r.readByte();
+                        }
+                    }
+                }
+                blackPlayer = r.readString();
+                whitePlayer = r.readString();
+                currentTurn = r.readString();
+                finished = r.readByte() != 0;
+                winner = r.readString();
+                resultReason = r.readString();
+                spectators = r.readStrings();
+            }
+            case ERROR -> text = r.readString();
+            default -> {
+            }
+        }
+    }
+
+    // ImageIcon 은 구조가 복잡해 그 부분만 Java 직렬화로 감싼다
+    private static byte[] serializeImage(ImageIcon icon) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(icon);
+        }
+        return bos.toByteArray();
+    }
+
+    private static ImageIcon deserializeImage(byte[] bytes) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (ImageIcon) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException(e);
+        }
+    }
 }
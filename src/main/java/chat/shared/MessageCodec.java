@@ -0,0 +1,16 @@
+package chat.shared;
+
+import java.io.IOException;
+
+/**
+ * 프레임 payload 와 Message 사이의 변환 규칙.
+ * LOGIN 때 클라이언트가 지원 목록을 보내고 서버가 하나를 골라 응답한다.
+ */
+public interface MessageCodec {
+
+    String name();
+
+    byte[] encode(Message m) throws IOException;
+
+    Message decode(byte[] buf, int off, int len) throws IOException;
+}
@@ -0,0 +1,56 @@
+package chat.shared;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * 방 목록 조회(ROOM_QUERY) 결과의 한 줄. 방 이름, 참여자 수, 오목 상태, 마지막 대화 시각.
+ */
+public final class RoomInfo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final int participants;
+    private final Message.RoomGame game;
+    private final long lastActivity; // epoch ms
+
+    public RoomInfo(String name, int participants, Message.RoomGame game, long lastActivity) {
+        this.name = name;
+        this.participants = participants;
+        this.game = game == null ? Message.RoomGame.NONE : game;
+        this.lastActivity = lastActivity;
+    }
+
+    public String getName() { return name; }
+    public int getParticipants() { return participants; }
+    public Message.RoomGame getGame() { return game; }
+    public long getLastActivity() { return lastActivity; }
+
+    // 참여자 수·게임 상태만 바꾼 사본 (ROOM_UPDATED 반영용)
+    public RoomInfo with(int participants, Message.RoomGame game) {
+        return new RoomInfo(name, participants, game, lastActivity);
+    }
+
+    void writeBinary(WireWriter w) {
+        w.writeString(name);
+        w.writeVarint(participants);
+        w.writeByte(game.ordinal());
+        w.writeSignedVarint(lastActivity);
+    }
+
+    static RoomInfo readBinary(WireReader r) throws IOException {
+        String name = r.readString();
+        int participants = (int) r.readVarint();
+        int game = r.readByte();
+        if (game >= Message.RoomGame.values().length) {
+            throw new IOException("알 수 없는 게임 상태: " + game);
+        }
+        return new RoomInfo(name, participants, Message.RoomGame.values()[game], r.readSignedVarint());
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,30 @@
+package chat.shared;
+
+import java.io.IOException;
+
+/**
+ * 기본 코덱: 프레임마다 독립된 Java 직렬화. 협상 전이나 LOGIN 프레임에 항상 쓰인다.
+ */
+public final class SerialCodec implements MessageCodec {
+
+    public static final SerialCodec INSTANCE = new SerialCodec();
+    public static final String NAME = "serial";
+
+    private SerialCodec() {
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(Message m) throws IOException {
+        return Frames.serialize(m);
+    }
+
+    @Override
+    public Message decode(byte[] buf, int off, int len) throws IOException {
+        return Frames.deserialize(buf, off, len);
+    }
+}
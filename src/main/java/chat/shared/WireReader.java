@@ -0,0 +1,85 @@
+package chat.shared;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WireWriter 로 쓴 바이트를 읽는다. 프레임 범위를 넘어가면 IOException.
+ */
+public final class WireReader {
+
+    private final byte[] buf;
+    private int pos;
+    private final int end;
+
+    public WireReader(byte[] buf, int off, int len) {
+        this.buf = buf;
+        this.pos = off;
+        this.end = off + len;
+    }
+
+    // 뒤에 덧붙인 선택 필드가 있는지 (예전 버전이 보낸 프레임에는 없음)
+    public boolean hasRemaining() {
+        return pos < end;
+    }
+
+    public int readByte() throws IOException {
+        if (pos >= end) throw new EOFException("프레임이 잘렸습니다.");
+        return buf[pos++] & 0xFF;
+    }
+
+    public long readVarint() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("varint 가 너무 깁니다.");
+    }
+
+    public long readSignedVarint() throws IOException {
+        long v = readVarint();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public int readLength() throws IOException {
+        long v = readVarint();
+        if (v < 0 || v > end - pos + 1L) {
+            throw new IOException("잘못된 길이: " + v);
+        }
+        return (int) v;
+    }
+
+    public byte[] readBytes() throws IOException {
+        int n = readLength();
+        if (n == 0) return null;
+        n -= 1;
+        byte[] b = new byte[n];
+        System.arraycopy(buf, pos, b, 0, n);
+        pos += n;
+        return b;
+    }
+
+    public String readString() throws IOException {
+        int n = readLength();
+        if (n == 0) return null;
+        n -= 1;
+        String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+        pos += n;
+        return s;
+    }
+
+    public List<String> readStrings() throws IOException {
+        int n = readLength();
+        if (n == 0) return null;
+        List<String> list = new ArrayList<>(n - 1);
+        for (int i = 1; i < n; i++) {
+            list.add(readString());
+        }
+        return list;
+    }
+}
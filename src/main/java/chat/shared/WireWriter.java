@@ -0,0 +1,81 @@
+package chat.shared;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 바이너리 코덱용 출력 버퍼. 풀에서 빌린 배열에 쓰고 toByteArray() 후 release() 로 반납한다.
+ * 길이/개수는 varint 로, null 은 (길이+1) 인코딩의 0 으로 표현한다.
+ */
+public final class WireWriter {
+
+    private byte[] buf;
+    private int pos;
+
+    public WireWriter() {
+        buf = BufferPool.acquire(BufferPool.DEFAULT_SIZE);
+    }
+
+    private void ensure(int extra) {
+        if (pos + extra > buf.length) {
+            byte[] old = buf;
+            buf = Arrays.copyOf(old, Math.max(old.length * 2, pos + extra));
+            BufferPool.release(old);
+        }
+    }
+
+    public void writeByte(int b) {
+        ensure(1);
+        buf[pos++] = (byte) b;
+    }
+
+    public void writeVarint(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+    }
+
+    // 음수도 짧게 쓰기 위한 zigzag 인코딩
+    public void writeSignedVarint(long v) {
+        writeVarint((v << 1) ^ (v >> 63));
+    }
+
+    public void writeBytes(byte[] b) {
+        if (b == null) {
+            writeVarint(0);
+            return;
+        }
+        writeVarint(b.length + 1L);
+        ensure(b.length);
+        System.arraycopy(b, 0, buf, pos, b.length);
+        pos += b.length;
+    }
+
+    public void writeString(String s) {
+        writeBytes(s == null ? null : s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void writeStrings(List<String> list) {
+        if (list == null) {
+            writeVarint(0);
+            return;
+        }
+        writeVarint(list.size() + 1L);
+        for (String s : list) {
+            writeString(s);
+        }
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+
+    public void release() {
+        BufferPool.release(buf);
+        buf = null;
+    }
+}